@@ -0,0 +1,74 @@
+package patrick.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import patrick.storage.Storage;
+import patrick.tasklist.Task;
+import patrick.tasklist.ToDo;
+
+/**
+ * Measures searches on one store by three threads while a fourth keeps marking and unmarking a task and saving
+ * the change, to show how long readers wait for writers.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ConcurrentStoreBenchmark {
+    private static final int SIZE = 10000;
+
+    private Storage storage;
+
+    /**
+     * Fills a store backed by a temporary file with generated todo tasks.
+     *
+     * @throws Exception if the file cannot be written or loaded.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        storage = new Storage(Files.createTempFile("concurrent", ".txt").toString());
+        storage.load();
+        Random random = new Random(42);
+        for (int i = 0; i < SIZE; i++) {
+            String line = TaskFileGenerator.generateLine(random, i * 3);
+            storage.addList(new ToDo(line.substring("T | O | ".length())));
+        }
+        storage.writeToFile();
+    }
+
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(3)
+    public List<Task> find() {
+        return storage.findTasks("read book", true);
+    }
+
+    /**
+     * Marks the first task if it is not done and unmarks it otherwise, rewriting the file each time.
+     *
+     * @return the changed task.
+     * @throws Storage.InvalidIndexException if the store is empty.
+     * @throws IOException if the file cannot be written.
+     */
+    @Benchmark
+    @Group("readWrite")
+    @GroupThreads(1)
+    public Task markAndUnmark() throws Storage.InvalidIndexException, IOException {
+        Task task = storage.mark(1);
+        return task != null ? task : storage.unmark(1);
+    }
+}
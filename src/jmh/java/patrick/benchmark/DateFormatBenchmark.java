@@ -0,0 +1,37 @@
+package patrick.benchmark;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import patrick.DateFormatChecker;
+
+/**
+ * Measures recognising a date in each supported format, plus one that matches no format.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DateFormatBenchmark {
+    @Param({"2024-09-20 2359", "20-09-2024 2359", "2-09-2024 2359", "09-20-2024 2359", "2024/09/20 2359",
+        "20/09/2024 2359", "2/09/2024 2359", "09/20/2024 2359", "Sep 20 2024 2359", "Sep 2 2024 2359",
+        "next friday"})
+    private String date;
+
+    @Benchmark
+    public String getDateFormat() {
+        return DateFormatChecker.getDateFormat(date);
+    }
+
+    @Benchmark
+    public LocalDateTime parseDate() {
+        return DateFormatChecker.parseDate(date);
+    }
+}
@@ -0,0 +1,114 @@
+package patrick.benchmark;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import javafx.application.Platform;
+import javafx.scene.Scene;
+import javafx.scene.control.ListView;
+import javafx.scene.image.Image;
+import patrick.MessageCell;
+import patrick.ui.ChatMessage;
+
+/**
+ * Measures adding a message to a conversation of {@code history} messages and laying out again the list view that
+ * the main window shows it in, with each message drawn by a {@link MessageCell}. The conversation is kept at the
+ * same length by dropping the oldest message each time.
+ * <p>
+ * Starts the JavaFX toolkit, so it needs a display, or Monocle in headless mode.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DialogRenderBenchmark {
+    @Param({"1000", "10000"})
+    private int history;
+
+    private ListView<ChatMessage> root;
+    private Runnable addMessage;
+    private Image image;
+    private int count;
+
+    /**
+     * Starts the JavaFX toolkit and lays out a window showing {@code history} messages.
+     *
+     * @throws InterruptedException if interrupted while waiting for the JavaFX thread.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws InterruptedException {
+        try {
+            Platform.startup(() -> { });
+        } catch (IllegalStateException e) {
+            // Already started by an earlier trial in this JVM
+        }
+        runOnFxThread(() -> {
+            image = new Image(MessageCell.class.getResourceAsStream("/images/DaDuke.png"));
+            setUpListView();
+            new Scene(root, 400, 800);
+            for (int i = 0; i < history; i++) {
+                addMessage.run();
+            }
+            root.applyCss();
+            root.layout();
+        });
+    }
+
+    private void setUpListView() {
+        ListView<ChatMessage> listView = new ListView<>();
+        Map<ChatMessage.Kind, Image> images = new EnumMap<>(ChatMessage.Kind.class);
+        for (ChatMessage.Kind kind : ChatMessage.Kind.values()) {
+            images.put(kind, image);
+        }
+        listView.setCellFactory(list -> new MessageCell(list, images));
+        root = listView;
+        addMessage = () -> {
+            listView.getItems().add(new ChatMessage(nextKind(), "message " + count));
+            if (listView.getItems().size() > history) {
+                listView.getItems().remove(0);
+            }
+            listView.scrollTo(listView.getItems().size() - 1);
+        };
+    }
+
+    private ChatMessage.Kind nextKind() {
+        return count++ % 2 == 0 ? ChatMessage.Kind.USER : ChatMessage.Kind.REPLY;
+    }
+
+    /**
+     * Adds one message and lays the window out again.
+     *
+     * @throws InterruptedException if interrupted while waiting for the JavaFX thread.
+     */
+    @Benchmark
+    public void addMessageAndLayout() throws InterruptedException {
+        runOnFxThread(() -> {
+            addMessage.run();
+            root.applyCss();
+            root.layout();
+        });
+    }
+
+    private static void runOnFxThread(Runnable action) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        Platform.runLater(() -> {
+            try {
+                action.run();
+            } finally {
+                done.countDown();
+            }
+        });
+        done.await();
+    }
+}
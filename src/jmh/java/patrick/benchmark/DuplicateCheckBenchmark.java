@@ -0,0 +1,64 @@
+package patrick.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import patrick.parser.Parser;
+import patrick.storage.Storage;
+import patrick.tasklist.Task;
+import patrick.tasklist.ToDo;
+
+/**
+ * Measures the throughput of adding a task, including its duplicate check, against lists of different sizes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DuplicateCheckBenchmark {
+    @Param({"10000", "100000", "1000000"})
+    private int size;
+
+    private Task candidate;
+
+    private Storage storage;
+
+    /**
+     * Fills a task list with {@code size} distinct todo tasks.
+     *
+     * @throws IOException if the temporary file cannot be created.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        storage = new Storage(Files.createTempFile("duplicates", ".txt").toString());
+        for (int i = 0; i < size; i++) {
+            storage.addList(new ToDo("task " + i));
+        }
+        candidate = new ToDo("task " + size);
+    }
+
+    /**
+     * Checks the candidate for duplicates, adds it, then removes it again so the list size stays constant.
+     *
+     * @return whether the candidate was a duplicate.
+     */
+    @Benchmark
+    public boolean addTask() {
+        boolean isDuplicate = Parser.isDuplicate(storage, candidate);
+        if (!isDuplicate) {
+            storage.addList(candidate);
+            storage.deleteItem(storage.size());
+        }
+        return isDuplicate;
+    }
+}
@@ -0,0 +1,57 @@
+package patrick.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import patrick.parser.Parser;
+import patrick.storage.Storage;
+import patrick.tasklist.TaskList;
+import patrick.tasklist.ToDo;
+
+/**
+ * Measures {@code find} queries against lists of different sizes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FindBenchmark {
+    @Param({"1000", "100000"})
+    private int size;
+
+    @Param({"find CS2103", "find read book", "find /any gym laundry", "find 99"})
+    private String query;
+
+    private Storage storage;
+
+    /**
+     * Fills a task list with generated todo tasks.
+     *
+     * @throws IOException if the temporary file cannot be created.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        storage = new Storage(Files.createTempFile("find", ".txt").toString());
+        Random random = new Random(42);
+        for (int i = 0; i < size; i++) {
+            String line = TaskFileGenerator.generateLine(random, i * 3);
+            storage.addList(new ToDo(line.substring("T | O | ".length())));
+        }
+    }
+
+    @Benchmark
+    public String findTask() throws Parser.PatrickException {
+        return TaskList.findTask(storage, query);
+    }
+}
@@ -0,0 +1,74 @@
+package patrick.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import patrick.storage.ParallelTaskReader;
+import patrick.storage.Storage;
+import patrick.tasklist.Task;
+
+/**
+ * Measures how decoding and loading a task file of a million lines scales with the number of threads decoding it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ParallelLoadBenchmark {
+    private static final int SIZE = 1_000_000;
+
+    @Param({"1", "2", "4", "8"})
+    private int parallelism;
+
+    private Path path;
+    private Storage storage;
+
+    /**
+     * Generates a task file with a million tasks and sets the parallelism used when loading it.
+     *
+     * @throws IOException if the file cannot be written.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        path = Files.createTempFile("parallel", ".txt");
+        TaskFileGenerator.generate(path, SIZE, 42);
+        System.setProperty(ParallelTaskReader.PARALLELISM_PROPERTY, String.valueOf(parallelism));
+        storage = new Storage(path.toString());
+    }
+
+    /**
+     * Empties the in-memory list so that every load starts from nothing.
+     */
+    @Setup(Level.Invocation)
+    public void clear() {
+        storage.clear();
+    }
+
+    /**
+     * Decodes the file into tasks without storing them.
+     *
+     * @return the decoded tasks.
+     * @throws Exception if the file cannot be read.
+     */
+    @Benchmark
+    public List<Task> decode() throws Exception {
+        return new ParallelTaskReader(parallelism).read(path);
+    }
+
+    @Benchmark
+    public List<Task> load() throws Storage.StorageOperationException {
+        return storage.load();
+    }
+}
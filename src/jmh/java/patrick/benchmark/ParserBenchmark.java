@@ -0,0 +1,75 @@
+package patrick.benchmark;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import patrick.parser.Parser;
+import patrick.storage.Storage;
+import patrick.tasklist.ToDo;
+
+/**
+ * Measures a full {@code Parser.parseTask} call for each command type against a list of 1000 tasks,
+ * including the file write each command performs.
+ * Commands that change the list are undone in memory afterwards so that every call sees the same list.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ParserBenchmark {
+    private static final int SIZE = 1000;
+
+    @Param({"list", "todo write report", "deadline submit report /by 2024-09-20 2359",
+        "event CS2103 briefing /from Sep 20 2024 1600 /to 1800", "mark 2", "unmark 3", "delete 4",
+        "find book", "formats", "bye", "sing a song"})
+    private String command;
+
+    private int restored;
+
+    private Storage storage;
+
+    /**
+     * Generates and loads a task file with 1000 tasks, with task 2 not done and task 3 done.
+     *
+     * @throws Exception if the file cannot be written or loaded.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        Path path = Files.createTempFile("parser", ".txt");
+        TaskFileGenerator.generate(path, SIZE, 42);
+        storage = new Storage(path.toString());
+        storage.load();
+        storage.unmarkItem(2);
+        storage.markItem(3);
+    }
+
+    /**
+     * Parses and runs the command, then reverts its effect on the in-memory list.
+     *
+     * @return the reply to the command.
+     */
+    @Benchmark
+    public String parseTask() {
+        String response = new Parser().parseTask(command, storage);
+        if (storage.size() > SIZE) {
+            storage.deleteItem(storage.size());
+        } else if (storage.size() < SIZE) {
+            storage.addList(new ToDo("restored task " + restored++));
+        } else if (command.startsWith("mark")) {
+            storage.unmarkItem(2);
+        } else if (command.startsWith("unmark")) {
+            storage.markItem(3);
+        }
+        return response;
+    }
+}
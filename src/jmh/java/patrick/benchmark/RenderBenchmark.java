@@ -0,0 +1,64 @@
+package patrick.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import patrick.storage.Storage;
+import patrick.tasklist.Deadline;
+import patrick.tasklist.Event;
+import patrick.tasklist.ToDo;
+import patrick.ui.Ui;
+
+/**
+ * Measures rendering every task as a line, for the {@code list} reply and for a full rewrite of the task file.
+ * Run with the {@code gc} profiler to see the allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class RenderBenchmark {
+    @Param({"1000", "10000"})
+    private int size;
+
+    private Storage storage;
+
+    /**
+     * Fills a task list with a mix of todo, deadline and event tasks backed by a temporary file.
+     *
+     * @throws IOException if the temporary file cannot be created.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        storage = new Storage(Files.createTempFile("render", ".txt").toString());
+        for (int i = 0; i < size; i++) {
+            if (i % 3 == 0) {
+                storage.addList(new ToDo("read book " + i));
+            } else if (i % 3 == 1) {
+                storage.addList(new Deadline("return book " + i, "2019-12-02 1800"));
+            } else {
+                storage.addList(new Event("project meeting " + i, "2020-08-06 1400", "1600"));
+            }
+        }
+    }
+
+    @Benchmark
+    public String printFileContents() {
+        return Ui.printFileContents(storage);
+    }
+
+    @Benchmark
+    public void writeToFile() throws IOException {
+        storage.writeToFile();
+    }
+}
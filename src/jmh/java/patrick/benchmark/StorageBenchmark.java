@@ -0,0 +1,69 @@
+package patrick.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import patrick.storage.Storage;
+import patrick.tasklist.Task;
+
+/**
+ * Measures loading and fully rewriting generated task files of different sizes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class StorageBenchmark {
+    @Param({"1000", "10000", "100000", "1000000"})
+    private int size;
+
+    private Storage storage;
+
+    /**
+     * Generates a task file with {@code size} tasks.
+     *
+     * @throws IOException if the file cannot be written.
+     */
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Path path = Files.createTempFile("storage", ".txt");
+        TaskFileGenerator.generate(path, size, 42);
+        storage = new Storage(path.toString());
+    }
+
+    /**
+     * Empties the in-memory list so that every load starts from nothing.
+     */
+    @Setup(Level.Invocation)
+    public void clear() {
+        storage.clear();
+    }
+
+    @Benchmark
+    public List<Task> load() throws Storage.StorageOperationException {
+        return storage.load();
+    }
+
+    /**
+     * Loads the file and writes it back out again.
+     *
+     * @throws Exception if the file cannot be read or written.
+     */
+    @Benchmark
+    public void loadAndWriteToFile() throws Exception {
+        storage.load();
+        storage.writeToFile();
+    }
+}
@@ -0,0 +1,80 @@
+package patrick.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+
+/**
+ * Generates synthetic task files in the text format, with an even mix of todo, deadline and event tasks
+ * and about a third of them done. The same size and seed always give the same file.
+ */
+public class TaskFileGenerator {
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("MMM d yyyy HHmm");
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("HHmm");
+    private static final String[] WORDS = {"read", "book", "return", "project", "meeting", "submit", "report",
+        "buy", "groceries", "call", "mum", "CS2103", "iP", "briefing", "lecture", "tutorial", "gym", "laundry"};
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    /**
+     * Writes a task file from the command line.
+     *
+     * @param args the path to write to and the number of tasks.
+     * @throws IOException if the file cannot be written.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.out.println("Usage: TaskFileGenerator <path> <number of tasks>");
+            return;
+        }
+        generate(Paths.get(args[0]), Integer.parseInt(args[1]), 42);
+    }
+
+    /**
+     * Writes {@code size} tasks to the given file, overwriting it.
+     *
+     * @param path the path to write to.
+     * @param size the number of tasks.
+     * @param seed the seed for the random descriptions, dates and statuses.
+     * @throws IOException if the file cannot be written.
+     */
+    public static void generate(Path path, int size, long seed) throws IOException {
+        Random random = new Random(seed);
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < size; i++) {
+                if (i > 0) {
+                    writer.write('\n');
+                }
+                writer.write(generateLine(random, i));
+            }
+        }
+    }
+
+    /**
+     * Creates one line of a task file. The index is part of the description so that no two lines are duplicates.
+     *
+     * @param random the source of randomness.
+     * @param index the position of the line in the file.
+     * @return the line.
+     */
+    public static String generateLine(Random random, int index) {
+        String status = random.nextInt(3) == 0 ? "X" : "O";
+        String description = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)]
+                + " " + index;
+        LocalDateTime date = START.plusMinutes(random.nextInt(365 * 24 * 60));
+        switch (index % 3) {
+        case 0:
+            return "T | " + status + " | " + description;
+        case 1:
+            return "D | " + status + " | " + description + " | " + date.format(DATE_FORMATTER);
+        default:
+            return "E | " + status + " | " + description + " | " + date.format(DATE_FORMATTER) + "-"
+                    + date.plusHours(1).format(TIME_FORMATTER);
+        }
+    }
+}
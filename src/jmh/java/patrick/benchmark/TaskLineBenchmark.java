@@ -0,0 +1,49 @@
+package patrick.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import patrick.storage.Storage.IllegalValueException;
+import patrick.storage.TaskLineTokenizer;
+import patrick.tasklist.Task;
+
+/**
+ * Measures decoding a single line of the text task file of each task type, plus one with escaped characters.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TaskLineBenchmark {
+    @Param({"12 | T | O | read book", "12 | D | X | return book | Dec 2 2019 1800",
+        "12 | E | O | project meeting | Aug 6 2020 1400-1600", "12 | T | O | pipes \\| and \\\\ slashes"})
+    private String line;
+
+    private byte[] bytes;
+    private final TaskLineTokenizer tokenizer = new TaskLineTokenizer();
+
+    @Setup
+    public void setUp() {
+        bytes = line.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public int tokenize() throws IllegalValueException {
+        tokenizer.tokenize(bytes, 0, bytes.length);
+        return tokenizer.getId();
+    }
+
+    @Benchmark
+    public Task toTask() throws IllegalValueException {
+        tokenizer.tokenize(bytes, 0, bytes.length);
+        return tokenizer.toTask();
+    }
+}
@@ -0,0 +1,83 @@
+package patrick;
+
+import java.io.IOException;
+
+import patrick.parser.Parser;
+import patrick.storage.Storage;
+import patrick.ui.Ui;
+
+/**
+ * Runs a script of commands, one per line, without a window.
+ * Changes to the task file are held in memory and saved together every {@code flushEvery} commands and once more
+ * when the script ends, rather than after every command. Responses are written straight to the output as they are
+ * produced, so listing a large task file does not build the whole listing in memory.
+ */
+public class BatchRunner {
+    /** System property giving the number of commands run between saves, 1000 by default. */
+    public static final String FLUSH_EVERY_PROPERTY = "patrick.batch.flushEvery";
+    private static final int DEFAULT_FLUSH_EVERY = 1000;
+    private final Parser parser;
+    private final Storage storage;
+    private final Ui ui;
+    private final int flushEvery;
+
+    /**
+     * Constructs a {@code BatchRunner} that saves every number of commands given by {@value #FLUSH_EVERY_PROPERTY}.
+     *
+     * @param parser the parser to run each command with.
+     * @param storage the store holding the tasks the commands act on.
+     * @param ui the user interface the commands are read from and the responses printed to.
+     */
+    public BatchRunner(Parser parser, Storage storage, Ui ui) {
+        this(parser, storage, ui, Integer.getInteger(FLUSH_EVERY_PROPERTY, DEFAULT_FLUSH_EVERY));
+    }
+
+    /**
+     * Constructs a {@code BatchRunner} that saves after the given number of commands.
+     *
+     * @param parser the parser to run each command with.
+     * @param storage the store holding the tasks the commands act on.
+     * @param ui the user interface the commands are read from and the responses printed to.
+     * @param flushEvery the number of commands run between saves.
+     * @throws IllegalArgumentException if {@code flushEvery} is not positive.
+     */
+    public BatchRunner(Parser parser, Storage storage, Ui ui, int flushEvery) {
+        if (flushEvery <= 0) {
+            throw new IllegalArgumentException("flushEvery must be positive: " + flushEvery);
+        }
+        this.parser = parser;
+        this.storage = storage;
+        this.ui = ui;
+        this.flushEvery = flushEvery;
+    }
+
+    /**
+     * Runs commands until the input ends or a {@code bye} command is read, then saves any remaining changes.
+     *
+     * @return the number of commands run.
+     * @throws IOException if the changes could not be saved.
+     */
+    public int run() throws IOException {
+        int count = 0;
+        storage.beginBatch();
+        try {
+            String command = ui.readCommand();
+            while (command != null) {
+                count++;
+                if (Parser.parse(command).getType() == Parser.Type.BYE) {
+                    ui.show(Ui.showExitMsg());
+                    break;
+                }
+                parser.parseTask(command, storage, ui.getOut());
+                ui.getOut().println();
+                if (count % flushEvery == 0) {
+                    storage.flush();
+                }
+                command = ui.readCommand();
+            }
+        } finally {
+            storage.endBatch();
+        }
+        return count;
+    }
+}
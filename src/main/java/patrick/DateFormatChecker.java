@@ -1,21 +1,44 @@
 package patrick;
 
+import java.text.ParsePosition;
 import java.time.DateTimeException;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalQuery;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import patrick.metrics.DateParseFailedEvent;
+import patrick.metrics.LatencyHistogram;
+import patrick.metrics.Metrics;
 
 /**
  * Provides utility methods for checking and validating date and time formats.
  * It supports a predefined set of date and time formats and can determine the format of a given date or time string.
+ * <p>
+ * Formatters are compiled once. Before parsing, the shape of the input (a leading letter, or its '-' or '/'
+ * separators) narrows the formats worth trying, and each attempt is checked without throwing exceptions.
+ * Recently parsed dates are remembered, since the same dates are often parsed more than once while adding tasks.
  */
 public class DateFormatChecker {
     /**
      * A list of predefined date formats that this class can recognize.
      */
     private static final List<String> FORMATS = new ArrayList<>();
+    private static final List<DateTimeFormatter> FORMATTERS = new ArrayList<>();
+    private static final String TIME_FORMAT = "HHmm";
+    private static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern(TIME_FORMAT);
+    private static final String UNKNOWN_FORMAT = "Unknown Format";
+    private static final int MIN_DATE_LENGTH = "1-1-1 0000".length();
+    private static final int CACHE_SIZE = 256;
+    private static final LatencyHistogram PARSE_LATENCY = Metrics.histogram("date.parse");
+    private static final LongAdder PARSE_FAILURES = Metrics.counter("date.parseFailures");
+    /** Dates parsed lately; read without locking, so threads parsing dates at once do not wait for each other. */
+    private static final Map<String, LocalDateTime> RECENT_DATES = new ConcurrentHashMap<>(CACHE_SIZE);
 
     // Static block to initialize the supported date formats
     static {
@@ -29,6 +52,60 @@ public class DateFormatChecker {
         FORMATS.add("MM/dd/yyyy HHmm");
         FORMATS.add("MMM dd yyyy HHmm");
         FORMATS.add("MMM d yyyy HHmm");
+        for (String format : FORMATS) {
+            FORMATTERS.add(DateTimeFormatter.ofPattern(format));
+        }
+    }
+
+    /**
+     * Parses the given date string using the first predefined format it matches.
+     *
+     * @param date the date string to parse.
+     * @return the parsed date and time, or {@code null} if the string matches none of the formats.
+     */
+    public static LocalDateTime parseDate(String date) {
+        long start = Metrics.start();
+        LocalDateTime parsed = lookUpOrParse(date);
+        Metrics.stop(PARSE_LATENCY, start);
+        if (parsed == null) {
+            Metrics.add(PARSE_FAILURES, 1);
+            DateParseFailedEvent.emit(date, "date");
+        }
+        return parsed;
+    }
+
+    private static LocalDateTime lookUpOrParse(String date) {
+        LocalDateTime recent = RECENT_DATES.get(date);
+        if (recent != null) {
+            return recent;
+        }
+        for (int i = 0; i < FORMATS.size(); i++) {
+            LocalDateTime parsed = isShapeMatch(date, i) ? parse(date, FORMATTERS.get(i), LocalDateTime::from) : null;
+            if (parsed != null) {
+                if (RECENT_DATES.size() >= CACHE_SIZE) {
+                    // Starting over is cheaper than tracking which date was used least recently
+                    RECENT_DATES.clear();
+                }
+                RECENT_DATES.put(date, parsed);
+                return parsed;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Parses the given time string in the "HHmm" format.
+     *
+     * @param time the time string to parse.
+     * @return the parsed time, or {@code null} if the string is not in the "HHmm" format.
+     */
+    public static LocalTime parseTime(String time) {
+        LocalTime parsed = time.length() == TIME_FORMAT.length() ? parse(time, TIME_FORMATTER, LocalTime::from) : null;
+        if (parsed == null) {
+            Metrics.add(PARSE_FAILURES, 1);
+            DateParseFailedEvent.emit(time, "time");
+        }
+        return parsed;
     }
 
     /**
@@ -39,16 +116,12 @@ public class DateFormatChecker {
      * @return the format of the date string if recognized, otherwise "Unknown Format".
      */
     public static String getDateFormat(String date) {
-        for (String format : FORMATS) {
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern(format);
-            try {
-                LocalDateTime.parse(date, formatter);
-                return format;
-            } catch (DateTimeException e) {
-                // Ignore and continue checking other formats
+        for (int i = 0; i < FORMATS.size(); i++) {
+            if (isShapeMatch(date, i) && parse(date, FORMATTERS.get(i), LocalDateTime::from) != null) {
+                return FORMATS.get(i);
             }
         }
-        return "Unknown Format";
+        return UNKNOWN_FORMAT;
     }
 
     /**
@@ -58,15 +131,7 @@ public class DateFormatChecker {
      * @return the "HHmm" format if the time string matches, otherwise "Unknown Format".
      */
     public static String getTimeFormat(String time) {
-        String format = "HHmm";
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern(format);
-        try {
-            LocalTime.parse(time, formatter);
-            return format;
-        } catch (DateTimeException e) {
-            // Ignore and return "Unknown Format"
-        }
-        return "Unknown Format";
+        return parseTime(time) == null ? UNKNOWN_FORMAT : TIME_FORMAT;
     }
 
     /**
@@ -76,15 +141,41 @@ public class DateFormatChecker {
      * @return {@code true} if the date matches any of the predefined formats, {@code false} otherwise.
      */
     public static boolean isValidDate(String date) {
-        for (String format : FORMATS) {
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern(format);
-            try {
-                LocalDateTime.parse(date, formatter);
-                return true;
-            } catch (DateTimeException e) {
-                // Ignore and continue checking other formats
-            }
+        return parseDate(date) != null;
+    }
+
+    /**
+     * Checks whether the date string has the separators the format needs, so that formats which cannot match
+     * are skipped without attempting a parse.
+     */
+    private static boolean isShapeMatch(String date, int formatIndex) {
+        if (date.length() < MIN_DATE_LENGTH || date.charAt(date.length() - TIME_FORMAT.length() - 1) != ' ') {
+            return false;
+        }
+        String format = FORMATS.get(formatIndex);
+        boolean isWordMonth = Character.isLetter(date.charAt(0));
+        if (format.startsWith("MMM")) {
+            return isWordMonth;
+        }
+        char separator = format.indexOf('-') >= 0 ? '-' : '/';
+        return !isWordMonth && date.indexOf(separator) >= 0;
+    }
+
+    /**
+     * Parses the whole string with the formatter, checking the layout first so a mismatch does not throw.
+     *
+     * @return the parsed value, or {@code null} if the string does not match or holds impossible values.
+     */
+    private static <T> T parse(String text, DateTimeFormatter formatter, TemporalQuery<T> query) {
+        ParsePosition position = new ParsePosition(0);
+        if (formatter.parseUnresolved(text, position) == null || position.getIndex() != text.length()) {
+            return null;
+        }
+        try {
+            // Only reached by well-formed input, so this throws just for values such as a 13th month
+            return formatter.parse(text, query);
+        } catch (DateTimeException e) {
+            return null;
         }
-        return false;
     }
 }
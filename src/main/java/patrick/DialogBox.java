@@ -23,14 +23,12 @@ public class DialogBox extends HBox {
     private Label dialog;
     @FXML
     private ImageView displayPicture;
+    private boolean isReply;
 
     /**
-     * Constructs a DialogBox with the specified text and image.
-     *
-     * @param text The text to be displayed in the dialog box.
-     * @param img The image representing the speaker's face.
+     * Constructs an empty DialogBox laid out for the user's input, to be filled in with {@link #show}.
      */
-    private DialogBox(String text, Image img) {
+    public DialogBox() {
         try {
             FXMLLoader fxmlLoader = new FXMLLoader(MainWindow.class.getResource("/view/DialogBox.fxml"));
             fxmlLoader.setController(this);
@@ -39,45 +37,39 @@ public class DialogBox extends HBox {
         } catch (IOException e) {
             e.printStackTrace();
         }
+    }
 
+    /**
+     * Shows a message in this dialog box, flipping it if the speaker has changed, so that one dialog box can be
+     * reused for many messages.
+     *
+     * @param text The text to be displayed in the dialog box.
+     * @param img The image representing the speaker's face.
+     * @param isReply true if the message is from Patrick, shown with the image on the left.
+     */
+    public void show(String text, Image img, boolean isReply) {
         dialog.setText(text);
         displayPicture.setImage(img);
+        if (isReply != this.isReply) {
+            flip();
+        }
     }
 
     /**
-     * Flips the dialog box such that the ImageView is on the left and text on the right.
+     * Flips the dialog box between the user's layout, with the ImageView on the right, and the reply layout, with
+     * the ImageView on the left and text on the right.
      */
     private void flip() {
         ObservableList<Node> tmp = FXCollections.observableArrayList(this.getChildren());
         Collections.reverse(tmp);
         getChildren().setAll(tmp);
-        setAlignment(Pos.TOP_LEFT);
-        dialog.getStyleClass().add("reply-label");
-    }
-
-    /**
-     * Creates a dialog box for the user's input.
-     *
-     * @param text The text entered by the user.
-     * @param img The image representing the user.
-     * @return A DialogBox object representing the user's input.
-     */
-    public static DialogBox getUserDialog(String text, Image img) {
-        return new DialogBox(text, img);
-    }
-
-    /**
-     * Creates a dialog box for the application's response and flips it
-     * so that the ImageView appears on the left side.
-     *
-     * @param text The text of the application's response.
-     * @param img The image representing the application (e.g., a character or avatar).
-     * @return A DialogBox object representing the application's response.
-     */
-    public static DialogBox getDukeDialog(String text, Image img) {
-        var db = new DialogBox(text, img);
-        db.flip();
-        return db;
+        isReply = !isReply;
+        if (isReply) {
+            setAlignment(Pos.TOP_LEFT);
+            dialog.getStyleClass().add("reply-label");
+        } else {
+            setAlignment(Pos.TOP_RIGHT);
+            dialog.getStyleClass().remove("reply-label");
+        }
     }
 }
-
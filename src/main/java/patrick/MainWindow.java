@@ -1,28 +1,45 @@
 package patrick;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
-import javafx.scene.control.ScrollPane;
+import javafx.scene.control.IndexedCell;
+import javafx.scene.control.ListView;
 import javafx.scene.control.TextField;
+import javafx.scene.control.skin.VirtualFlow;
 import javafx.scene.image.Image;
+import javafx.scene.input.ScrollEvent;
 import javafx.scene.layout.AnchorPane;
-import javafx.scene.layout.VBox;
+import javafx.util.Duration;
+import patrick.ui.ChatHistory;
+import patrick.ui.ChatMessage;
 import patrick.ui.Ui;
 
 /**
  * Controls the main GUI window in the Patrick application.
  */
 public class MainWindow extends AnchorPane {
+    /** How long a command may run before the thinking dialog is shown. */
+    private static final Duration THINKING_DELAY = Duration.millis(150);
+    /** Number of spilled messages brought back each time the user scrolls up past the oldest message. */
+    private static final int RESTORE_COUNT = 50;
+
     @FXML
-    private ScrollPane scrollPane;
-    @FXML
-    private VBox dialogContainer;
+    private ListView<ChatMessage> dialogList;
     @FXML
     private TextField userInput;
     @FXML
     private Button sendButton;
 
     private Patrick patrick;
+    private ChatHistory history;
 
     private Image userImage = new Image(this.getClass().getResourceAsStream("/images/DaUser.png"));
     private Image dukeImage = new Image(this.getClass().getResourceAsStream("/images/DaDuke.png"));
@@ -30,37 +47,98 @@ public class MainWindow extends AnchorPane {
     private Image angryPatrickImage = new Image(this.getClass().getResourceAsStream("/images/AngryPatrick.png"));
 
     /**
-     * Initializes the MainWindow by binding the scroll pane's vertical value to the height of the dialog container.
-     * This ensures that the most recent dialog is always visible.
+     * Initializes the MainWindow, showing the conversation in a list view that only lays out the messages in sight
+     * and keeps a bounded number of them in memory.
      */
     @FXML
     public void initialize() {
-        scrollPane.vvalueProperty().bind(dialogContainer.heightProperty());
-        dialogContainer.getChildren().add(DialogBox.getDukeDialog(Ui.showWelcomeMsg(), dukeImage));
+        Map<ChatMessage.Kind, Image> images = new EnumMap<>(ChatMessage.Kind.class);
+        images.put(ChatMessage.Kind.USER, userImage);
+        images.put(ChatMessage.Kind.REPLY, dukeImage);
+        images.put(ChatMessage.Kind.ANGRY_REPLY, angryPatrickImage);
+        images.put(ChatMessage.Kind.THINKING, patrickThinkingImage);
+        dialogList.setCellFactory(list -> new MessageCell(list, images));
+        dialogList.addEventFilter(ScrollEvent.SCROLL, this::restoreOlderOnScrollUp);
+        try {
+            history = new ChatHistory(dialogList.getItems());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        addMessage(new ChatMessage(ChatMessage.Kind.REPLY, Ui.showWelcomeMsg()));
     }
 
     /**
-     * Injects the Patrick instance to be used by this controller.
+     * Injects the Patrick instance to be used by this controller, and shows its reminders, and any problems it had
+     * loading the task file, in the dialog.
      *
      * @param pat The Patrick instance to be associated with this controller.
      */
     public void setPatrick(Patrick pat) {
         patrick = pat;
+        patrick.setReminderHandler(reminder -> Platform.runLater(() ->
+                addMessage(new ChatMessage(ChatMessage.Kind.REPLY, reminder))));
+        patrick.getLoadMessageAsync().thenAccept(message -> {
+            if (message != null) {
+                Platform.runLater(() -> addMessage(new ChatMessage(ChatMessage.Kind.REPLY, message)));
+            }
+        });
     }
 
     /**
-     * Creates two dialog boxes, one echoing user input and the other containing Duke's reply and then appends them to
-     * the dialog container. Clears the user input after processing.
+     * Echoes the user input and runs the command in the background, then shows Patrick's reply once it is ready.
+     * If the reply takes a while, a thinking message is shown until it arrives. Clears the user input straight away
+     * so the next command can be typed.
      */
     @FXML
-    private void handleUserInput() throws InterruptedException {
+    private void handleUserInput() {
         String input = userInput.getText();
-        String response = patrick.getResponse(input);
-        dialogContainer.getChildren().add(DialogBox.getUserDialog(input, userImage));
-        dialogContainer.getChildren().add(DialogBox
-                .getDukeDialog("Hang on Spongebob! Let me check", patrickThinkingImage));
-        Image currentPatrick = response.startsWith("Watch your words") ? angryPatrickImage : dukeImage;
-        dialogContainer.getChildren().add(DialogBox.getDukeDialog(response, currentPatrick));
         userInput.clear();
+        addMessage(new ChatMessage(ChatMessage.Kind.USER, input));
+
+        ChatMessage thinking = new ChatMessage(ChatMessage.Kind.THINKING, "Hang on Spongebob! Let me check");
+        PauseTransition thinkingDelay = new PauseTransition(THINKING_DELAY);
+        thinkingDelay.setOnFinished(event -> addMessage(thinking));
+        thinkingDelay.play();
+
+        patrick.getResponseAsync(input).whenComplete((response, error) -> Platform.runLater(() -> {
+            thinkingDelay.stop();
+            history.remove(thinking);
+            String reply = error == null ? response : Ui.THERE_IS_AN_ERROR + getCause(error).getMessage();
+            ChatMessage.Kind kind = reply.startsWith("Watch your words")
+                    ? ChatMessage.Kind.ANGRY_REPLY
+                    : ChatMessage.Kind.REPLY;
+            addMessage(new ChatMessage(kind, reply));
+        }));
+    }
+
+    private void addMessage(ChatMessage message) {
+        try {
+            history.add(message);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        dialogList.scrollTo(dialogList.getItems().size() - 1);
+    }
+
+    /**
+     * Brings back messages spilled from memory when the user scrolls up while the oldest message is in view.
+     */
+    private void restoreOlderOnScrollUp(ScrollEvent event) {
+        if (event.getDeltaY() <= 0 || history.getSpilledCount() == 0) {
+            return;
+        }
+        VirtualFlow<?> flow = (VirtualFlow<?>) dialogList.lookup(".virtual-flow");
+        IndexedCell<?> first = flow == null ? null : flow.getFirstVisibleCell();
+        if (first != null && first.getIndex() == 0) {
+            try {
+                dialogList.scrollTo(history.restoreOlder(RESTORE_COUNT));
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private static Throwable getCause(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
     }
 }
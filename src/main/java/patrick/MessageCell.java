@@ -0,0 +1,46 @@
+package patrick;
+
+import java.util.Map;
+
+import javafx.scene.control.ContentDisplay;
+import javafx.scene.control.ListCell;
+import javafx.scene.control.ListView;
+import javafx.scene.image.Image;
+import patrick.ui.ChatMessage;
+
+/**
+ * Shows one message of the conversation in the main window's list view.
+ * <p>
+ * The list view only creates enough cells to fill the window and reuses them as it scrolls, so each cell loads its
+ * {@link DialogBox} once and refills it for every message it is given.
+ */
+public class MessageCell extends ListCell<ChatMessage> {
+    /** Width left free at the side of the list for its vertical scroll bar. */
+    private static final double SCROLL_BAR_WIDTH = 20;
+    private final DialogBox dialogBox = new DialogBox();
+    private final Map<ChatMessage.Kind, Image> images;
+
+    /**
+     * Constructs a {@code MessageCell} that fits its dialog box to the width of the list view.
+     *
+     * @param listView the list view the cell belongs to.
+     * @param images the image shown for each kind of message.
+     */
+    public MessageCell(ListView<ChatMessage> listView, Map<ChatMessage.Kind, Image> images) {
+        this.images = images;
+        dialogBox.prefWidthProperty().bind(listView.widthProperty().subtract(SCROLL_BAR_WIDTH));
+        setPrefWidth(0); // Let the list view set the width, rather than widening to the text
+        setContentDisplay(ContentDisplay.GRAPHIC_ONLY);
+    }
+
+    @Override
+    protected void updateItem(ChatMessage message, boolean isEmpty) {
+        super.updateItem(message, isEmpty);
+        if (isEmpty || message == null) {
+            setGraphic(null);
+            return;
+        }
+        dialogBox.show(message.getText(), images.get(message.getKind()), message.isReply());
+        setGraphic(dialogBox);
+    }
+}
@@ -1,6 +1,18 @@
 package patrick;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
 import patrick.parser.Parser;
+import patrick.storage.ColumnarTaskList;
+import patrick.storage.Journal;
+import patrick.storage.MappedTaskList;
 import patrick.storage.Storage;
 import patrick.tasklist.TaskList;
 import patrick.ui.Ui;
@@ -13,7 +25,19 @@ public class Patrick {
     private static final String FILE_PATH = "./data/tasks.txt"; // Path to the storage file
     private static final String MESSAGE_BYE = "BYE";
     private final Ui ui; // User interface for interaction
+    private static final Parser PARSER = new Parser(); // Stateless, so one parser serves every store
+    private final Storage storage; // Store holding this instance's tasks
     private TaskList tasks; // Task list with all the tasks
+    /** Runs this instance's commands one at a time and in order, off the thread that receives them. */
+    private final ExecutorService commandExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "patrick-commands");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final CompletableFuture<Void> loading; // Completes once the task file has been loaded
+    private final ReminderScheduler reminders; // Reminds of upcoming deadlines and events
+    private volatile Consumer<String> reminderHandler = System.out::println; // Shows reminders to the user
+    private volatile String loadMessage; // Tells the user about problems loading the task file, if there were any
 
     /**
      * Constructs a {@code Patrick} instance with a specified file path for storage.
@@ -22,7 +46,17 @@ public class Patrick {
      */
     public Patrick(String filePath) {
         ui = new Ui(); // Initialize the user interface
-        Storage storage = new Storage(filePath); // Initialize storage with the provided file path
+        // Initialize storage with the provided file path, journaled, mapped or columnar as set by system properties
+        storage = new Storage(filePath, Boolean.getBoolean(Journal.ENABLED_PROPERTY),
+                Boolean.getBoolean(MappedTaskList.ENABLED_PROPERTY),
+                Boolean.getBoolean(ColumnarTaskList.ENABLED_PROPERTY));
+        reminders = new ReminderScheduler(storage, task -> reminderHandler.accept(Ui.showReminderMsg(task)));
+        // Load in the background so that a large file does not hold up the window; commands queue behind it
+        loading = CompletableFuture.runAsync(this::load, commandExecutor).thenRunAsync(reminders::start,
+                commandExecutor);
+    }
+
+    private void load() {
         try {
             // Load tasks from storage and initialize TaskList
             tasks = new TaskList(storage.load());
@@ -30,10 +64,24 @@ public class Patrick {
             Ui.showErrorMsg(e.toString()); // Display error if parsing fails
             tasks = new TaskList();
         } catch (Storage.StorageOperationException e) {
-            Ui.showErrorMsg(e.toString()); // Display error if storage operation fails
+            loadMessage = Ui.showErrorMsg(e.toString()); // Display error if storage operation fails
+            tasks = new TaskList();
+        }
+        if (storage.getSkippedLineCount() > 0) {
+            loadMessage = Ui.showSkippedLinesMsg(storage.getSkippedLineCount(), storage.getQuarantinePath());
         }
     }
 
+    /**
+     * Returns a message about loading the task file, such as lines of it that could not be read, once it has
+     * loaded.
+     *
+     * @return a future completed with the message, or with null if the file loaded without problems.
+     */
+    public CompletableFuture<String> getLoadMessageAsync() {
+        return loading.thenApply(ignored -> loadMessage);
+    }
+
     /**
      * Creates an instance of the Patrick application with the default file path.
      * <p>
@@ -44,23 +92,58 @@ public class Patrick {
     }
 
     /**
-     * Starts the application
+     * Starts the application without a window, running the commands in the given script file, or read from
+     * standard input if no file is given, and saving the changes they make in batches.
      *
-     * @param args command-line arguments (not used).
+     * @param args command-line arguments, optionally the path of a script of commands, one per line.
      */
     public static void main(String[] args) {
-        new Patrick(FILE_PATH); // Create a Patrick instance and run the application
+        Patrick patrick = new Patrick(FILE_PATH);
+        String loadMessage = patrick.getLoadMessageAsync().join();
+        if (loadMessage != null) {
+            System.out.println(loadMessage);
+        }
+        try (InputStream in = args.length > 0 ? Files.newInputStream(Paths.get(args[0])) : System.in) {
+            new BatchRunner(PARSER, patrick.storage, new Ui(in, System.out)).run();
+        } catch (IOException e) {
+            System.out.println(Ui.showErrorMsg(Ui.THERE_IS_AN_ERROR + e.getMessage()));
+        }
     }
 
     /**
-     * Processes the user's input and generates an appropriate response.
+     * Sets where reminders of upcoming deadlines and events are shown. Reminders are printed to standard output
+     * until this is called.
+     *
+     * @param handler called on the reminder thread with each reminder message.
+     */
+    public void setReminderHandler(Consumer<String> handler) {
+        reminderHandler = handler;
+    }
+
+    /**
+     * Processes the user's input and generates an appropriate response, waiting for any commands sent before it.
      *
      * @param input The user's input command.
      * @return The response generated based on the user's input.
      */
     public String getResponse(String input) {
+        return getResponseAsync(input).join();
+    }
+
+    /**
+     * Processes the user's input on a background thread. Commands are run one at a time in the order they are
+     * sent, after the task file has loaded.
+     *
+     * @param input The user's input command.
+     * @return a future completed with the response generated based on the user's input.
+     */
+    public CompletableFuture<String> getResponseAsync(String input) {
         assert input != null : "input cannot be null";
-        String response = new Parser().parseTask(input);
+        return CompletableFuture.supplyAsync(() -> respond(input), commandExecutor);
+    }
+
+    private String respond(String input) {
+        String response = PARSER.parseTask(input, storage);
         if (response.equals(MESSAGE_BYE)) {
             System.exit(0);
         }
@@ -0,0 +1,263 @@
+package patrick;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+import patrick.storage.Storage;
+import patrick.storage.TaskListener;
+import patrick.tasklist.Deadline;
+import patrick.tasklist.Event;
+import patrick.tasklist.Task;
+
+/**
+ * Reminds the user of deadlines and events a while before they are due or start.
+ * <p>
+ * Pending reminders are held in a priority queue ordered by when they fire, and a single timer thread sleeps until
+ * the earliest one is due. The scheduler listens to its {@link Storage}, so adding a task queues one reminder and
+ * deleting or completing a task cancels it, without rescanning the list. Cancelled reminders are left in the queue
+ * and skipped when they reach the front, and are swept out once they outnumber the live ones.
+ * <p>
+ * Tasks that are done, or whose time has already passed, get no reminder. A task whose reminder time has passed
+ * but which is not yet due is reminded of straight away.
+ */
+public class ReminderScheduler implements TaskListener {
+    /** System property giving how many minutes before a task's time it is reminded of, 60 by default. */
+    public static final String LEAD_MINUTES_PROPERTY = "patrick.reminder.leadMinutes";
+    private static final long DEFAULT_LEAD_MINUTES = 60;
+    /** Cancelled reminders tolerated in the queue beyond the number of live ones before they are swept out. */
+    private static final int PURGE_SLACK = 1024;
+    private final Storage storage;
+    private final Consumer<Task> handler;
+    private final Duration lead;
+    private final Clock clock;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition changed = lock.newCondition();
+    private final PriorityQueue<Reminder> queue = new PriorityQueue<>(
+            Comparator.comparingLong((Reminder reminder) -> reminder.fireAt).thenComparingLong(r -> r.sequence));
+    /** The live reminder of each task, by task id, since a store may hand out a new copy of a task on each read. */
+    private final Map<Integer, Reminder> pending = new HashMap<>();
+    private long nextSequence;
+    private Thread timer;
+
+    /**
+     * A reminder queued for one task.
+     */
+    private static class Reminder {
+        private final Task task;
+        private final long fireAt;
+        private final long sequence;
+        private boolean isCancelled;
+
+        Reminder(Task task, long fireAt, long sequence) {
+            this.task = task;
+            this.fireAt = fireAt;
+            this.sequence = sequence;
+        }
+    }
+
+    /**
+     * Constructs a {@code ReminderScheduler} that reminds of tasks the number of minutes given by
+     * {@value #LEAD_MINUTES_PROPERTY} ahead of time.
+     *
+     * @param storage the store holding the tasks to remind of.
+     * @param handler called on the timer thread with each task when it is reminded of.
+     */
+    public ReminderScheduler(Storage storage, Consumer<Task> handler) {
+        this(storage, handler, Duration.ofMinutes(Long.getLong(LEAD_MINUTES_PROPERTY, DEFAULT_LEAD_MINUTES)),
+                Clock.systemDefaultZone());
+    }
+
+    /**
+     * Constructs a {@code ReminderScheduler} that reminds of tasks the given time ahead.
+     *
+     * @param storage the store holding the tasks to remind of.
+     * @param handler called on the timer thread with each task when it is reminded of.
+     * @param lead how long before a task's time it is reminded of.
+     * @param clock the clock giving the current time and the time zone that task times are in.
+     */
+    public ReminderScheduler(Storage storage, Consumer<Task> handler, Duration lead, Clock clock) {
+        this.storage = storage;
+        this.handler = handler;
+        this.lead = lead;
+        this.clock = clock;
+    }
+
+    /**
+     * Queues a reminder for every deadline and event in the store still to come, starts listening for changes, and
+     * starts the timer thread. Only those tasks are found and kept, through {@link Storage#findUpcoming}, so a
+     * columnar or mapped store is not decoded in full. Should be called while no other thread is changing the store,
+     * such as right after it is loaded.
+     */
+    public void start() {
+        storage.addListener(this);
+        lock.lock();
+        try {
+            for (Task task : storage.findUpcoming(LocalDateTime.now(clock))) {
+                schedule(task);
+            }
+        } finally {
+            lock.unlock();
+        }
+        timer = new Thread(this::runTimer, "patrick-reminders");
+        timer.setDaemon(true);
+        timer.start();
+    }
+
+    /**
+     * Stops listening for changes and stops the timer thread. Reminders still pending are dropped.
+     */
+    public void stop() {
+        storage.removeListener(this);
+        if (timer != null) {
+            timer.interrupt();
+        }
+    }
+
+    /**
+     * Returns the number of reminders waiting to fire.
+     *
+     * @return the number of pending reminders.
+     */
+    public int getPendingCount() {
+        lock.lock();
+        try {
+            return pending.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void taskAdded(Task task) {
+        update(task);
+    }
+
+    @Override
+    public void taskRemoved(Task task) {
+        lock.lock();
+        try {
+            cancel(task);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void taskUpdated(Task task) {
+        update(task);
+    }
+
+    @Override
+    public void tasksCleared() {
+        lock.lock();
+        try {
+            pending.clear();
+            queue.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void update(Task task) {
+        lock.lock();
+        try {
+            schedule(task);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Replaces any reminder queued for the task with one for its current state. Must be called holding the lock.
+     */
+    private void schedule(Task task) {
+        cancel(task);
+        LocalDateTime time = timeOf(task);
+        if (time == null || task.isDone()) {
+            return;
+        }
+        long now = clock.millis();
+        long due = time.atZone(clock.getZone()).toInstant().toEpochMilli();
+        if (due <= now) {
+            return;
+        }
+        Reminder reminder = new Reminder(task, Math.max(now, due - lead.toMillis()), nextSequence++);
+        pending.put(task.getId(), reminder);
+        queue.add(reminder);
+        if (queue.peek() == reminder) {
+            changed.signal();
+        }
+    }
+
+    /**
+     * Cancels the reminder queued for the task, if any. Must be called holding the lock.
+     */
+    private void cancel(Task task) {
+        Reminder reminder = pending.remove(task.getId());
+        if (reminder == null) {
+            return;
+        }
+        reminder.isCancelled = true;
+        if (queue.size() > 2 * pending.size() + PURGE_SLACK) {
+            queue.removeIf(queued -> queued.isCancelled);
+        }
+    }
+
+    private static LocalDateTime timeOf(Task task) {
+        if (task instanceof Deadline) {
+            return ((Deadline) task).getBy();
+        }
+        if (task instanceof Event) {
+            return ((Event) task).getFrom();
+        }
+        return null;
+    }
+
+    private void runTimer() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                handler.accept(takeDue());
+            }
+        } catch (InterruptedException e) {
+            // Stopped
+        }
+    }
+
+    /**
+     * Waits until the earliest live reminder is due, then removes it from the queue.
+     *
+     * @return the task to remind of.
+     */
+    private Task takeDue() throws InterruptedException {
+        lock.lock();
+        try {
+            while (true) {
+                Reminder head = queue.peek();
+                if (head == null) {
+                    changed.await();
+                } else if (head.isCancelled) {
+                    queue.poll();
+                } else {
+                    long wait = head.fireAt - clock.millis();
+                    if (wait <= 0) {
+                        queue.poll();
+                        pending.remove(head.task.getId(), head);
+                        return head.task;
+                    }
+                    changed.await(wait, TimeUnit.MILLISECONDS);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package patrick.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight Recorder event for running one command, from parsing it to saving its changes.
+ */
+@Name("patrick.Command")
+@Label("Command")
+@Category({"Patrick", "Commands"})
+@Description("A command run against a user's tasks")
+@StackTrace(false)
+public class CommandEvent extends jdk.jfr.Event {
+    /** The command ran and its changes were saved. */
+    public static final String OUTCOME_OK = "ok";
+    /** The command was refused, such as for invalid details, and nothing was changed. */
+    public static final String OUTCOME_REJECTED = "rejected";
+    /** The command failed with an exception, such as an I/O error while replying. */
+    public static final String OUTCOME_FAILED = "failed";
+
+    @Label("Type")
+    @Description("The type of command, such as list or todo")
+    private String type;
+
+    @Label("Input Length")
+    @Description("The number of characters typed, including the command word")
+    private int inputLength;
+
+    @Label("Outcome")
+    @Description("ok, rejected or failed")
+    private String outcome;
+
+    /**
+     * Ends the event and commits it with the given details if it is being recorded. The details are only set
+     * when they will be recorded.
+     *
+     * @param type the type of command.
+     * @param inputLength the number of characters typed.
+     * @param outcome one of the {@code OUTCOME_} constants.
+     */
+    public void finish(String type, int inputLength, String outcome) {
+        end();
+        if (shouldCommit()) {
+            this.type = type;
+            this.inputLength = inputLength;
+            this.outcome = outcome;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package patrick.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for a date or time that matched none of the supported formats.
+ */
+@Name("patrick.DateParseFailed")
+@Label("Date Parse Failed")
+@Category({"Patrick", "Dates"})
+@Description("A date or time that matched none of the supported formats")
+public class DateParseFailedEvent extends jdk.jfr.Event {
+    @Label("Text")
+    @Description("The text that was not a date or time")
+    private String text;
+
+    @Label("Expected")
+    @Description("date or time")
+    private String expected;
+
+    /**
+     * Records that the given text was not a date or time, if the event is being recorded.
+     *
+     * @param text the text that could not be parsed.
+     * @param expected {@code "date"} or {@code "time"}.
+     */
+    public static void emit(String text, String expected) {
+        DateParseFailedEvent event = new DateParseFailedEvent();
+        if (event.isEnabled()) {
+            event.text = text;
+            event.expected = expected;
+            event.commit();
+        }
+    }
+}
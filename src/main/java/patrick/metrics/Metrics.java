@@ -0,0 +1,209 @@
+package patrick.metrics;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import jdk.jfr.FlightRecorder;
+
+/**
+ * Collects how long commands, loads, saves and date parsing take, and how much is written to disk, for the
+ * {@code stats} command and the metrics dump file.
+ * <p>
+ * Histograms and counters are registered once by name, usually in a static field of the class that records
+ * them, and shared by every store and thread. Nothing is recorded unless metrics are turned on with
+ * {@value #ENABLED_PROPERTY}; while they are off, {@link #start()} and {@link #add} only read a flag, so
+ * instrumented code runs at the same speed as before.
+ * <p>
+ * Commands, task file I/O and dates that fail to parse are also emitted as Flight Recorder events, registered here
+ * once so that recordings list them from the start. The events cost next to nothing unless a recording enables
+ * them, whether or not metrics are on.
+ */
+public class Metrics {
+    /** System property that turns on collecting metrics when set to {@code true}. */
+    public static final String ENABLED_PROPERTY = "patrick.metrics";
+    /** System property giving the path {@code stats dump} writes to, {@code ./data/metrics.json} by default. */
+    public static final String DUMP_PROPERTY = "patrick.metrics.dump";
+    private static final String DEFAULT_DUMP_PATH = "./data/metrics.json";
+    private static final long NOT_TIMED = Long.MIN_VALUE;
+    private static final double[] PERCENTILES = {0.5, 0.9, 0.99};
+    private static final Map<String, LatencyHistogram> HISTOGRAMS = new ConcurrentSkipListMap<>();
+    private static final Map<String, LongAdder> COUNTERS = new ConcurrentSkipListMap<>();
+    private static volatile boolean isEnabled = Boolean.getBoolean(ENABLED_PROPERTY);
+
+    static {
+        FlightRecorder.register(CommandEvent.class);
+        FlightRecorder.register(StorageEvent.class);
+        FlightRecorder.register(DateParseFailedEvent.class);
+    }
+
+    public static boolean isEnabled() {
+        return isEnabled;
+    }
+
+    /**
+     * Turns collecting metrics on or off. Metrics already collected are kept.
+     *
+     * @param isEnabled true to collect metrics.
+     */
+    public static void setEnabled(boolean isEnabled) {
+        Metrics.isEnabled = isEnabled;
+    }
+
+    /**
+     * Returns the histogram with the given name, registering it on first use.
+     *
+     * @param name the name of the histogram, such as {@code command.list}.
+     * @return the histogram.
+     */
+    public static LatencyHistogram histogram(String name) {
+        return HISTOGRAMS.computeIfAbsent(name, key -> new LatencyHistogram());
+    }
+
+    /**
+     * Returns the counter with the given name, registering it on first use.
+     *
+     * @param name the name of the counter, such as {@code storage.bytesWritten}.
+     * @return the counter.
+     */
+    public static LongAdder counter(String name) {
+        return COUNTERS.computeIfAbsent(name, key -> new LongAdder());
+    }
+
+    /**
+     * Starts timing something, to be passed to {@link #stop} once it is done.
+     *
+     * @return the current time, or a marker telling {@link #stop} to record nothing if metrics are off.
+     */
+    public static long start() {
+        return isEnabled ? System.nanoTime() : NOT_TIMED;
+    }
+
+    /**
+     * Records the time since {@link #start()} was called in the given histogram.
+     *
+     * @param histogram the histogram to record in.
+     * @param start the value returned by {@link #start()}.
+     */
+    public static void stop(LatencyHistogram histogram, long start) {
+        if (start != NOT_TIMED) {
+            histogram.record(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Adds to a counter if metrics are on.
+     *
+     * @param counter the counter to add to.
+     * @param amount the amount to add.
+     */
+    public static void add(LongAdder counter, long amount) {
+        if (isEnabled) {
+            counter.add(amount);
+        }
+    }
+
+    /**
+     * Forgets every recorded duration and count, keeping the registered names.
+     */
+    public static void reset() {
+        HISTOGRAMS.values().forEach(LatencyHistogram::reset);
+        COUNTERS.values().forEach(LongAdder::reset);
+    }
+
+    /**
+     * Describes the metrics collected so far for the user, followed by the given gauges.
+     *
+     * @param gauges readings taken now, such as index sizes, in the order they are to be shown.
+     * @return the description, one metric per line.
+     */
+    public static String report(Map<String, Long> gauges) {
+        StringBuilder report = new StringBuilder();
+        if (!isEnabled) {
+            report.append("Metrics are off. Start Patrick with -D").append(ENABLED_PROPERTY)
+                    .append("=true to time commands.\n");
+        } else {
+            report.append(String.format("%-22s %7s %9s %9s %9s %9s%n", "Latency (ms)", "count", "p50", "p90",
+                    "p99", "max"));
+            HISTOGRAMS.forEach((name, histogram) -> {
+                if (histogram.getCount() > 0) {
+                    report.append(String.format("%-22s %7d %9.3f %9.3f %9.3f %9.3f%n", name, histogram.getCount(),
+                            millis(histogram.getPercentileNanos(0.5)), millis(histogram.getPercentileNanos(0.9)),
+                            millis(histogram.getPercentileNanos(0.99)), millis(histogram.getMaxNanos())));
+                }
+            });
+            COUNTERS.forEach((name, counter) -> report.append(String.format("%-22s %,d%n", name, counter.sum())));
+        }
+        gauges.forEach((name, value) -> report.append(String.format("%-22s %,d%n", name, value)));
+        return report.toString().stripTrailing();
+    }
+
+    /**
+     * Encodes the metrics collected so far and the given gauges as a JSON object, with durations in nanoseconds.
+     *
+     * @param gauges readings taken now, such as index sizes.
+     * @return the JSON text.
+     */
+    public static String toJson(Map<String, Long> gauges) {
+        StringBuilder json = new StringBuilder("{\n  \"enabled\": ").append(isEnabled).append(",\n");
+        json.append("  \"timestamp\": ").append(System.currentTimeMillis()).append(",\n");
+        json.append("  \"histograms\": {");
+        String separator = "\n";
+        for (Map.Entry<String, LatencyHistogram> entry : HISTOGRAMS.entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            json.append(separator).append("    \"").append(entry.getKey()).append("\": {\"count\": ")
+                    .append(histogram.getCount()).append(", \"totalNanos\": ").append(histogram.getTotalNanos());
+            for (double percentile : PERCENTILES) {
+                json.append(", \"p").append(Math.round(percentile * 100)).append("Nanos\": ")
+                        .append(histogram.getPercentileNanos(percentile));
+            }
+            json.append(", \"maxNanos\": ").append(histogram.getMaxNanos()).append('}');
+            separator = ",\n";
+        }
+        json.append("\n  },\n");
+        appendJson(json, "counters", toSums());
+        json.append(",\n");
+        appendJson(json, "gauges", gauges);
+        return json.append("\n}\n").toString();
+    }
+
+    /**
+     * Writes the metrics collected so far and the given gauges to the dump file as JSON.
+     *
+     * @param gauges readings taken now, such as index sizes.
+     * @return the path written to.
+     * @throws IOException if the file could not be written.
+     */
+    public static Path dump(Map<String, Long> gauges) throws IOException {
+        Path path = Path.of(System.getProperty(DUMP_PROPERTY, DEFAULT_DUMP_PATH));
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        Files.writeString(path, toJson(gauges), StandardCharsets.UTF_8);
+        return path;
+    }
+
+    private static Map<String, Long> toSums() {
+        Map<String, Long> sums = new ConcurrentSkipListMap<>();
+        COUNTERS.forEach((name, counter) -> sums.put(name, counter.sum()));
+        return sums;
+    }
+
+    private static void appendJson(StringBuilder json, String name, Map<String, Long> values) {
+        json.append("  \"").append(name).append("\": {");
+        String separator = "\n";
+        for (Map.Entry<String, Long> entry : values.entrySet()) {
+            json.append(separator).append("    \"").append(entry.getKey()).append("\": ").append(entry.getValue());
+            separator = ",\n";
+        }
+        json.append("\n  }");
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+}
@@ -0,0 +1,54 @@
+package patrick.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight Recorder event for loading a task file or writing to one.
+ */
+@Name("patrick.Storage")
+@Label("Task File I/O")
+@Category({"Patrick", "Storage"})
+@Description("Loading, rewriting or appending to a task file")
+public class StorageEvent extends jdk.jfr.Event {
+    /** Reading the task file, and the journal if there is one, into memory. */
+    public static final String LOAD = "load";
+    /** Writing every task to the task file, replacing what it held. */
+    public static final String WRITE = "writeToFile";
+    /** Adding tasks to the end of the task file. */
+    public static final String APPEND = "appendToFile";
+
+    @Label("Operation")
+    @Description("load, writeToFile or appendToFile")
+    private String operation;
+
+    @Label("Path")
+    private String path;
+
+    @Label("Bytes")
+    @Description("The size of the file loaded or written, or the number of bytes appended")
+    @DataAmount
+    private long bytes;
+
+    @Label("Task Count")
+    @Description("The number of tasks loaded, written or appended")
+    private int taskCount;
+
+    /**
+     * Sets the details of the event, to be called once {@link #shouldCommit()} has said it will be recorded.
+     *
+     * @param operation one of {@link #LOAD}, {@link #WRITE} or {@link #APPEND}.
+     * @param path the path to the task file.
+     * @param bytes the size of the file, or the number of bytes appended.
+     * @param taskCount the number of tasks loaded, written or appended.
+     */
+    public void setDetails(String operation, String path, long bytes, int taskCount) {
+        this.operation = operation;
+        this.path = path;
+        this.bytes = bytes;
+        this.taskCount = taskCount;
+    }
+}
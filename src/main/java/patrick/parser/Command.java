@@ -0,0 +1,35 @@
+package patrick.parser;
+
+/**
+ * Represents a parsed user command: its type, the words after the command word, and the original input.
+ */
+public class Command {
+    private final Parser.Type type;
+    private final String arguments;
+    private final String input;
+
+    /**
+     * Constructs a {@code Command}.
+     *
+     * @param type the type of the command.
+     * @param arguments the input after the command word, trimmed.
+     * @param input the full input the command was parsed from.
+     */
+    public Command(Parser.Type type, String arguments, String input) {
+        this.type = type;
+        this.arguments = arguments;
+        this.input = input;
+    }
+
+    public Parser.Type getType() {
+        return type;
+    }
+
+    public String getArguments() {
+        return arguments;
+    }
+
+    public String getInput() {
+        return input;
+    }
+}
@@ -0,0 +1,36 @@
+package patrick.parser;
+
+import java.io.IOException;
+
+import patrick.storage.Storage;
+
+/**
+ * Executes one type of command and produces the reply shown to the user.
+ */
+@FunctionalInterface
+public interface CommandHandler {
+    /**
+     * Executes the command.
+     *
+     * @param command the parsed command.
+     * @param storage the store holding the tasks the command acts on.
+     * @return the reply to the command.
+     * @throws Parser.PatrickException if the command's details are invalid.
+     */
+    String execute(Command command, Storage storage) throws Parser.PatrickException;
+
+    /**
+     * Executes the command, writing the reply to {@code out}.
+     * <p>
+     * Handlers whose replies can be long override this to write the reply in pieces instead of building it whole.
+     *
+     * @param command the parsed command.
+     * @param storage the store holding the tasks the command acts on.
+     * @param out where the reply is written.
+     * @throws Parser.PatrickException if the command's details are invalid.
+     * @throws IOException if writing to {@code out} fails.
+     */
+    default void stream(Command command, Storage storage, Appendable out) throws Parser.PatrickException, IOException {
+        out.append(execute(command, storage));
+    }
+}
@@ -0,0 +1,22 @@
+package patrick.parser;
+
+import java.io.IOException;
+
+import patrick.storage.Storage;
+import patrick.ui.Ui;
+
+/**
+ * Handles the {@code list} command, showing a page of the tasks picked out by the options given in
+ * {@link ListQuery}.
+ */
+public class ListCommand implements CommandHandler {
+    @Override
+    public String execute(Command command, Storage storage) throws Parser.PatrickException {
+        return Ui.printFileContents(storage, ListQuery.parse(command.getArguments()));
+    }
+
+    @Override
+    public void stream(Command command, Storage storage, Appendable out) throws Parser.PatrickException, IOException {
+        Ui.printFileContents(storage, ListQuery.parse(command.getArguments()), out);
+    }
+}
@@ -0,0 +1,121 @@
+package patrick.parser;
+
+import java.util.function.Predicate;
+
+import patrick.tasklist.Deadline;
+import patrick.tasklist.Event;
+import patrick.tasklist.Task;
+import patrick.tasklist.ToDo;
+
+/**
+ * Represents the options of a {@code list} command: which page to show, how many tasks a page holds, and which
+ * tasks to include.
+ * <p>
+ * Options may be given in any order: a page number, {@code --page-size <n>}, {@code --all} to show every task on
+ * one page, {@code --ids} to show each task's id, {@code done} or {@code undone}, and {@code todo}, {@code deadline}
+ * or {@code event}.
+ */
+public class ListQuery {
+    /** System property giving the number of tasks on a page, 100 by default. */
+    public static final String PAGE_SIZE_PROPERTY = "patrick.list.pageSize";
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final String PAGE_SIZE = "--page-size";
+    private static final String ALL = "--all";
+    private static final String IDS = "--ids";
+
+    private int page = 1;
+    private int pageSize = Integer.getInteger(PAGE_SIZE_PROPERTY, DEFAULT_PAGE_SIZE);
+    private Predicate<Task> status;
+    private Predicate<Task> type;
+    private boolean isShowingIds;
+
+    /**
+     * Parses the options given after the {@code list} command word.
+     *
+     * @param arguments the options, separated by spaces.
+     * @return the parsed options.
+     * @throws Parser.PatrickException if an option is not recognised or a number is invalid.
+     */
+    public static ListQuery parse(String arguments) throws Parser.PatrickException {
+        ListQuery query = new ListQuery();
+        String[] words = arguments.isBlank() ? new String[0] : arguments.strip().split("\\s+");
+        for (int i = 0; i < words.length; i++) {
+            switch (words[i]) {
+            case PAGE_SIZE:
+                if (i + 1 == words.length) {
+                    throw new Parser.PatrickException("Tell me how many tasks to show on a page after " + PAGE_SIZE);
+                }
+                query.pageSize = parsePositive(words[++i]);
+                break;
+            case ALL:
+                query.pageSize = Integer.MAX_VALUE;
+                break;
+            case IDS:
+                query.isShowingIds = true;
+                break;
+            case "done":
+                query.status = Task::isDone;
+                break;
+            case "undone":
+                query.status = task -> !task.isDone();
+                break;
+            case "todo":
+                query.type = task -> task instanceof ToDo;
+                break;
+            case "deadline":
+                query.type = task -> task instanceof Deadline;
+                break;
+            case "event":
+                query.type = task -> task instanceof Event;
+                break;
+            default:
+                query.page = parsePositive(words[i]);
+            }
+        }
+        return query;
+    }
+
+    private static int parsePositive(String word) throws Parser.PatrickException {
+        try {
+            int number = Integer.parseInt(word);
+            if (number > 0) {
+                return number;
+            }
+        } catch (NumberFormatException e) {
+            // Reported below along with numbers that are not positive
+        }
+        throw new Parser.PatrickException("I don't understand '" + word + "'. Try something like 'list 2', "
+                + "'list --page-size 50', 'list --all', 'list --ids', 'list undone' or 'list deadline'.");
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public boolean isShowingIds() {
+        return isShowingIds;
+    }
+
+    /**
+     * Returns whether only some of the tasks are to be listed.
+     *
+     * @return true if a status or type filter was given.
+     */
+    public boolean isFiltered() {
+        return status != null || type != null;
+    }
+
+    /**
+     * Checks whether a task passes the status and type filters.
+     *
+     * @param task the task to check.
+     * @return true if the task should be listed.
+     */
+    public boolean matches(Task task) {
+        return (status == null || status.test(task)) && (type == null || type.test(task));
+    }
+}
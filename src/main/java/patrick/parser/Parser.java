@@ -1,5 +1,13 @@
 package patrick.parser;
 
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+import patrick.metrics.CommandEvent;
+import patrick.metrics.LatencyHistogram;
+import patrick.metrics.Metrics;
 import patrick.storage.Storage;
 import patrick.tasklist.Deadline;
 import patrick.tasklist.Event;
@@ -11,161 +19,156 @@ import patrick.ui.Ui;
 /**
  * Parses user input and determining the appropriate action based on the command. It uses the {@code Type} enum
  * to classify different types of commands and executes the corresponding tasks.
+ * <p>
+ * The first word of the input is looked up in a table of command words, and the command is passed to the
+ * {@link CommandHandler} registered for its type together with the {@link Storage} holding the user's tasks.
+ * The tables are filled once when the class is loaded, so a {@code Parser} holds no state and can be shared freely,
+ * including across threads and between users with different stores. When metrics are on, the time taken by each
+ * command, including saving its changes, is recorded by type for the {@code stats} command.
  */
 public class Parser {
-    private Type inputType;
+    private static final String MESSAGE_BYE = "BYE";
+    private static final String MESSAGE_UNKNOWN = "Watch your words SpongeBob!\nNOW TELL ME WHAT DO YOU WANT!";
+    private static final Map<String, Type> COMMAND_WORDS = new HashMap<>();
+    private static final Map<Type, CommandHandler> HANDLERS = new EnumMap<>(Type.class);
+    private static final Map<Type, LatencyHistogram> LATENCIES = new EnumMap<>(Type.class);
 
     /**
-     * Represents the different types of commands that can be parsed.
+     * Represents the different types of commands that can be parsed, each with the word that starts it.
      */
     public enum Type {
-        LIST, BYE, MARK, UNMARK, TODO, DEADLINE, EVENT, DELETE, ERROR, FORMATS, FIND
+        LIST("list"), BYE("bye"), MARK("mark"), UNMARK("unmark"), TODO("todo"), DEADLINE("deadline"),
+        EVENT("event"), DELETE("delete"), ERROR(""), FORMATS("formats"), FIND("find"), DUE("due"),
+        BETWEEN("between"), OVERLAPPING("overlapping"), STATS("stats");
+
+        private final String word;
+
+        Type(String word) {
+            this.word = word;
+        }
+
+        public String getWord() {
+            return word;
+        }
+    }
+
+    static {
+        for (Type type : Type.values()) {
+            if (type != Type.ERROR) {
+                COMMAND_WORDS.put(type.getWord(), type);
+            }
+            LATENCIES.put(type, Metrics.histogram("command." + type.name().toLowerCase()));
+        }
+        HANDLERS.put(Type.LIST, new ListCommand());
+        HANDLERS.put(Type.BYE, (command, storage) -> MESSAGE_BYE);
+        HANDLERS.put(Type.MARK, (command, storage) -> TaskList.mark(storage, command.getInput()));
+        HANDLERS.put(Type.UNMARK, (command, storage) -> TaskList.unmark(storage, command.getInput()));
+        HANDLERS.put(Type.TODO, (command, storage) -> ToDo.toDoTask(storage, command.getInput()));
+        HANDLERS.put(Type.DEADLINE, (command, storage) -> Deadline.deadlineTask(storage, command.getInput()));
+        HANDLERS.put(Type.EVENT, (command, storage) -> Event.eventTask(storage, command.getInput()));
+        HANDLERS.put(Type.DELETE, (command, storage) -> TaskList.delete(storage, command.getInput()));
+        HANDLERS.put(Type.FORMATS, (command, storage) -> Ui.formats());
+        HANDLERS.put(Type.FIND, (command, storage) -> TaskList.findTask(storage, command.getInput()));
+        HANDLERS.put(Type.DUE, (command, storage) -> TaskList.due(storage, command.getArguments()));
+        HANDLERS.put(Type.BETWEEN, (command, storage) -> TaskList.between(storage, command.getArguments()));
+        HANDLERS.put(Type.OVERLAPPING, (command, storage) -> TaskList.overlapping(storage, command.getArguments()));
+        HANDLERS.put(Type.STATS, new StatsCommand());
+        HANDLERS.put(Type.ERROR, (command, storage) -> MESSAGE_UNKNOWN);
     }
 
     /**
      * Parses the user's input to determine the type of task and executes the appropriate action.
      *
      * @param userInput the input provided by the user.
+     * @param storage the store holding the user's tasks.
      * @return the response message based on the executed command.
      */
-    public String parseTask(String userInput) {
+    public String parseTask(String userInput, Storage storage) {
         assert userInput != null : "User Input cannot be null";
-        checkType(userInput);
+        long start = Metrics.start();
+        CommandEvent event = new CommandEvent();
+        event.begin();
+        Command command = parse(userInput);
         String response;
-
-        switch (inputType) {
-        case LIST:
-            response = Ui.printFileContents();
-            break;
-
-        case BYE:
-            response = "BYE";
-            break;
-
-        case MARK:
-            try {
-                response = TaskList.mark(userInput);
-                break;
-            } catch (PatrickException e) {
-                response = e.getMessage();
-                break;
-            }
-
-        case UNMARK:
-            try {
-                response = TaskList.unmark(userInput);
-                break;
-            } catch (PatrickException e) {
-                response = e.getMessage();
-                break;
-            }
-
-        case TODO:
-            try {
-                response = ToDo.toDoTask(userInput);
-                break;
-            } catch (PatrickException e) {
-                response = e.getMessage();
-                break;
-            }
-
-        case DEADLINE:
-            try {
-                response = Deadline.deadlineTask(userInput);
-                break;
-            } catch (PatrickException e) {
-                response = e.getMessage();
-                break;
-            }
-
-        case EVENT:
-            try {
-                response = Event.eventTask(userInput);
-                break;
-            } catch (PatrickException e) {
-                response = e.getMessage();
-                break;
-            }
-
-        case DELETE:
-            try {
-                response = TaskList.delete(userInput);
-                break;
-            } catch (PatrickException e) {
-                response = e.getMessage();
-                break;
-            }
-
-        case FORMATS:
-            response = Ui.formats();
-            break;
-
-        case FIND:
-            try {
-                response = TaskList.findTask(userInput);
-                break;
-            } catch (PatrickException e) {
-                response = e.getMessage();
-                break;
-            }
-
-        default:
-            response = "Watch your words SpongeBob!\nNOW TELL ME WHAT DO YOU WANT!";
-            break;
+        String outcome = CommandEvent.OUTCOME_FAILED;
+        try {
+            response = HANDLERS.get(command.getType()).execute(command, storage);
+            outcome = CommandEvent.OUTCOME_OK;
+        } catch (PatrickException e) {
+            response = e.getMessage();
+            outcome = CommandEvent.OUTCOME_REJECTED;
+        } finally {
+            finish(command, userInput, outcome, start, event);
         }
         assert response != null : "Response cannot be null";
         return response;
     }
 
     /**
-     * Determines the type of command based on the user's input and sets the {@code inputType} accordingly.
+     * Parses the user's input and executes the appropriate action, writing the response to {@code out}.
+     * <p>
+     * Long responses, such as a large {@code list}, are written in pieces rather than built up in memory first.
+     *
+     * @param userInput the input provided by the user.
+     * @param storage the store holding the user's tasks.
+     * @param out where the response is written.
+     * @throws IOException if writing to {@code out} fails.
+     */
+    public void parseTask(String userInput, Storage storage, Appendable out) throws IOException {
+        assert userInput != null : "User Input cannot be null";
+        long start = Metrics.start();
+        CommandEvent event = new CommandEvent();
+        event.begin();
+        Command command = parse(userInput);
+        String outcome = CommandEvent.OUTCOME_FAILED;
+        try {
+            HANDLERS.get(command.getType()).stream(command, storage, out);
+            outcome = CommandEvent.OUTCOME_OK;
+        } catch (PatrickException e) {
+            outcome = CommandEvent.OUTCOME_REJECTED;
+            out.append(e.getMessage());
+        } finally {
+            finish(command, userInput, outcome, start, event);
+        }
+    }
+
+    /**
+     * Records how long a command took in its histogram and in its Flight Recorder event.
+     */
+    private static void finish(Command command, String userInput, String outcome, long start, CommandEvent event) {
+        Metrics.stop(LATENCIES.get(command.getType()), start);
+        event.finish(command.getType().getWord().isEmpty() ? "unknown" : command.getType().getWord(),
+                userInput.length(), outcome);
+    }
+
+    /**
+     * Splits off the first word of the user's input and determines the type of command it names.
      *
      * @param input the input provided by the user.
+     * @return the parsed command, of type {@code ERROR} if the first word is not a command word.
      */
-    public void checkType(String input) {
+    public static Command parse(String input) {
         assert input != null : "input cannot be null";
-
-        if (input.startsWith("list")) {
-            inputType = Type.LIST;
-        } else if (input.startsWith("bye")) {
-            inputType = Type.BYE;
-        } else if (input.startsWith("mark")) {
-            inputType = Type.MARK;
-        } else if (input.startsWith("unmark")) {
-            inputType = Type.UNMARK;
-        } else if (input.startsWith("todo")) {
-            inputType = Type.TODO;
-        } else if (input.startsWith("deadline")) {
-            inputType = Type.DEADLINE;
-        } else if (input.startsWith("event")) {
-            inputType = Type.EVENT;
-        } else if (input.startsWith("delete")) {
-            inputType = Type.DELETE;
-        } else if (input.startsWith("formats")) {
-            inputType = Type.FORMATS;
-        } else if (input.startsWith("find")) {
-            inputType = Type.FIND;
-        } else {
-            inputType = Type.ERROR;
+        String trimmed = input.strip();
+        int end = 0;
+        while (end < trimmed.length() && !Character.isWhitespace(trimmed.charAt(end))) {
+            end++;
         }
+        Type type = COMMAND_WORDS.getOrDefault(trimmed.substring(0, end), Type.ERROR);
+        return new Command(type, trimmed.substring(end).strip(), input);
     }
 
     /**
      * Checks if a given task already exists in the task list.
      * <p>
-     * This method iterates over the existing tasks in the storage and compares each with the provided task
-     * based on their string representations.
+     * The lookup goes through the key index maintained by {@code Storage}, so it does not scan the list.
      *
+     * @param storage the store holding the task list.
      * @param task The task to be checked for duplication.
      * @return true if the task is a duplicate (i.e., an identical task exists in the list), false otherwise.
      */
-    public static boolean isDuplicate(Task task) {
-        for (int i = 0; i < Storage.getList().size(); i++) {
-            if (Storage.getList().get(i).toString().equals(task.toString())) {
-                return true;
-            }
-        }
-        return false;
+    public static boolean isDuplicate(Storage storage, Task task) {
+        return storage.containsTask(task);
     }
 
     /**
@@ -0,0 +1,35 @@
+package patrick.parser;
+
+import java.io.IOException;
+import java.util.Map;
+
+import patrick.metrics.Metrics;
+import patrick.storage.Storage;
+import patrick.ui.Ui;
+
+/**
+ * Handles the {@code stats} command, showing how long each type of command has taken and how much has been
+ * written to disk, along with readings of the user's tasks and indexes. {@code stats dump} writes the same to the
+ * metrics dump file as JSON, and {@code stats reset} forgets the durations and counts collected so far.
+ */
+public class StatsCommand implements CommandHandler {
+    @Override
+    public String execute(Command command, Storage storage) throws Parser.PatrickException {
+        Map<String, Long> gauges = storage.getStats();
+        switch (command.getArguments()) {
+        case "":
+            return Metrics.report(gauges);
+        case "dump":
+            try {
+                return "Metrics written to " + Metrics.dump(gauges);
+            } catch (IOException e) {
+                return Ui.showErrorMsg(Ui.THERE_IS_AN_ERROR + e.getMessage());
+            }
+        case "reset":
+            Metrics.reset();
+            return "Metrics reset.";
+        default:
+            throw new Parser.PatrickException("Type 'stats', 'stats dump' or 'stats reset'.");
+        }
+    }
+}
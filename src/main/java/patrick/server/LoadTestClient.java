@@ -0,0 +1,135 @@
+package patrick.server;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Drives a running {@link PatrickServer} with many simulated users and reports throughput and latency.
+ * <p>
+ * Each user sends its commands one after another, as a person would, while all users run at once. Requests are
+ * sent asynchronously, so thousands of users need only a few client threads.
+ */
+public class LoadTestClient {
+    private final HttpClient client;
+    private final String baseUrl;
+    private final int commandsPerUser;
+    private final long[] latencies;
+    private final AtomicInteger sent = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private volatile String firstFailure;
+
+    /**
+     * Constructs a {@code LoadTestClient}.
+     *
+     * @param baseUrl the address of the server, such as {@code http://localhost:8080}.
+     * @param users the number of simulated users.
+     * @param commandsPerUser the number of commands each user sends.
+     * @param executor the executor that runs response handlers.
+     */
+    public LoadTestClient(String baseUrl, int users, int commandsPerUser, ExecutorService executor) {
+        this.client = HttpClient.newBuilder().executor(executor).build();
+        this.baseUrl = baseUrl;
+        this.commandsPerUser = commandsPerUser;
+        this.latencies = new long[users * commandsPerUser];
+    }
+
+    /**
+     * Runs a load test, taking the server address, the number of users and the number of commands per user as
+     * arguments, {@code http://localhost:8080}, 1000 and 50 by default.
+     *
+     * @param args command-line arguments, optionally the server address, users and commands per user.
+     */
+    public static void main(String[] args) {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        int users = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+        int commandsPerUser = args.length > 2 ? Integer.parseInt(args[2]) : 50;
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            System.out.println(new LoadTestClient(baseUrl, users, commandsPerUser, executor).run());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Sends every user's commands and waits for all replies.
+     *
+     * @return a summary of the run.
+     */
+    public String run() {
+        long runId = System.currentTimeMillis();
+        int users = latencies.length / commandsPerUser;
+        long start = System.nanoTime();
+        CompletableFuture<?>[] sessions = new CompletableFuture<?>[users];
+        for (int i = 0; i < users; i++) {
+            sessions[i] = runUser("load" + runId + "-" + i, 0);
+        }
+        CompletableFuture.allOf(sessions).join();
+        long elapsed = System.nanoTime() - start;
+
+        int count = sent.get();
+        long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+        return String.format("%d users, %d requests, %d failed in %.2f s (%.0f requests/s)%n"
+                        + "latency p50 %.2f ms, p99 %.2f ms, max %.2f ms%s",
+                users, count, failed.get(), elapsed / 1e9, count / (elapsed / 1e9),
+                percentile(sorted, 0.50), percentile(sorted, 0.99), percentile(sorted, 1.0),
+                firstFailure == null ? "" : "\nfirst failure: " + firstFailure);
+    }
+
+    private CompletableFuture<Void> runUser(String user, int step) {
+        if (step == commandsPerUser) {
+            return CompletableFuture.completedFuture(null);
+        }
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + PatrickServer.COMMAND_PATH + "?user=" + user))
+                .POST(HttpRequest.BodyPublishers.ofString(commandFor(step)))
+                .build();
+        long start = System.nanoTime();
+        return client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .handle((response, error) -> {
+                    latencies[sent.getAndIncrement()] = System.nanoTime() - start;
+                    if (error != null || response.statusCode() != 200) {
+                        failed.incrementAndGet();
+                        if (firstFailure == null) {
+                            firstFailure = error != null ? error.toString() : "HTTP " + response.statusCode();
+                        }
+                    }
+                    return null;
+                })
+                .thenCompose(ignored -> runUser(user, step + 1));
+    }
+
+    /**
+     * Returns the command a user sends at the given step: mostly adding tasks, with searches, listings and
+     * status changes mixed in.
+     */
+    private static String commandFor(int step) {
+        switch (step % 10) {
+        case 3:
+            return "find report";
+        case 5:
+            return "mark " + (step / 2);
+        case 7:
+            return "list";
+        case 9:
+            return "deadline submit report " + step + " /by 2024-09-20 2359";
+        default:
+            return "todo write report " + step;
+        }
+    }
+
+    private static double percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(fraction * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
@@ -0,0 +1,400 @@
+package patrick.server;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.regex.Pattern;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import patrick.parser.Parser;
+import patrick.storage.Journal;
+import patrick.storage.Storage;
+import patrick.ui.Ui;
+
+/**
+ * Serves Patrick over HTTP without a window, keeping a separate task file for every user.
+ * <p>
+ * A command is sent as the body of {@code POST /command?user=<name>} and the reply is returned as plain text.
+ * Each user's tasks are kept in {@code <name>.txt} in the data directory, loaded on the user's first command and
+ * kept in memory while the user keeps sending commands. A task file is loaded without holding back the requests
+ * of other users. All users share one stateless {@link Parser}, and each {@link Storage} is safe to use from
+ * several requests at once. Requests run on virtual threads when the JVM supports them, and on a fixed pool of
+ * platform threads otherwise.
+ * <p>
+ * The tasks of a user who has sent no command for {@value #IDLE_MINUTES_PROPERTY} minutes are saved and dropped
+ * from memory, to be loaded again on the user's next command. At most {@value #MAX_USERS_PROPERTY} users are kept
+ * in memory at once; a new user beyond that takes the place of the user idle the longest, and is only refused,
+ * with status 503, while every user kept has a command running.
+ */
+public class PatrickServer {
+    /** Path that commands are posted to. */
+    public static final String COMMAND_PATH = "/command";
+    /** System property giving the number of users whose tasks are kept in memory, 10000 by default. */
+    public static final String MAX_USERS_PROPERTY = "patrick.server.maxUsers";
+    private static final int DEFAULT_MAX_USERS = 10_000;
+    /** System property giving the minutes without a command after which a user's tasks are dropped, 30 by default. */
+    public static final String IDLE_MINUTES_PROPERTY = "patrick.server.idleMinutes";
+    private static final long DEFAULT_IDLE_MINUTES = 30;
+    private static final int DEFAULT_PORT = 8080;
+    /** Connections allowed to wait for acceptance, enough for many users connecting at once. */
+    private static final int BACKLOG = 4096;
+    private static final String DEFAULT_DATA_DIR = "./data/users";
+    private static final Pattern USER_NAME = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+    private static final String MESSAGE_BYE = "BYE";
+    private static final String MESSAGE_INTERNAL_ERROR = "Patrick could not run the command";
+    private static final Logger LOGGER = Logger.getLogger(PatrickServer.class.getName());
+    private static final Parser PARSER = new Parser();
+
+    private final Path dataDir;
+    private final Map<String, UserStore> stores = new ConcurrentHashMap<>();
+    private final AtomicInteger userCount = new AtomicInteger();
+    private final int maxUsers;
+    private final Duration idleTimeout;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final ScheduledExecutorService evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "patrick-evictor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Constructs a {@code PatrickServer} bound to the given port, keeping users in memory as set by
+     * {@value #MAX_USERS_PROPERTY} and {@value #IDLE_MINUTES_PROPERTY}, without starting it.
+     *
+     * @param port the port to listen on, or 0 to pick a free port.
+     * @param dataDir the directory holding one task file per user.
+     * @throws IOException if the port cannot be bound.
+     */
+    public PatrickServer(int port, Path dataDir) throws IOException {
+        this(port, dataDir, Integer.getInteger(MAX_USERS_PROPERTY, DEFAULT_MAX_USERS),
+                Duration.ofMinutes(Long.getLong(IDLE_MINUTES_PROPERTY, DEFAULT_IDLE_MINUTES)));
+    }
+
+    /**
+     * Constructs a {@code PatrickServer} bound to the given port, without starting it.
+     *
+     * @param port the port to listen on, or 0 to pick a free port.
+     * @param dataDir the directory holding one task file per user.
+     * @param maxUsers the number of users whose tasks are kept in memory at once.
+     * @param idleTimeout the time without a command after which a user's tasks are dropped from memory.
+     * @throws IOException if the port cannot be bound.
+     */
+    public PatrickServer(int port, Path dataDir, int maxUsers, Duration idleTimeout) throws IOException {
+        this.dataDir = dataDir;
+        this.maxUsers = maxUsers;
+        this.idleTimeout = idleTimeout;
+        this.server = HttpServer.create(new InetSocketAddress(port), BACKLOG);
+        this.executor = newExecutor();
+        server.createContext(COMMAND_PATH, this::handle);
+        server.setExecutor(executor);
+    }
+
+    /**
+     * Starts the server with the port and data directory given as arguments, 8080 and {@code ./data/users} by
+     * default.
+     *
+     * @param args command-line arguments, optionally the port and the data directory.
+     * @throws IOException if the port cannot be bound.
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        Path dataDir = Paths.get(args.length > 1 ? args[1] : DEFAULT_DATA_DIR);
+        PatrickServer server = new PatrickServer(port, dataDir);
+        server.start();
+        System.out.println("Patrick is listening on port " + server.getPort() + ", storing tasks in " + dataDir);
+    }
+
+    /**
+     * Starts accepting requests, and checking for idle users as often as the idle timeout.
+     */
+    public void start() {
+        server.start();
+        long period = Math.max(1, idleTimeout.toMillis());
+        evictor.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops accepting requests, waits up to a second for requests in progress to finish and saves and closes the
+     * tasks of every user.
+     */
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+        evictor.shutdown();
+        for (Map.Entry<String, UserStore> entry : stores.entrySet()) {
+            evict(entry.getKey(), entry.getValue(), 0);
+        }
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Returns the number of users whose tasks are in memory.
+     *
+     * @return the number of users kept.
+     */
+    public int getLoadedUserCount() {
+        return stores.size();
+    }
+
+    /**
+     * Runs a command for a user and returns the reply, loading the user's task file if needed.
+     *
+     * @param user the name of the user.
+     * @param input the command.
+     * @return the reply to the command.
+     * @throws TooManyUsersException if the user is not in memory and every user kept has a command running.
+     * @throws Storage.StorageOperationException if the user's task file cannot be loaded.
+     */
+    public String execute(String user, String input) throws Storage.StorageOperationException {
+        while (true) {
+            UserStore store = storeFor(user);
+            Storage storage = store.acquire();
+            if (storage == null) {
+                // Evicted since it was looked up; drop it if the evictor has not yet, and look again
+                remove(user, store);
+                continue;
+            }
+            try {
+                String response = PARSER.parseTask(input, storage);
+                return response.equals(MESSAGE_BYE) ? Ui.showExitMsg() : response;
+            } finally {
+                store.release();
+            }
+        }
+    }
+
+    private UserStore storeFor(String user) throws TooManyUsersException {
+        UserStore store = stores.get(user);
+        if (store != null) {
+            return store;
+        }
+        for (int attempt = 0; attempt < 2; attempt++) {
+            // Only creates the holder, so the map is not locked while the task file is read
+            store = stores.computeIfAbsent(user, key -> userCount.incrementAndGet() <= maxUsers
+                    ? new UserStore(key) : null);
+            if (store != null) {
+                return store;
+            }
+            userCount.decrementAndGet();
+            evictLeastRecentlyUsed();
+        }
+        throw new TooManyUsersException(maxUsers);
+    }
+
+    /**
+     * Drops the users who have sent no command for the idle timeout.
+     */
+    private void evictIdle() {
+        for (Map.Entry<String, UserStore> entry : stores.entrySet()) {
+            evict(entry.getKey(), entry.getValue(), idleTimeout.toNanos());
+        }
+    }
+
+    /**
+     * Drops the user who has gone the longest without a command, among those with no command running.
+     */
+    private void evictLeastRecentlyUsed() {
+        Map.Entry<String, UserStore> oldest = null;
+        for (Map.Entry<String, UserStore> entry : stores.entrySet()) {
+            UserStore store = entry.getValue();
+            if (!store.isRunning() && (oldest == null || store.getLastUsed() - oldest.getValue().getLastUsed() < 0)) {
+                oldest = entry;
+            }
+        }
+        if (oldest != null) {
+            evict(oldest.getKey(), oldest.getValue(), 0);
+        }
+    }
+
+    /**
+     * Saves and closes a user's tasks and drops them from memory, if no command is running on them and none has
+     * finished for the given time.
+     */
+    private void evict(String user, UserStore store, long idleNanos) {
+        // Closed before it is removed, so that a new holder for the user cannot read the file while it is saved
+        if (store.closeIfIdle(idleNanos)) {
+            remove(user, store);
+        }
+    }
+
+    private void remove(String user, UserStore store) {
+        if (stores.remove(user, store)) {
+            userCount.decrementAndGet();
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!exchange.getRequestMethod().equals("POST")) {
+                send(exchange, 405, "Commands must be sent with POST");
+                return;
+            }
+            String user = getUser(exchange.getRequestURI().getRawQuery());
+            if (user == null) {
+                send(exchange, 400, "A user name of letters, digits, '-' and '_' must be given as ?user=<name>");
+                return;
+            }
+            String input;
+            try (InputStream body = exchange.getRequestBody()) {
+                input = new String(body.readAllBytes(), StandardCharsets.UTF_8);
+            }
+            try {
+                send(exchange, 200, execute(user, input));
+            } catch (TooManyUsersException e) {
+                send(exchange, 503, Ui.THERE_IS_AN_ERROR + e.getMessage());
+            } catch (Storage.StorageOperationException e) {
+                send(exchange, 500, Ui.THERE_IS_AN_ERROR + e.getMessage());
+            } catch (RuntimeException e) {
+                // A bug in a command must not close the connection without a reply, nor show its details to users
+                LOGGER.log(Level.SEVERE, "Command failed for user " + user, e);
+                send(exchange, 500, Ui.THERE_IS_AN_ERROR + MESSAGE_INTERNAL_ERROR);
+            }
+        }
+    }
+
+    private static String getUser(String query) {
+        if (query == null) {
+            return null;
+        }
+        for (String parameter : query.split("&")) {
+            if (parameter.startsWith("user=")) {
+                String user = parameter.substring("user=".length());
+                return USER_NAME.matcher(user).matches() ? user : null;
+            }
+        }
+        return null;
+    }
+
+    private static void send(HttpExchange exchange, int status, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Creates an executor running each request on its own virtual thread if the JVM has them (Java 21 and later),
+     * or a fixed pool of platform threads otherwise. Requests only hold a thread while a command runs, not while
+     * the connection is idle, so a small pool serves many users.
+     */
+    private static ExecutorService newExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newFixedThreadPool(Math.max(4, Runtime.getRuntime().availableProcessors() * 2));
+        }
+    }
+
+    /**
+     * Holds the tasks of one user, loading them on first use and counting the commands running on them, so that
+     * they are only closed while unused. Requests of the same user wait for the load, while requests of other users
+     * go ahead. A load that fails is tried again on the user's next command.
+     */
+    private class UserStore {
+        private final String user;
+        private Storage storage;
+        /** Number of commands running on the tasks, only changed while holding this holder's lock. */
+        private volatile int running;
+        private boolean isClosed;
+        private volatile long lastUsed = System.nanoTime();
+
+        UserStore(String user) {
+            this.user = user;
+        }
+
+        /**
+         * Returns the tasks, loading them if needed, counting a command as running on them until
+         * {@link #release()}.
+         *
+         * @return the tasks, or null if they were closed and a new holder must be used.
+         */
+        synchronized Storage acquire() throws Storage.StorageOperationException {
+            if (isClosed) {
+                return null;
+            }
+            if (storage == null) {
+                Storage loaded = new Storage(dataDir.resolve(user + ".txt").toString(),
+                        Boolean.getBoolean(Journal.ENABLED_PROPERTY));
+                loaded.load();
+                storage = loaded;
+            }
+            running++;
+            return storage;
+        }
+
+        synchronized void release() {
+            running--;
+            lastUsed = System.nanoTime();
+        }
+
+        long getLastUsed() {
+            return lastUsed;
+        }
+
+        boolean isRunning() {
+            return running > 0;
+        }
+
+        /**
+         * Closes the tasks if no command is running on them and none has finished for the given time.
+         *
+         * @return true if the holder is closed.
+         */
+        synchronized boolean closeIfIdle(long idleNanos) {
+            if (isClosed) {
+                return true;
+            }
+            if (running > 0 || System.nanoTime() - lastUsed < idleNanos) {
+                return false;
+            }
+            isClosed = true;
+            if (storage != null) {
+                try {
+                    storage.close();
+                } catch (IOException e) {
+                    LOGGER.log(Level.WARNING, "Could not save the tasks of user " + user, e);
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Signals that a new user cannot be served because as many users as allowed are kept and all have a command
+     * running.
+     */
+    public static class TooManyUsersException extends Storage.StorageOperationException {
+        /**
+         * Constructs a new {@code TooManyUsersException} naming the number of users allowed.
+         *
+         * @param maxUsers the number of users allowed.
+         */
+        public TooManyUsersException(int maxUsers) {
+            super("Patrick is busy with commands from " + maxUsers + " users, please try again later");
+        }
+    }
+}
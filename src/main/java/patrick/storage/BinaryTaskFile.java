@@ -0,0 +1,207 @@
+package patrick.storage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+import patrick.storage.Storage.IllegalValueException;
+import patrick.tasklist.Deadline;
+import patrick.tasklist.Event;
+import patrick.tasklist.Task;
+import patrick.tasklist.ToDo;
+
+/**
+ * Reads and writes tasks in a compact binary format, used for task files ending in {@value #EXTENSION}.
+ * <p>
+ * The file starts with the magic bytes {@code PTSK} and a format version, followed by one record per task until
+ * the end of the file: the task's id, a type tag ({@code T}, {@code D} or {@code E}), a done flag, the length of the
+ * description in bytes and the UTF-8 description itself. Deadlines then hold their due time and events their start
+ * time, both as epoch seconds, and events finally hold their end time as a second of the day.
+ * <p>
+ * Version 1 files have no ids in their records; their tasks are numbered in file order when read, and tasks
+ * appended to them are written without ids until the file is next rewritten.
+ */
+public class BinaryTaskFile {
+    /** File extension that selects the binary format. */
+    public static final String EXTENSION = ".bin";
+    private static final int MAGIC = 0x5054534B;
+    private static final byte VERSION = 2;
+    private static final byte VERSION_WITHOUT_IDS = 1;
+    private static final int HEADER_BYTES = 5;
+    private static final byte TODO = 'T';
+    private static final byte DEADLINE = 'D';
+    private static final byte EVENT = 'E';
+
+    /**
+     * Checks whether the given task file is stored in the binary format.
+     *
+     * @param filePath the path to the task file.
+     * @return true if the file name ends in {@value #EXTENSION}.
+     */
+    public static boolean isBinary(String filePath) {
+        return filePath.endsWith(EXTENSION);
+    }
+
+    /**
+     * Reads every task from a binary task file. An empty file holds no tasks.
+     *
+     * @param path the path to the file.
+     * @return the tasks in file order.
+     * @throws IOException if an I/O error occurs.
+     * @throws IllegalValueException if the file is not a valid binary task file.
+     */
+    public static List<Task> read(Path path) throws IOException, IllegalValueException {
+        List<Task> tasks = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() == 0) {
+                return tasks;
+            }
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            try {
+                if (buffer.getInt() != MAGIC) {
+                    throw new IllegalValueException("Invalid File");
+                }
+                byte version = buffer.get();
+                if (version != VERSION && version != VERSION_WITHOUT_IDS) {
+                    throw new IllegalValueException("Invalid File");
+                }
+                byte[] scratch = new byte[64];
+                while (buffer.hasRemaining()) {
+                    int id = version == VERSION ? buffer.getInt() : tasks.size() + 1;
+                    Task task = readTask(buffer, scratch);
+                    task.setId(id);
+                    tasks.add(task);
+                }
+            } catch (BufferUnderflowException | DateTimeException e) {
+                // A truncated record or a time out of range, such as a second of the day past midnight
+                throw new IllegalValueException("Invalid File");
+            }
+        }
+        return tasks;
+    }
+
+    private static Task readTask(ByteBuffer buffer, byte[] scratch) throws IllegalValueException {
+        byte type = buffer.get();
+        boolean isDone = buffer.get() != 0;
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+            // Checked before allocating, so a corrupt length cannot ask for a huge array
+            throw new IllegalValueException("Invalid File");
+        }
+        byte[] bytes = length <= scratch.length ? scratch : new byte[length];
+        buffer.get(bytes, 0, length);
+        String description = new String(bytes, 0, length, StandardCharsets.UTF_8);
+
+        Task task;
+        if (type == TODO) {
+            task = new ToDo(description);
+        } else if (type == DEADLINE) {
+            task = new Deadline(description, toDateTime(buffer.getLong()));
+        } else if (type == EVENT) {
+            LocalDateTime from = toDateTime(buffer.getLong());
+            task = new Event(description, from, LocalTime.ofSecondOfDay(buffer.getInt()));
+        } else {
+            throw new IllegalValueException("Invalid File");
+        }
+        if (isDone) {
+            task.markAsDone();
+        }
+        return task;
+    }
+
+    /**
+     * Encodes the given tasks as a complete binary task file.
+     *
+     * @param tasks the tasks to encode.
+     * @return the contents of the file.
+     */
+    public static byte[] encode(List<Task> tasks) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(HEADER_BYTES + tasks.size() * 32);
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            writeHeader(out);
+            for (Task task : tasks) {
+                out.writeInt(task.getId());
+                writeTask(out, task);
+            }
+        } catch (IOException e) {
+            throw new AssertionError("Writing to memory cannot fail", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Appends a single task to a binary task file, writing the header first if the file is empty. The task is
+     * written in the format version of the file it is appended to.
+     *
+     * @param path the path to the file.
+     * @param task the task to append.
+     * @throws IOException if an I/O error occurs.
+     */
+    public static void append(Path path, Task task) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            byte version = VERSION;
+            if (channel.size() == 0) {
+                writeHeader(out);
+            } else {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+                channel.read(header, 0);
+                version = header.get(HEADER_BYTES - 1);
+            }
+            if (version == VERSION) {
+                out.writeInt(task.getId());
+            }
+            writeTask(out, task);
+            ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+            long position = channel.size();
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+        }
+    }
+
+    private static void writeHeader(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+    }
+
+    private static void writeTask(DataOutputStream out, Task task) throws IOException {
+        byte[] description = task.getDescription().getBytes(StandardCharsets.UTF_8);
+        if (task instanceof Deadline) {
+            out.writeByte(DEADLINE);
+        } else if (task instanceof Event) {
+            out.writeByte(EVENT);
+        } else {
+            out.writeByte(TODO);
+        }
+        out.writeBoolean(task.isDone());
+        out.writeInt(description.length);
+        out.write(description);
+        if (task instanceof Deadline) {
+            out.writeLong(((Deadline) task).getBy().toEpochSecond(ZoneOffset.UTC));
+        } else if (task instanceof Event) {
+            Event event = (Event) task;
+            out.writeLong(event.getFrom().toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(event.getTo().toSecondOfDay());
+        }
+    }
+
+    private static LocalDateTime toDateTime(long epochSecond) {
+        return LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,117 @@
+package patrick.storage;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Holds task ids in ascending order in a growable {@code int} array, optionally with a {@code long} value for each
+ * id, so that an index can refer to tasks by id instead of holding the tasks.
+ * <p>
+ * Tasks are added in id order when an index is built or a task is added, so adding usually appends. Removing an id
+ * shifts the ids after it; {@link #removeAll(BitSet)} removes many in a single pass.
+ */
+final class IdList {
+    private static final int INITIAL_CAPACITY = 2;
+    private int[] ids = new int[INITIAL_CAPACITY];
+    private long[] values;
+    private int size;
+
+    /**
+     * Constructs an empty {@code IdList}.
+     *
+     * @param hasValues true if a value is kept with each id.
+     */
+    IdList(boolean hasValues) {
+        values = hasValues ? new long[INITIAL_CAPACITY] : null;
+    }
+
+    /**
+     * Adds an id, or replaces the value kept with it if it is already in the list.
+     *
+     * @param id the id to add.
+     * @param value the value kept with the id, ignored if the list keeps no values.
+     */
+    void add(int id, long value) {
+        int position = size == 0 || ids[size - 1] < id ? -size - 1 : Arrays.binarySearch(ids, 0, size, id);
+        if (position < 0) {
+            position = -position - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+                values = values == null ? null : Arrays.copyOf(values, size * 2);
+            }
+            System.arraycopy(ids, position, ids, position + 1, size - position);
+            if (values != null) {
+                System.arraycopy(values, position, values, position + 1, size - position);
+            }
+            ids[position] = id;
+            size++;
+        }
+        if (values != null) {
+            values[position] = value;
+        }
+    }
+
+    /**
+     * Removes an id if it is in the list.
+     *
+     * @param id the id to remove.
+     */
+    void remove(int id) {
+        int position = Arrays.binarySearch(ids, 0, size, id);
+        if (position < 0) {
+            return;
+        }
+        System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+        if (values != null) {
+            System.arraycopy(values, position + 1, values, position, size - position - 1);
+        }
+        size--;
+    }
+
+    /**
+     * Removes every id set in the given bits, moving each remaining id at most once.
+     *
+     * @param removed the ids to remove.
+     */
+    void removeAll(BitSet removed) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (removed.get(ids[i])) {
+                continue;
+            }
+            ids[kept] = ids[i];
+            if (values != null) {
+                values[kept] = values[i];
+            }
+            kept++;
+        }
+        size = kept;
+    }
+
+    /**
+     * Sets the bit of every id in the list.
+     *
+     * @param bits the bits to set.
+     */
+    void addTo(BitSet bits) {
+        for (int i = 0; i < size; i++) {
+            bits.set(ids[i]);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int getId(int index) {
+        return ids[index];
+    }
+
+    long getValue(int index) {
+        return values[index];
+    }
+}
@@ -0,0 +1,381 @@
+package patrick.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import patrick.metrics.Metrics;
+import patrick.storage.Storage.IllegalValueException;
+
+/**
+ * Records changes to the task list as small operation records appended to a log next to the task file,
+ * so that a single command costs O(1) disk I/O instead of rewriting every task.
+ * <p>
+ * The task file itself acts as a snapshot. Once the log grows past a size limit it is renamed aside and a
+ * background thread folds it into a new snapshot. The files are swapped in an order that lets {@link Storage}
+ * recover to a consistent state if the program stops at any point:
+ * <ol>
+ *     <li>{@code tasks.txt.journal} is renamed to {@code tasks.txt.journal.compacting} and a new log is started.</li>
+ *     <li>The new snapshot is written to {@code tasks.txt.tmp} and flushed to disk.</li>
+ *     <li>{@code tasks.txt.journal.compacting} is deleted.</li>
+ *     <li>{@code tasks.txt.tmp} replaces {@code tasks.txt}.</li>
+ * </ol>
+ * <p>
+ * Every journal in the process compacts on the same background thread, so that a server keeping many task files
+ * open does not start a thread for each. A journal holds its log open until it is closed.
+ */
+public class Journal implements Closeable {
+    /** System property that turns on journaled storage when set to {@code true}. */
+    public static final String ENABLED_PROPERTY = "patrick.journal";
+    /** System property holding the log size in bytes after which it is compacted. */
+    public static final String COMPACT_BYTES_PROPERTY = "patrick.journal.compactBytes";
+    private static final long DEFAULT_COMPACT_BYTES = 1024 * 1024;
+    private static final String SEPARATOR = " ";
+    private static final ExecutorService COMPACTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "journal-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Path snapshotPath;
+    private final Path journalPath;
+    private final Path compactingPath;
+    private final Path tmpPath;
+    private final long compactBytes;
+    private FileChannel channel;
+    /** The last compaction started, which may still be running. */
+    private Future<?> compaction;
+    private long size;
+    /** Why the last compaction could not write its snapshot, until it is reported by the next append. */
+    private volatile IOException compactionFailure;
+    /** Records not yet written to the log while buffering, or null if every record is written at once. */
+    private StringBuilder pending;
+
+    /**
+     * Represents the kinds of changes recorded in the log.
+     */
+    public enum Operation {
+        ADD, DELETE, MARK, UNMARK
+    }
+
+    /**
+     * Constructs a {@code Journal} for the given task file, compacting once the log exceeds the size set by
+     * {@link #COMPACT_BYTES_PROPERTY}.
+     *
+     * @param filePath the path to the task file used as the snapshot.
+     */
+    public Journal(String filePath) {
+        this(filePath, Long.getLong(COMPACT_BYTES_PROPERTY, DEFAULT_COMPACT_BYTES));
+    }
+
+    /**
+     * Constructs a {@code Journal} for the given task file.
+     *
+     * @param filePath the path to the task file used as the snapshot.
+     * @param compactBytes the log size in bytes after which it is compacted.
+     */
+    public Journal(String filePath, long compactBytes) {
+        this.snapshotPath = Paths.get(filePath);
+        this.journalPath = Paths.get(filePath + ".journal");
+        this.compactingPath = Paths.get(filePath + ".journal.compacting");
+        this.tmpPath = Paths.get(filePath + ".tmp");
+        this.compactBytes = compactBytes;
+    }
+
+    /**
+     * Completes or rolls back a compaction that was interrupted, before the snapshot is read.
+     * A new snapshot is only kept if its log was already deleted, which happens after it was fully written.
+     *
+     * @return true if a log awaiting compaction remains and must be replayed and compacted by the caller.
+     * @throws IOException if an I/O error occurs.
+     */
+    public boolean recover() throws IOException {
+        if (Files.exists(compactingPath)) {
+            Files.deleteIfExists(tmpPath);
+            return true;
+        }
+        if (Files.exists(tmpPath)) {
+            Files.move(tmpPath, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+        return false;
+    }
+
+    /**
+     * Reads the records of a log that was renamed aside for compaction.
+     *
+     * @return the records in the order they were written.
+     * @throws IOException if an I/O error occurs.
+     * @throws IllegalValueException if a record is malformed.
+     */
+    public List<Record> readCompacting() throws IOException, IllegalValueException {
+        return parseRecords(readComplete(compactingPath));
+    }
+
+    /**
+     * Reads the records of the current log and opens it for appending. A record left incomplete by a crash
+     * is discarded.
+     *
+     * @return the records in the order they were written.
+     * @throws IOException if an I/O error occurs.
+     * @throws IllegalValueException if a record is malformed.
+     */
+    public List<Record> open() throws IOException, IllegalValueException {
+        byte[] bytes = readComplete(journalPath);
+        channel = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        channel.truncate(bytes.length);
+        channel.position(bytes.length);
+        size = bytes.length;
+        return parseRecords(bytes);
+    }
+
+    private static byte[] readComplete(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return new byte[0];
+        }
+        byte[] bytes = Files.readAllBytes(path);
+        int length = bytes.length;
+        while (length > 0 && bytes[length - 1] != '\n') {
+            length--;
+        }
+        return Arrays.copyOf(bytes, length);
+    }
+
+    private static List<Record> parseRecords(byte[] bytes) throws IllegalValueException {
+        List<Record> records = new ArrayList<>();
+        String text = new String(bytes, StandardCharsets.UTF_8);
+        int start = 0;
+        int end = text.indexOf('\n');
+        while (end >= 0) {
+            records.add(Record.parse(text.substring(start, end)));
+            start = end + 1;
+            end = text.indexOf('\n', start);
+        }
+        return records;
+    }
+
+    /**
+     * Appends a record to the log. The record is written with a single call so that a crash leaves at most
+     * the last record incomplete.
+     *
+     * @param operation the kind of change.
+     * @param id the id of the task changed.
+     * @param taskLine the task as written in the task file, only used for {@code ADD}.
+     * @throws IOException if an I/O error occurs, or if the last compaction failed; the record is kept either way
+     *     unless writing it failed.
+     */
+    public void append(Operation operation, int id, String taskLine) throws IOException {
+        String record = operation + SEPARATOR + id + (operation == Operation.ADD ? SEPARATOR + taskLine : "") + "\n";
+        if (pending != null) {
+            pending.append(record);
+        } else {
+            write(record);
+        }
+        reportCompactionFailure();
+    }
+
+    /**
+     * Throws the error that stopped the last compaction, once. The log it was folding stays renamed aside, so no
+     * change is lost, and the compaction is redone the next time the tasks are loaded.
+     */
+    private void reportCompactionFailure() throws IOException {
+        IOException failure = compactionFailure;
+        if (failure != null) {
+            compactionFailure = null;
+            throw new IOException("Could not compact the journal, it will be compacted on the next start: "
+                    + failure.getMessage(), failure);
+        }
+    }
+
+    /**
+     * Starts or stops holding appended records in memory until {@link #flush()} is called, so that a batch of
+     * changes reaches the log in one write. Stopping flushes any records still held.
+     *
+     * @param isBuffered true to hold records until flushed.
+     * @throws IOException if an I/O error occurs while flushing.
+     */
+    public void setBuffered(boolean isBuffered) throws IOException {
+        if (isBuffered) {
+            if (pending == null) {
+                pending = new StringBuilder();
+            }
+            return;
+        }
+        flush();
+        pending = null;
+    }
+
+    /**
+     * Writes the records held since the last flush to the log with a single call.
+     *
+     * @throws IOException if an I/O error occurs.
+     */
+    public void flush() throws IOException {
+        if (pending == null || pending.length() == 0) {
+            return;
+        }
+        String records = pending.toString();
+        pending.setLength(0);
+        write(records);
+    }
+
+    private void write(String records) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(records.getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) {
+            size += channel.write(buffer);
+        }
+        Metrics.add(Storage.BYTES_WRITTEN, buffer.limit());
+    }
+
+    /**
+     * Checks whether the log has grown past its size limit and no compaction is already running.
+     *
+     * @return true if {@link #compact(Supplier)} should be called.
+     */
+    public boolean needsCompaction() {
+        return size + (pending == null ? 0 : pending.length()) >= compactBytes && !Files.exists(compactingPath);
+    }
+
+    /**
+     * Starts a new log and, on a background thread, encodes the new snapshot and writes it.
+     * Records appended from now on refer to tasks by their ids, which the snapshot keeps, so compacting does not
+     * renumber any task.
+     *
+     * @param snapshot encodes the contents of the new task file from tasks captured when this is called; it runs
+     *     on the background thread, so it must not read anything the caller goes on to change.
+     * @throws IOException if the log could not be rotated.
+     */
+    public void compact(Supplier<byte[]> snapshot) throws IOException {
+        // Held records must reach the log being rotated away, as recovery replays it if the snapshot is lost
+        flush();
+        channel.close();
+        Files.move(journalPath, compactingPath, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        size = 0;
+        compaction = COMPACTOR.submit(() -> {
+            try {
+                writeSnapshot(snapshot.get());
+            } catch (IOException e) {
+                compactionFailure = e;
+            }
+        });
+    }
+
+    /**
+     * Writes any records still held, waits for a compaction in progress to write its snapshot, and closes the log.
+     * The journal cannot be appended to afterwards.
+     *
+     * @throws IOException if the records could not be written, or the last compaction failed.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+            if (compaction != null) {
+                compaction.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the journal to be compacted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Could not compact the journal", e.getCause());
+        } finally {
+            if (channel != null) {
+                channel.close();
+            }
+        }
+        reportCompactionFailure();
+    }
+
+    /**
+     * Writes the given contents as the new snapshot on the calling thread, completing a compaction found by
+     * {@link #recover()}.
+     *
+     * @param snapshot the contents of the new task file.
+     * @throws IOException if an I/O error occurs.
+     */
+    public void writeSnapshot(byte[] snapshot) throws IOException {
+        writeTmp(snapshot);
+        Files.delete(compactingPath);
+        Files.move(tmpPath, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Replaces the snapshot with the given contents while keeping the log, for a change to the task file that the
+     * records of the log still apply on top of, such as leaving out lines that could not be read.
+     *
+     * @param snapshot the contents of the new task file.
+     * @throws IOException if an I/O error occurs.
+     */
+    public void replaceSnapshot(byte[] snapshot) throws IOException {
+        writeTmp(snapshot);
+        Files.move(tmpPath, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void writeTmp(byte[] snapshot) throws IOException {
+        try (FileChannel out = FileChannel.open(tmpPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(snapshot);
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            out.force(true);
+        }
+    }
+
+    /**
+     * Represents a single change read back from the log.
+     */
+    public static class Record {
+        private final Operation operation;
+        private final int id;
+        private final String taskLine;
+
+        private Record(Operation operation, int id, String taskLine) {
+            this.operation = operation;
+            this.id = id;
+            this.taskLine = taskLine;
+        }
+
+        private static Record parse(String line) throws IllegalValueException {
+            String[] fields = line.split(SEPARATOR, 3);
+            try {
+                Operation operation = Operation.valueOf(fields[0]);
+                int id = Integer.parseInt(fields[1]);
+                if (operation == Operation.ADD && fields.length < 3) {
+                    throw new IllegalValueException("Invalid Journal");
+                }
+                return new Record(operation, id, operation == Operation.ADD ? fields[2] : null);
+            } catch (IllegalArgumentException | ArrayIndexOutOfBoundsException e) {
+                throw new IllegalValueException("Invalid Journal");
+            }
+        }
+
+        public Operation getOperation() {
+            return operation;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public String getTaskLine() {
+            return taskLine;
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package patrick.storage;
+
+import java.util.function.IntFunction;
+
+import patrick.tasklist.Task;
+
+/**
+ * Finds the tasks that may share a canonical key with a given task, so duplicates are found without scanning the
+ * list, holding only the id of each task and a hash of its searchable text.
+ * <p>
+ * Each task takes one {@code long}, the hash in its upper half and the id in its lower half, in a table probed
+ * linearly and kept at most half full: about 16 bytes per task, and no task is kept alive. The hash leaves out the
+ * done status, so marking a task leaves its entry as it is, and a match is confirmed by comparing the keys of the
+ * tasks themselves.
+ */
+public class KeyIndex {
+    /** Marks a free slot; task ids start at 1, so no entry is ever 0. */
+    private static final long EMPTY = 0;
+    private static final int INITIAL_CAPACITY = 16;
+    private long[] slots = new long[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * Adds the task to the index.
+     *
+     * @param task the task to index.
+     */
+    public void add(Task task) {
+        if ((size + 1) * 2 > slots.length) {
+            long[] old = slots;
+            slots = new long[old.length * 2];
+            for (long entry : old) {
+                if (entry != EMPTY) {
+                    put(entry);
+                }
+            }
+        }
+        put(entryOf(task));
+        size++;
+    }
+
+    private void put(long entry) {
+        int slot = slotOf(hashOf(entry));
+        while (slots[slot] != EMPTY) {
+            slot = next(slot);
+        }
+        slots[slot] = entry;
+    }
+
+    /**
+     * Removes the task from the index.
+     *
+     * @param task the task to remove.
+     */
+    public void remove(Task task) {
+        long entry = entryOf(task);
+        for (int slot = slotOf(hashOf(entry)); slots[slot] != EMPTY; slot = next(slot)) {
+            if (slots[slot] == entry) {
+                free(slot);
+                size--;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Empties a slot, moving back the entries probed past it so that none becomes unreachable.
+     */
+    private void free(int hole) {
+        int mask = slots.length - 1;
+        for (int slot = next(hole); slots[slot] != EMPTY; slot = next(slot)) {
+            int home = slotOf(hashOf(slots[slot]));
+            if (((slot - home) & mask) >= ((slot - hole) & mask)) {
+                slots[hole] = slots[slot];
+                hole = slot;
+            }
+        }
+        slots[hole] = EMPTY;
+    }
+
+    /**
+     * Checks whether a task with the same canonical key as the given task is in the index.
+     *
+     * @param task the task to look up.
+     * @param tasksById finds an indexed task by its id.
+     * @return true if an indexed task has the same key.
+     */
+    public boolean contains(Task task, IntFunction<Task> tasksById) {
+        int hash = hashOf(task);
+        String key = task.getKey();
+        for (int slot = slotOf(hash); slots[slot] != EMPTY; slot = next(slot)) {
+            if (hashOf(slots[slot]) == hash && tasksById.apply((int) slots[slot]).getKey().equals(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of tasks in the index.
+     *
+     * @return the number of indexed tasks.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Removes every task from the index.
+     */
+    public void clear() {
+        slots = new long[INITIAL_CAPACITY];
+        size = 0;
+    }
+
+    private static int hashOf(Task task) {
+        return task.getSearchText().hashCode();
+    }
+
+    private static long entryOf(Task task) {
+        return (long) hashOf(task) << 32 | (task.getId() & 0xFFFFFFFFL);
+    }
+
+    private static int hashOf(long entry) {
+        return (int) (entry >>> 32);
+    }
+
+    private int slotOf(int hash) {
+        // Takes the top bits of a multiplicative hash, which mixes in every bit of the hash
+        return (hash * 0x9E3779B9) >>> (Integer.numberOfLeadingZeros(slots.length) + 1);
+    }
+
+    private int next(int slot) {
+        return (slot + 1) & (slots.length - 1);
+    }
+}
@@ -0,0 +1,142 @@
+package patrick.storage;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeMap;
+
+import patrick.tasklist.Task;
+
+/**
+ * Maps each lower-cased word of a task's searchable text to the ids of the tasks containing it.
+ * Posting lists are {@link IdList}s ordered by task id, which follows the order of the task list, so results come
+ * out in list order. The index holds ids rather than tasks, so it takes a few bytes per word of each task and keeps
+ * no task alive.
+ */
+public class KeywordIndex {
+    private final TreeMap<String, IdList> postings = new TreeMap<>();
+
+    /**
+     * Adds every word of the task's searchable text to the index.
+     *
+     * @param task the task to index.
+     */
+    public void add(Task task) {
+        for (String token : tokenize(task.getSearchText())) {
+            postings.computeIfAbsent(token, key -> new IdList(false)).add(task.getId(), 0);
+        }
+    }
+
+    /**
+     * Removes the task from the posting list of every word it was indexed under.
+     *
+     * @param task the task to remove.
+     */
+    public void remove(Task task) {
+        for (String token : tokenize(task.getSearchText())) {
+            IdList ids = postings.get(token);
+            if (ids != null) {
+                ids.remove(task.getId());
+                if (ids.isEmpty()) {
+                    postings.remove(token);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes many tasks at once, going through the posting list of each of their words a single time.
+     *
+     * @param tasks the tasks to remove.
+     */
+    public void removeAll(Collection<Task> tasks) {
+        BitSet removed = new BitSet();
+        Set<String> tokens = new HashSet<>();
+        for (Task task : tasks) {
+            removed.set(task.getId());
+            tokens.addAll(tokenize(task.getSearchText()));
+        }
+        for (String token : tokens) {
+            IdList ids = postings.get(token);
+            if (ids != null) {
+                ids.removeAll(removed);
+                if (ids.isEmpty()) {
+                    postings.remove(token);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes every task from the index.
+     */
+    public void clear() {
+        postings.clear();
+    }
+
+    /**
+     * Returns the number of distinct words in the index.
+     *
+     * @return the number of indexed words.
+     */
+    public int size() {
+        return postings.size();
+    }
+
+    /**
+     * Finds the tasks that have a word starting with each word of the query.
+     *
+     * @param query the keywords to search for, split into words the same way task text is.
+     * @param isMatchAll true if a task must match every keyword, false if matching any keyword is enough.
+     * @return the ids of the matching tasks in list order.
+     */
+    public int[] find(String query, boolean isMatchAll) {
+        BitSet result = null;
+        for (String keyword : tokenize(query)) {
+            BitSet matches = findPrefix(keyword);
+            if (result == null) {
+                result = matches;
+            } else if (isMatchAll) {
+                result.and(matches);
+            } else {
+                result.or(matches);
+            }
+            if (isMatchAll && result.isEmpty()) {
+                break;
+            }
+        }
+        return result == null ? new int[0] : result.stream().toArray();
+    }
+
+    private BitSet findPrefix(String prefix) {
+        BitSet matches = new BitSet();
+        for (IdList ids : postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values()) {
+            ids.addTo(matches);
+        }
+        return matches;
+    }
+
+    /**
+     * Splits the text into lower-cased words made up of letters and digits.
+     *
+     * @param text the text to split.
+     * @return the distinct words of the text.
+     */
+    public static Set<String> tokenize(String text) {
+        Set<String> tokens = new LinkedHashSet<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean isWordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (isWordChar && start < 0) {
+                start = i;
+            } else if (!isWordChar && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+}
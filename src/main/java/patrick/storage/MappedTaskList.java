@@ -0,0 +1,424 @@
+package patrick.storage;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.RandomAccess;
+
+import patrick.storage.Storage.IllegalValueException;
+import patrick.tasklist.Task;
+
+/**
+ * Lists the tasks of a memory-mapped text task file, decoding each line into a {@code Task} only when it is
+ * first accessed.
+ * <p>
+ * Opening the file takes a single pass to record where each line starts, without reading any line into the heap,
+ * so the heap holds a few primitive entries per line until tasks are actually used. Lines are only checked to hold
+ * valid tasks when first decoded, or all at once by {@link #validate}. Tasks added afterwards are kept in memory
+ * alongside the mapped lines.
+ * <p>
+ * Saving writes the tasks to a new file that replaces the mapped one, after which the new file is mapped instead.
+ * A journal snapshot replaces the file from another thread without remapping it, so until the next load the list
+ * reads the replaced file, which stays readable while it is mapped.
+ * Windows does not let a mapped file be replaced, so mapping is not used there; see {@link #isSupported()}.
+ * <p>
+ * Tasks may be decoded by readers holding only {@link Storage}'s read lock, so a decoded task is published with a
+ * compare-and-set: readers decoding the same line at once all get the task that was stored first.
+ */
+public class MappedTaskList extends AbstractList<Task> implements RandomAccess {
+    /** System property that turns on memory-mapped loading when set to {@code true}. */
+    public static final String ENABLED_PROPERTY = "patrick.mapped";
+    /** System property that checks every line of a mapped file when it is opened, when set to {@code true}. */
+    public static final String VALIDATE_PROPERTY = "patrick.mapped.validate";
+    private static final long SEGMENT_BYTES = 1L << 30;
+    private static final VarHandle TASKS = MethodHandles.arrayElementVarHandle(Task[].class);
+
+    private MappedByteBuffer[] segments;
+    private long[] starts;
+    private int[] lengths;
+    private int[] ids;
+    private Task[] tasks;
+    private int size;
+
+    private MappedTaskList(MappedByteBuffer[] segments) {
+        this.segments = segments;
+        this.starts = new long[16];
+        this.lengths = new int[16];
+        this.ids = new int[16];
+        this.tasks = new Task[16];
+    }
+
+    /**
+     * Checks whether a mapped task file can be saved on this platform, which needs the file to be replaced while it
+     * is mapped. Windows refuses to replace or truncate a file that is mapped.
+     *
+     * @return true if task files can be mapped.
+     */
+    public static boolean isSupported() {
+        return !System.getProperty("os.name", "").startsWith("Windows");
+    }
+
+    /**
+     * Maps the given text task file and indexes the start of every line, reading the id at the start of each line.
+     * Lines without an id are numbered on from the line before, as {@link Storage#parseLine} does. Blank lines are
+     * skipped.
+     * <p>
+     * Only the position, length and id of each line are recorded: lines are not checked to hold valid tasks, so a
+     * line that is not one is only found when it is first read by {@link #get}, unless {@link #validate} is called.
+     *
+     * @param path the path to the task file.
+     * @return the tasks of the file.
+     * @throws IOException if an I/O error occurs.
+     */
+    public static MappedTaskList open(Path path) throws IOException {
+        MappedTaskList mapped;
+        long fileSize;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            fileSize = channel.size();
+            MappedByteBuffer[] segments = new MappedByteBuffer[(int) ((fileSize + SEGMENT_BYTES - 1) / SEGMENT_BYTES)];
+            for (int i = 0; i < segments.length; i++) {
+                long offset = i * SEGMENT_BYTES;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, offset,
+                        Math.min(SEGMENT_BYTES, fileSize - offset));
+            }
+            mapped = new MappedTaskList(segments);
+        }
+
+        long lineStart = 0;
+        for (int i = 0; i < mapped.segments.length; i++) {
+            MappedByteBuffer segment = mapped.segments[i];
+            for (int j = 0; j < segment.limit(); j++) {
+                if (segment.get(j) == '\n') {
+                    long position = i * SEGMENT_BYTES + j;
+                    mapped.addLine(lineStart, position);
+                    lineStart = position + 1;
+                }
+            }
+        }
+        if (lineStart < fileSize) {
+            mapped.addLine(lineStart, fileSize);
+        }
+        return mapped;
+    }
+
+    /**
+     * Adds the line in {@code [start, end)} to the index, unless it is blank.
+     */
+    private void addLine(long start, long end) {
+        if (end > start && byteAt(end - 1) == '\r') {
+            end--;
+        }
+        if (end == start) {
+            return;
+        }
+        int id = size == 0 ? 1 : ids[size - 1] + 1;
+        int savedId = 0;
+        int digits = 0;
+        while (start + digits < end && digits <= Storage.MAX_ID_DIGITS
+                && byteAt(start + digits) >= '0' && byteAt(start + digits) <= '9') {
+            savedId = savedId * 10 + byteAt(start + digits) - '0';
+            digits++;
+        }
+        if (digits > 0 && digits <= Storage.MAX_ID_DIGITS && isIdSeparator(start + digits, end)) {
+            id = Math.max(savedId, id);
+            start += digits + Storage.ID_SEPARATOR.length();
+        }
+        ensureCapacity(size + 1);
+        starts[size] = start;
+        lengths[size] = (int) (end - start);
+        ids[size] = id;
+        size++;
+    }
+
+    /**
+     * Checks that every mapped line not yet decoded holds a valid task, without building the tasks, and removes the
+     * lines that do not. This reads the whole file, so it is only done when asked for, after which reading a task
+     * cannot fail in the middle of a command.
+     *
+     * @param quarantine where the removed lines are kept, or null to stop at the first one.
+     * @return the number of lines removed.
+     * @throws IOException if writing to the quarantine fails.
+     * @throws IllegalValueException if a line is not a valid task and {@code quarantine} is null.
+     */
+    public int validate(Quarantine quarantine) throws IOException, IllegalValueException {
+        TaskLineTokenizer tokenizer = new TaskLineTokenizer();
+        BitSet invalid = new BitSet();
+        long lineNumber = 1;
+        long counted = 0;
+        for (int i = 0; i < size; i++) {
+            if (starts[i] < 0 || isDecoded(i)) {
+                continue;
+            }
+            long lineStart = lineStart(i);
+            for (; counted < lineStart; counted++) {
+                if (byteAt(counted) == '\n') {
+                    lineNumber++;
+                }
+            }
+            byte[] line = readLine(i);
+            try {
+                tokenizer.tokenize(line, 0, line.length);
+                tokenizer.checkDates();
+            } catch (IllegalValueException | DateTimeException e) {
+                if (quarantine == null) {
+                    throw new IllegalValueException(Quarantine.reasonFor(e));
+                }
+                int fullLength = (int) (starts[i] + lengths[i] - lineStart);
+                quarantine.add(lineNumber, new String(readBytes(lineStart, fullLength), StandardCharsets.UTF_8),
+                        Quarantine.reasonFor(e));
+                invalid.set(i);
+            }
+        }
+        if (!invalid.isEmpty()) {
+            removeAt(invalid);
+        }
+        return invalid.cardinality();
+    }
+
+    /**
+     * Maps the given file in place of the one mapped now, once every task has been written to it by
+     * {@link #writeTo}, so that undecoded lines are read from the new file and the old one can be freed. Tasks
+     * already decoded are kept.
+     *
+     * @param path the file the tasks were written to.
+     * @throws IOException if an I/O error occurs, or if the file does not hold the tasks of this list.
+     */
+    public void remap(Path path) throws IOException {
+        MappedTaskList written = open(path);
+        if (written.size != size || !Arrays.equals(written.ids, 0, size, ids, 0, size)) {
+            throw new IOException(path + " does not hold the " + size + " tasks written to it");
+        }
+        System.arraycopy(tasks, 0, written.tasks, 0, size);
+        segments = written.segments;
+        starts = written.starts;
+        lengths = written.lengths;
+        ids = written.ids;
+        tasks = written.tasks;
+    }
+
+    /**
+     * Returns where the line of the task at the given position starts, including any id in front of the task.
+     */
+    private long lineStart(int index) {
+        long start = starts[index];
+        while (start > 0 && byteAt(start - 1) != '\n') {
+            start--;
+        }
+        return start;
+    }
+
+    private boolean isIdSeparator(long position, long end) {
+        return position + Storage.ID_SEPARATOR.length() < end && byteAt(position) == ' '
+                && byteAt(position + 1) == '|' && byteAt(position + 2) == ' ';
+    }
+
+    private byte byteAt(long position) {
+        return segments[(int) (position / SEGMENT_BYTES)].get((int) (position % SEGMENT_BYTES));
+    }
+
+    private byte[] readLine(int index) {
+        return readBytes(starts[index], lengths[index]);
+    }
+
+    private byte[] readBytes(long start, int length) {
+        byte[] bytes = new byte[length];
+        int offset = (int) (start % SEGMENT_BYTES);
+        MappedByteBuffer segment = segments[(int) (start / SEGMENT_BYTES)];
+        if (offset + bytes.length <= segment.limit()) {
+            segment.get(offset, bytes);
+        } else {
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = byteAt(start + i);
+            }
+        }
+        return bytes;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > tasks.length) {
+            int newLength = Math.max(capacity, tasks.length * 2);
+            starts = Arrays.copyOf(starts, newLength);
+            lengths = Arrays.copyOf(lengths, newLength);
+            ids = Arrays.copyOf(ids, newLength);
+            tasks = Arrays.copyOf(tasks, newLength);
+        }
+    }
+
+    /**
+     * Returns the task at the given position, decoding its line on first access.
+     *
+     * @param index the 0-based position of the task.
+     * @return the task at the position.
+     */
+    @Override
+    public Task get(int index) {
+        Task task = peek(index);
+        Task stored = (Task) TASKS.compareAndExchangeRelease(tasks, index, null, task);
+        return stored != null ? stored : task;
+    }
+
+    /**
+     * Returns the task at the given position, decoding its line without keeping the task if it was not decoded
+     * before, so that tasks can be looked through without each staying in memory.
+     *
+     * @param index the 0-based position of the task.
+     * @return the task at the position, which is not the one later returned by {@link #get} if it was not decoded.
+     */
+    public Task peek(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        Task task = (Task) TASKS.getAcquire(tasks, index);
+        if (task != null) {
+            return task;
+        }
+        byte[] line = readLine(index);
+        TaskLineTokenizer tokenizer = new TaskLineTokenizer();
+        try {
+            tokenizer.tokenize(line, 0, line.length);
+            task = tokenizer.toTask();
+        } catch (IllegalValueException | DateTimeException e) {
+            // Unchecked, as List.get cannot throw anything else; validate finds these lines up front instead
+            throw new IllegalStateException("Task with id " + ids[index] + " is not a valid task ("
+                    + Quarantine.reasonFor(e) + "): " + new String(line, StandardCharsets.UTF_8), e);
+        }
+        task.setId(ids[index]);
+        return task;
+    }
+
+    /**
+     * Returns a copy of the list that shares the mapped file and the tasks already decoded, for reading on another
+     * thread. Copying takes a few array copies and decodes nothing.
+     *
+     * @return the copy.
+     */
+    public MappedTaskList copy() {
+        MappedTaskList copy = new MappedTaskList(segments);
+        copy.starts = Arrays.copyOf(starts, size);
+        copy.lengths = Arrays.copyOf(lengths, size);
+        copy.ids = Arrays.copyOf(ids, size);
+        copy.tasks = Arrays.copyOf(tasks, size);
+        copy.size = size;
+        return copy;
+    }
+
+    /**
+     * Checks whether the task at the given position has already been decoded.
+     *
+     * @param index the 0-based position of the task.
+     * @return true if the task is held in memory.
+     */
+    public boolean isDecoded(int index) {
+        return TASKS.getAcquire(tasks, index) != null;
+    }
+
+    /**
+     * Returns the id of the task at the given position without decoding it.
+     *
+     * @param index the 0-based position of the task.
+     * @return the id of the task.
+     */
+    public int getId(int index) {
+        return ids[index];
+    }
+
+    /**
+     * Removes the tasks at positions {@code [from, to)}, shifting the later tasks once.
+     */
+    @Override
+    protected void removeRange(int from, int to) {
+        int moved = size - to;
+        System.arraycopy(starts, to, starts, from, moved);
+        System.arraycopy(lengths, to, lengths, from, moved);
+        System.arraycopy(ids, to, ids, from, moved);
+        System.arraycopy(tasks, to, tasks, from, moved);
+        Arrays.fill(tasks, size - (to - from), size, null);
+        size -= to - from;
+        modCount++;
+    }
+
+    /**
+     * Removes the tasks at the given positions, moving each task left at most once.
+     *
+     * @param positions the 0-based positions of the tasks to remove.
+     */
+    public void removeAt(BitSet positions) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (positions.get(i)) {
+                continue;
+            }
+            starts[kept] = starts[i];
+            lengths[kept] = lengths[i];
+            ids[kept] = ids[i];
+            tasks[kept] = tasks[i];
+            kept++;
+        }
+        Arrays.fill(tasks, kept, size, null);
+        size = kept;
+        modCount++;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean add(Task task) {
+        ensureCapacity(size + 1);
+        starts[size] = -1;
+        lengths[size] = 0;
+        ids[size] = task.getId();
+        tasks[size] = task;
+        size++;
+        modCount++;
+        return true;
+    }
+
+    @Override
+    public Task remove(int index) {
+        Task task = get(index);
+        int moved = size - index - 1;
+        System.arraycopy(starts, index + 1, starts, index, moved);
+        System.arraycopy(lengths, index + 1, lengths, index, moved);
+        System.arraycopy(ids, index + 1, ids, index, moved);
+        System.arraycopy(tasks, index + 1, tasks, index, moved);
+        size--;
+        tasks[size] = null;
+        modCount++;
+        return task;
+    }
+
+    /**
+     * Writes every task as a line of the text format, starting with its id. Lines that were never decoded are
+     * copied from the mapped file as they are, without creating a {@code Task}.
+     *
+     * @param out the stream to write to.
+     * @throws IOException if an I/O error occurs.
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                out.write('\n');
+            }
+            out.write((ids[i] + Storage.ID_SEPARATOR).getBytes(StandardCharsets.US_ASCII));
+            Task task = (Task) TASKS.getAcquire(tasks, i);
+            if (task != null) {
+                out.write(Storage.toTaskLine(task).getBytes(StandardCharsets.UTF_8));
+            } else {
+                out.write(readLine(i));
+            }
+        }
+    }
+}
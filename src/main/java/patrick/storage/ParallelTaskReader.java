@@ -0,0 +1,299 @@
+package patrick.storage;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+import patrick.storage.Storage.IllegalValueException;
+import patrick.tasklist.Task;
+
+/**
+ * Reads a task file in the text format by decoding chunks of it on several threads at once.
+ * <p>
+ * The file is split into chunks that end at line breaks, and each chunk is read and decoded on a fork-join pool.
+ * The decoded tasks are handed on one chunk at a time in file order, on the calling thread, so that the tasks of
+ * earlier chunks are stored while later chunks are still being decoded. Files too small to be worth splitting,
+ * and any file when the parallelism is 1, are decoded on the calling thread alone.
+ * <p>
+ * Each line is decoded as if it were the first, so a line without an id is given the id 1. The consumer gives the
+ * tasks their final ids in file order, as {@link Storage} does when it inserts them.
+ */
+public class ParallelTaskReader {
+    /** System property giving the number of threads decoding a task file, the number of processors by default. */
+    public static final String PARALLELISM_PROPERTY = "patrick.load.parallelism";
+    /** Files smaller than this are decoded on the calling thread. */
+    private static final long MIN_PARALLEL_BYTES = 1 << 18;
+    private static final int MIN_CHUNK_BYTES = 1 << 16;
+    private static final int MAX_CHUNK_BYTES = 1 << 23;
+    /** Chunks made per thread, so that threads given quick chunks can take on more. */
+    private static final int CHUNKS_PER_THREAD = 4;
+    private static final int SCAN_BYTES = 4096;
+    private final int parallelism;
+
+    /**
+     * Constructs a {@code ParallelTaskReader} using the number of threads given by {@value #PARALLELISM_PROPERTY}.
+     */
+    public ParallelTaskReader() {
+        this(Integer.getInteger(PARALLELISM_PROPERTY, Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * Constructs a {@code ParallelTaskReader} using the given number of threads.
+     *
+     * @param parallelism the number of threads decoding the file.
+     * @throws IllegalArgumentException if {@code parallelism} is not positive.
+     */
+    public ParallelTaskReader(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+        }
+        this.parallelism = parallelism;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Reads every task in the file and passes them to the consumer in file order. Blank lines are skipped.
+     *
+     * @param path the path to the task file.
+     * @param consumer called on the calling thread with each task.
+     * @throws IOException if an I/O error occurs.
+     * @throws IllegalValueException if a line is not a valid task; tasks on the lines before it may already have
+     *     been passed to the consumer.
+     */
+    public void read(Path path, Consumer<Task> consumer) throws IOException, IllegalValueException {
+        read(path, consumer, null);
+    }
+
+    /**
+     * Reads every valid task in the file and passes them to the consumer in file order, setting aside the lines
+     * that are not valid tasks instead of stopping at them. Blank lines are skipped.
+     *
+     * @param path the path to the task file.
+     * @param consumer called on the calling thread with each task.
+     * @param quarantine where lines that are not valid tasks are kept, or null to stop at the first one.
+     * @throws IOException if an I/O error occurs.
+     * @throws IllegalValueException if a line is not a valid task and {@code quarantine} is null.
+     */
+    public void read(Path path, Consumer<Task> consumer, Quarantine quarantine)
+            throws IOException, IllegalValueException {
+        boolean isLenient = quarantine != null;
+        long linesBefore = 0;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long[] bounds = split(channel);
+            if (parallelism == 1 || channel.size() < MIN_PARALLEL_BYTES) {
+                for (int i = 0; i + 1 < bounds.length; i++) {
+                    Chunk chunk = Chunk.decode(channel, bounds[i], bounds[i + 1], isLenient);
+                    linesBefore = chunk.passOn(consumer, quarantine, linesBefore);
+                }
+                return;
+            }
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                List<Future<Chunk>> chunks = new ArrayList<>();
+                for (int i = 0; i + 1 < bounds.length; i++) {
+                    long start = bounds[i];
+                    long end = bounds[i + 1];
+                    chunks.add(pool.submit(() -> Chunk.decode(channel, start, end, isLenient)));
+                }
+                for (int i = 0; i < chunks.size(); i++) {
+                    linesBefore = join(chunks.get(i)).passOn(consumer, quarantine, linesBefore);
+                    chunks.set(i, null);
+                }
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+    }
+
+    /**
+     * Reads every task in the file.
+     *
+     * @param path the path to the task file.
+     * @return the tasks in file order.
+     * @throws IOException if an I/O error occurs.
+     * @throws IllegalValueException if a line is not a valid task.
+     */
+    public List<Task> read(Path path) throws IOException, IllegalValueException {
+        List<Task> tasks = new ArrayList<>();
+        read(path, tasks::add);
+        return tasks;
+    }
+
+    /**
+     * The tasks decoded from one chunk of the file and the lines that were not valid tasks, or the reason the chunk
+     * could not be decoded.
+     */
+    private static class Chunk {
+        private final List<Task> tasks = new ArrayList<>();
+        private final List<BadLine> badLines = new ArrayList<>();
+        private final TaskLineTokenizer tokenizer = new TaskLineTokenizer();
+        private long lineCount;
+        private IOException ioError;
+        private IllegalValueException valueError;
+
+        /**
+         * Decodes the lines in {@code [start, end)} of the file, which starts at the beginning of a line and ends
+         * at the end of one. Lines that are not valid tasks are kept with their number in the chunk if
+         * {@code isLenient}, or else end the chunk with an error.
+         */
+        static Chunk decode(FileChannel channel, long start, long end, boolean isLenient) {
+            Chunk chunk = new Chunk();
+            try {
+                byte[] bytes = readBytes(channel, start, end);
+                int lineStart = 0;
+                for (int i = 0; i <= bytes.length; i++) {
+                    if (i < bytes.length && bytes[i] != '\n') {
+                        continue;
+                    }
+                    int lineEnd = i > lineStart && bytes[i - 1] == '\r' ? i - 1 : i;
+                    if (i < bytes.length || lineEnd > lineStart) {
+                        chunk.lineCount++;
+                    }
+                    if (lineEnd > lineStart) {
+                        chunk.add(bytes, lineStart, lineEnd, isLenient);
+                    }
+                    lineStart = i + 1;
+                }
+            } catch (IOException e) {
+                chunk.ioError = e;
+            } catch (IllegalValueException e) {
+                chunk.valueError = e;
+            }
+            return chunk;
+        }
+
+        private void add(byte[] bytes, int start, int end, boolean isLenient) throws IllegalValueException {
+            try {
+                tasks.add(Storage.parseLine(tokenizer, bytes, start, end, 0));
+            } catch (IllegalValueException | RuntimeException e) {
+                if (!isLenient) {
+                    throw e;
+                }
+                String line = new String(bytes, start, end - start, StandardCharsets.UTF_8);
+                badLines.add(new BadLine(lineCount, line, Quarantine.reasonFor(e)));
+            }
+        }
+
+        /**
+         * Passes the tasks to the consumer and the lines that were not valid tasks to the quarantine, numbering the
+         * lines on from the lines of the chunks before.
+         *
+         * @return the number of lines up to the end of this chunk.
+         */
+        long passOn(Consumer<Task> consumer, Quarantine quarantine, long linesBefore)
+                throws IOException, IllegalValueException {
+            if (ioError != null) {
+                throw ioError;
+            }
+            if (valueError != null) {
+                throw valueError;
+            }
+            tasks.forEach(consumer);
+            for (BadLine badLine : badLines) {
+                quarantine.add(linesBefore + badLine.lineNumber, badLine.line, badLine.reason);
+            }
+            return linesBefore + lineCount;
+        }
+    }
+
+    /**
+     * A line that is not a valid task, numbered from the start of its chunk.
+     */
+    private static class BadLine {
+        private final long lineNumber;
+        private final String line;
+        private final String reason;
+
+        BadLine(long lineNumber, String line, String reason) {
+            this.lineNumber = lineNumber;
+            this.line = line;
+            this.reason = reason;
+        }
+    }
+
+    private static Chunk join(Future<Chunk> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while reading tasks");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Returns the positions the chunks start at, followed by the size of the file. Every chunk but the first
+     * starts just after a line break.
+     */
+    private long[] split(FileChannel channel) throws IOException {
+        long size = channel.size();
+        long chunkBytes = Math.max(MIN_CHUNK_BYTES,
+                Math.min(MAX_CHUNK_BYTES, size / ((long) parallelism * CHUNKS_PER_THREAD) + 1));
+        List<Long> starts = new ArrayList<>();
+        starts.add(0L);
+        long position = chunkBytes;
+        while (position < size) {
+            long start = nextLineStart(channel, position);
+            if (start >= size) {
+                break;
+            }
+            starts.add(start);
+            position = start + chunkBytes;
+        }
+        long[] bounds = new long[starts.size() + 1];
+        for (int i = 0; i < starts.size(); i++) {
+            bounds[i] = starts.get(i);
+        }
+        bounds[starts.size()] = size;
+        return bounds;
+    }
+
+    /**
+     * Returns the position just after the first line break at or after the given position, or the size of the
+     * file if there is none.
+     */
+    private static long nextLineStart(FileChannel channel, long position) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_BYTES);
+        while (true) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                return channel.size();
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+    }
+
+    private static byte[] readBytes(FileChannel channel, long start, long end) throws IOException {
+        byte[] bytes = new byte[(int) (end - start)];
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, start + buffer.position()) < 0) {
+                throw new IOException("Task file shrank while it was being read");
+            }
+        }
+        return bytes;
+    }
+}
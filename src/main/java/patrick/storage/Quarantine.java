@@ -0,0 +1,106 @@
+package patrick.storage;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+
+import patrick.storage.Storage.IllegalValueException;
+
+/**
+ * Keeps the lines of a task file that could not be read, so that loading can carry on without them.
+ * <p>
+ * Each line is written to the quarantine file, next to the task file with {@value #EXTENSION} added to its name,
+ * as its line number, the reason it could not be read and the line itself, separated by {@code " | "}. The lines
+ * skipped by each load follow a header line starting with {@code #}. The file is only ever added to: once lines are
+ * skipped, {@link Storage} saves the task file without them, so the same lines are not added again on the next
+ * load.
+ */
+public class Quarantine implements Closeable {
+    /** Extension added to the name of the task file to name its quarantine file. */
+    public static final String EXTENSION = ".quarantine";
+    private static final String SEPARATOR = " | ";
+    private final Path path;
+    private final String source;
+    private BufferedWriter writer;
+    private int count;
+
+    /**
+     * Constructs a {@code Quarantine} for the given task file. The quarantine file is only created once a line is
+     * added.
+     *
+     * @param taskFile the path to the task file being read.
+     */
+    public Quarantine(Path taskFile) {
+        this.path = pathFor(taskFile);
+        this.source = taskFile.toString();
+    }
+
+    /**
+     * Returns the path of the quarantine file of a task file.
+     *
+     * @param taskFile the path to the task file.
+     * @return the path to its quarantine file.
+     */
+    public static Path pathFor(Path taskFile) {
+        return taskFile.resolveSibling(taskFile.getFileName() + EXTENSION);
+    }
+
+    /**
+     * Adds a line that could not be read to the quarantine file.
+     *
+     * @param lineNumber the 1-based number of the line in the task file.
+     * @param line the line as it is in the task file.
+     * @param reason why the line could not be read.
+     * @throws IOException if the quarantine file could not be written.
+     */
+    public void add(long lineNumber, String line, String reason) throws IOException {
+        if (writer == null) {
+            writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8, StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND);
+            writer.write("# Lines of " + source + " skipped when loading on " + LocalDateTime.now());
+            writer.newLine();
+        }
+        writer.write(lineNumber + SEPARATOR + reason + SEPARATOR + line);
+        writer.newLine();
+        count++;
+    }
+
+    /**
+     * Returns the number of lines added since this {@code Quarantine} was constructed.
+     *
+     * @return the number of lines quarantined.
+     */
+    public int getCount() {
+        return count;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (writer != null) {
+            writer.close();
+        }
+    }
+
+    /**
+     * Describes why a line could not be decoded into a task.
+     *
+     * @param e the exception thrown while decoding the line.
+     * @return the reason to record with the line.
+     */
+    static String reasonFor(Exception e) {
+        if (e instanceof IllegalValueException || e instanceof DateTimeException) {
+            return e.getMessage();
+        }
+        return "Malformed task (" + e.getClass().getSimpleName() + ")";
+    }
+}
@@ -1,24 +1,101 @@
 package patrick.storage;
 
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Scanner;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.StampedLock;
 
+import patrick.metrics.LatencyHistogram;
+import patrick.metrics.Metrics;
+import patrick.metrics.StorageEvent;
 import patrick.tasklist.Deadline;
 import patrick.tasklist.Event;
 import patrick.tasklist.Task;
-import patrick.tasklist.ToDo;
 
 /**
  * Handles the reading and writing of task data to and from a file.
  * It supports loading tasks from a file, adding, deleting, and saving tasks.
+ * Files ending in {@value BinaryTaskFile#EXTENSION} are stored in the binary format of {@link BinaryTaskFile},
+ * and any other file in the pipe-delimited text format.
+ * <p>
+ * Each {@code Storage} holds the tasks of one file, so several files can be served from one JVM, and may be used
+ * from several threads. Changes and the writes that save them are made one at a time under a writer lock, so the
+ * file sees them in list order. The tasks in memory are guarded by a {@link StampedLock} that changes only hold
+ * while updating memory, never while writing to the file, so reading or searching the tasks waits at most for
+ * one in-memory update.
+ * <p>
+ * Every task keeps the id it was given when added for as long as it exists, and the id is saved with it, so ids
+ * can name tasks while positions shift. Ids only ever increase down the list, so a task is found by id with a
+ * binary search, and the tasks in a range of ids sit next to each other and are deleted in one pass.
+ * <p>
+ * A journaled {@code Storage} keeps its journal open, so it should be closed once it is no longer used.
  */
-public class Storage {
-    private static final ArrayList<Task> list = new ArrayList<>();
-    private static String filePath;
+public class Storage implements Closeable {
+    /** Separates the id of a task from the rest of its line in a text task file. */
+    static final String ID_SEPARATOR = " | ";
+    /** Ids of up to this many digits always fit in an {@code int}. */
+    static final int MAX_ID_DIGITS = 9;
+    /** Position of the description in the line of a task, after its type and status. */
+    private static final int DESCRIPTION_START = "T | O | ".length();
+    /**
+     * Added to the name of a mapped task file to name the copy it is saved to. Kept apart from the journal's
+     * snapshot file, which recovery moves over the task file, so a partly written copy is never taken for one.
+     */
+    static final String MAPPED_TMP_SUFFIX = ".mapped.tmp";
+    private static final LatencyHistogram LOAD_LATENCY = Metrics.histogram("storage.load");
+    private static final LatencyHistogram WRITE_LATENCY = Metrics.histogram("storage.writeToFile");
+    private static final LatencyHistogram APPEND_LATENCY = Metrics.histogram("storage.appendToFile");
+    private static final LatencyHistogram FLUSH_LATENCY = Metrics.histogram("storage.flush");
+    /** Bytes written to task files and journals, by every store. */
+    static final LongAdder BYTES_WRITTEN = Metrics.counter("storage.bytesWritten");
+    private static final LongAdder FLUSHES = Metrics.counter("storage.flushes");
+    private final String filePath;
+    private final Journal journal;
+    private final boolean isMapped;
+    private final boolean isColumnar;
+    /** Guards {@code list} and its indexes, which are only written by {@code synchronized} methods. */
+    private final StampedLock lock = new StampedLock();
+    private List<Task> list;
+    /** Number of tasks in {@code list} sharing each canonical key, used for O(1) duplicate checks. */
+    private final KeyIndex taskKeys = new KeyIndex();
+    private final KeywordIndex keywordIndex = new KeywordIndex();
+    private final TimeIndex timeIndex = new TimeIndex();
+    private final List<TaskListener> listeners = new CopyOnWriteArrayList<>();
+    private int nextId = 1;
+    private volatile int skippedLines;
+    /**
+     * Whether {@code taskKeys}, {@code keywordIndex} and {@code timeIndex} cover every task; false until first used
+     * in mapped and columnar modes.
+     */
+    private volatile boolean isIndexed = true;
+    /** Whether writes are being held until {@link #flush()} rather than made after every change. */
+    private boolean isBatching;
+    /** Whether the file must be rewritten in full at the next flush because a task was deleted or changed. */
+    private boolean isDirty;
+    /** Text of the tasks added since the last flush, appended to a text file at the next flush. */
+    private final StringBuilder pendingAdds = new StringBuilder();
 
     /**
      * Constructs a {@code Storage} object with the specified file path.
@@ -27,66 +104,797 @@ public class Storage {
      * @throws NullPointerException if the file path is null.
      */
     public Storage(String filePath) throws NullPointerException {
+        this(filePath, false);
+    }
+
+    /**
+     * Constructs a {@code Storage} object with the specified file path, optionally recording changes in a
+     * {@link Journal} instead of rewriting the file on every change.
+     *
+     * @param filePath the path to the file where tasks are stored.
+     * @param isJournaled true if changes should be appended to a journal next to the file.
+     * @throws NullPointerException if the file path is null.
+     */
+    public Storage(String filePath, boolean isJournaled) throws NullPointerException {
+        this(filePath, isJournaled, false);
+    }
+
+    /**
+     * Constructs a {@code Storage} object with the specified file path, optionally recording changes in a
+     * {@link Journal} and optionally mapping a text task file into memory so that tasks are only decoded when used.
+     *
+     * @param filePath the path to the file where tasks are stored.
+     * @param isJournaled true if changes should be appended to a journal next to the file.
+     * @param isMapped true if a text task file should be loaded lazily through a {@link MappedTaskList}, where
+     *     {@link MappedTaskList#isSupported()}.
+     * @throws NullPointerException if the file path is null.
+     */
+    public Storage(String filePath, boolean isJournaled, boolean isMapped) throws NullPointerException {
+        this(filePath, isJournaled, isMapped, false);
+    }
+
+    /**
+     * Constructs a {@code Storage} object with the specified file path, optionally recording changes in a
+     * {@link Journal}, mapping a text task file into memory, or holding the tasks in a {@link ColumnarTaskList}.
+     * Mapping takes precedence over columnar storage when both are asked for and the file is a text file.
+     *
+     * @param filePath the path to the file where tasks are stored.
+     * @param isJournaled true if changes should be appended to a journal next to the file.
+     * @param isMapped true if a text task file should be loaded lazily through a {@link MappedTaskList}, where
+     *     {@link MappedTaskList#isSupported()}.
+     * @param isColumnar true if tasks should be held in primitive columns rather than one object per task.
+     * @throws NullPointerException if the file path is null.
+     */
+    public Storage(String filePath, boolean isJournaled, boolean isMapped, boolean isColumnar)
+            throws NullPointerException {
         if (filePath != null) {
-            Storage.filePath = filePath;
+            this.filePath = filePath;
+            this.journal = isJournaled ? new Journal(filePath) : null;
+            this.isMapped = isMapped && MappedTaskList.isSupported() && !BinaryTaskFile.isBinary(filePath);
+            this.isColumnar = isColumnar && !this.isMapped;
+            this.list = newList();
         } else {
             throw new NullPointerException("FilePath cannot be null");
         }
     }
 
+    private List<Task> newList() {
+        return isColumnar ? new ColumnarTaskList() : new ArrayList<>();
+    }
+
     /**
      * Loads tasks from the specified file. If the file does not exist, a new file is created.
+     * In journaled mode, the changes recorded in the journal are replayed on top of the file.
      *
-     * @return an {@code ArrayList} of tasks loaded from the file.
+     * @return a read-only view of the tasks loaded from the file, which reflects later changes and is not itself
+     *     safe to read while another thread changes the tasks; use {@link #getList()} for a snapshot.
      * @throws StorageOperationException if there is an error during the file operation.
      */
-    public ArrayList<Task> load() throws StorageOperationException {
+    public synchronized List<Task> load() throws StorageOperationException {
+        long start = Metrics.start();
+        StorageEvent event = new StorageEvent();
+        event.begin();
+        long stamp = lock.writeLock();
         try {
-            readTasks(filePath);
+            if (journal == null) {
+                readTasks();
+            } else {
+                readJournaledTasks();
+            }
         } catch (FileNotFoundException e) {
             throw new StorageOperationException(e.getMessage());
         } catch (IllegalValueException | IOException e) {
             throw new StorageOperationException(e.getMessage());
+        } finally {
+            lock.unlockWrite(stamp);
+            Metrics.stop(LOAD_LATENCY, start);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.setDetails(StorageEvent.LOAD, filePath, new File(filePath).length(), list.size());
+            event.commit();
+        }
+        return Collections.unmodifiableList(list);
+    }
+
+    /**
+     * Returns a snapshot of the tasks, unaffected by later changes to the list.
+     *
+     * @return the list of tasks.
+     */
+    public List<Task> getList() {
+        long stamp = lock.readLock();
+        try {
+            return List.copyOf(list);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns the number of tasks.
+     *
+     * @return the number of tasks in the list.
+     */
+    public int size() {
+        long stamp = lock.tryOptimisticRead();
+        int size = list.size();
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                size = list.size();
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Returns the task at the given index.
+     *
+     * @param index the 1-based index of the task.
+     * @return the task.
+     * @throws IndexOutOfBoundsException if there is no task at the index.
+     */
+    public Task getItem(int index) {
+        long stamp = lock.readLock();
+        try {
+            return list.get(index - 1);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns the task at the given index, checking that the index is in the list at the moment the task is read,
+     * so that a task number typed by the user can be looked up while other requests change the list.
+     *
+     * @param index the 1-based index of the task.
+     * @return the task.
+     * @throws InvalidIndexException if there is no task at the index.
+     */
+    public Task getCheckedItem(int index) throws InvalidIndexException {
+        long stamp = lock.readLock();
+        try {
+            checkIndex(index);
+            return list.get(index - 1);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Registers a listener to be told of every later change to the tasks.
+     *
+     * @param listener the listener to add.
+     */
+    public void addListener(TaskListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Stops telling a listener of changes to the tasks. Does nothing if the listener was not registered.
+     *
+     * @param listener the listener to remove.
+     */
+    public void removeListener(TaskListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Returns a snapshot of a range of the tasks, so that long lists can be read a piece at a time.
+     *
+     * @param from the 0-based index of the first task, inclusive.
+     * @param to the 0-based index of the last task, exclusive; reduced to the number of tasks if larger.
+     * @return the tasks in the range.
+     */
+    public List<Task> getItems(int from, int to) {
+        long stamp = lock.readLock();
+        try {
+            return List.copyOf(list.subList(Math.min(from, list.size()), Math.min(to, list.size())));
+        } finally {
+            lock.unlockRead(stamp);
         }
-        return list;
     }
 
     /**
-     * Returns the list of tasks.
+     * Removes every task from memory, leaving the task file untouched.
+     */
+    public synchronized void clear() {
+        long stamp = lock.writeLock();
+        try {
+            list = newList();
+            taskKeys.clear();
+            keywordIndex.clear();
+            timeIndex.clear();
+            nextId = 1;
+            isIndexed = true;
+            isDirty = false;
+            pendingAdds.setLength(0);
+            for (TaskListener listener : listeners) {
+                listener.tasksCleared();
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Adds a task to the list without saving it.
      *
-     * @return an {@code ArrayList} of tasks.
+     * @param task the task to be added.
      */
-    public static ArrayList<Task> getList() {
-        return list;
+    public synchronized void addList(Task task) {
+        long stamp = lock.writeLock();
+        try {
+            insert(task);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
     }
 
     /**
-     * Adds a task to the list.
+     * Deletes a task from the list by index without saving the change.
+     *
+     * @param index the 1-based index of the task to be deleted.
+     * @return the deleted task.
+     */
+    public synchronized Task deleteItem(int index) {
+        long stamp = lock.writeLock();
+        try {
+            return remove(index);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Marks the task at the given index as done without saving the change, keeping the duplicate index in sync.
+     *
+     * @param index the 1-based index of the task to be marked.
+     */
+    public void markItem(int index) {
+        setDone(index, true);
+    }
+
+    /**
+     * Marks the task at the given index as not done without saving the change, keeping the duplicate index in sync.
+     *
+     * @param index the 1-based index of the task to be unmarked.
+     */
+    public void unmarkItem(int index) {
+        setDone(index, false);
+    }
+
+    /**
+     * Adds a task to the list and saves it, unless an identical task is already stored.
      *
      * @param task the task to be added.
+     * @return true if the task was added, false if it is a duplicate.
+     * @throws IOException if the task was added but could not be saved.
      */
-    public static void addList(Task task) {
-        list.add(task);
+    public synchronized boolean add(Task task) throws IOException {
+        long stamp = lock.writeLock();
+        try {
+            buildIndexes();
+            if (taskKeys.contains(task, this::taskWithId)) {
+                return false;
+            }
+            insert(task);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        saveAdd(task);
+        return true;
     }
 
     /**
-     * Deletes a task from the list by index.
+     * Deletes the task at the given index and saves the change.
      *
      * @param index the 1-based index of the task to be deleted.
+     * @return the deleted task.
+     * @throws InvalidIndexException if there is no task at the index.
+     * @throws IOException if the task was deleted but the change could not be saved.
+     */
+    public synchronized Task delete(int index) throws InvalidIndexException, IOException {
+        checkIndex(index);
+        Task task = deleteItem(index);
+        saveDelete(task);
+        return task;
+    }
+
+    /**
+     * Marks the task at the given index as done and saves the change.
+     *
+     * @param index the 1-based index of the task to be marked.
+     * @return the marked task, or null if it was already done.
+     * @throws InvalidIndexException if there is no task at the index.
+     * @throws IOException if the task was marked but the change could not be saved.
+     */
+    public Task mark(int index) throws InvalidIndexException, IOException {
+        return changeStatus(index, true);
+    }
+
+    /**
+     * Marks the task at the given index as not done and saves the change.
+     *
+     * @param index the 1-based index of the task to be unmarked.
+     * @return the unmarked task, or null if it was already not done.
+     * @throws InvalidIndexException if there is no task at the index.
+     * @throws IOException if the task was unmarked but the change could not be saved.
+     */
+    public Task unmark(int index) throws InvalidIndexException, IOException {
+        return changeStatus(index, false);
+    }
+
+    private synchronized Task changeStatus(int index, boolean isDone) throws InvalidIndexException, IOException {
+        checkIndex(index);
+        if (getItem(index).isDone() == isDone) {
+            return null;
+        }
+        Task task = setDone(index, isDone);
+        saveStatus(task);
+        return task;
+    }
+
+    private synchronized Task setDone(int index, boolean isDone) {
+        long stamp = lock.writeLock();
+        try {
+            return updateStatus(index, isDone);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Checks that there is a task at the given index. Must be called holding the lock, or from a {@code synchronized}
+     * method, so that the list cannot shrink before the task is used.
+     */
+    private void checkIndex(int index) throws InvalidIndexException {
+        if (index < 1 || index > list.size()) {
+            throw new InvalidIndexException(index);
+        }
+    }
+
+    /**
+     * Returns the position of the task with the given id, found by binary search since ids increase down the list.
+     *
+     * @param id the id of the task.
+     * @return the 1-based index of the task, or 0 if no task has the id.
+     */
+    public int indexOfId(int id) {
+        long stamp = lock.readLock();
+        try {
+            int index = countIdsBelow(id);
+            return index < list.size() && idAt(index) == id ? index + 1 : 0;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Deletes every task in the range and saves the change with a single write, or a single journal append.
+     *
+     * @param range the tasks to delete; positions past the end of the list are ignored.
+     * @return the deleted tasks, in list order.
+     * @throws IOException if the tasks were deleted but the change could not be saved.
+     */
+    public List<Task> delete(TaskRange range) throws IOException {
+        return delete(TaskSelection.of(List.of(range)));
+    }
+
+    /**
+     * Deletes every task in the selection and saves the change with a single write, or a single journal append.
+     * The tasks left are moved up in one pass, however many tasks are deleted and wherever they are in the list.
+     *
+     * @param selection the tasks to delete; positions past the end of the list are ignored.
+     * @return the deleted tasks, in list order.
+     * @throws IOException if the tasks were deleted but the change could not be saved.
+     */
+    public synchronized List<Task> delete(TaskSelection selection) throws IOException {
+        if (selection.getKeywords() != null) {
+            ensureIndexed();
+        }
+        List<Task> deleted;
+        long stamp = lock.writeLock();
+        try {
+            deleted = removeAll(select(selection));
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        saveAll(deleted, Journal.Operation.DELETE);
+        return deleted;
+    }
+
+    /**
+     * Marks every task in the range as done and saves the change with a single write, or a single journal append.
+     *
+     * @param range the tasks to mark; positions past the end of the list are ignored.
+     * @return the tasks that were not already done, in list order.
+     * @throws IOException if the tasks were marked but the change could not be saved.
+     */
+    public List<Task> mark(TaskRange range) throws IOException {
+        return changeStatus(TaskSelection.of(List.of(range)), true);
+    }
+
+    /**
+     * Marks every task in the selection as done and saves the change with a single write, or a single journal
+     * append.
+     *
+     * @param selection the tasks to mark; positions past the end of the list are ignored.
+     * @return the tasks that were not already done, in list order.
+     * @throws IOException if the tasks were marked but the change could not be saved.
+     */
+    public List<Task> mark(TaskSelection selection) throws IOException {
+        return changeStatus(selection, true);
+    }
+
+    /**
+     * Marks every task in the range as not done and saves the change with a single write, or a single journal
+     * append.
+     *
+     * @param range the tasks to unmark; positions past the end of the list are ignored.
+     * @return the tasks that were done, in list order.
+     * @throws IOException if the tasks were unmarked but the change could not be saved.
+     */
+    public List<Task> unmark(TaskRange range) throws IOException {
+        return changeStatus(TaskSelection.of(List.of(range)), false);
+    }
+
+    /**
+     * Marks every task in the selection as not done and saves the change with a single write, or a single
+     * journal append.
+     *
+     * @param selection the tasks to unmark; positions past the end of the list are ignored.
+     * @return the tasks that were done, in list order.
+     * @throws IOException if the tasks were unmarked but the change could not be saved.
+     */
+    public List<Task> unmark(TaskSelection selection) throws IOException {
+        return changeStatus(selection, false);
+    }
+
+    private synchronized List<Task> changeStatus(TaskSelection selection, boolean isDone) throws IOException {
+        if (selection.getKeywords() != null) {
+            ensureIndexed();
+        }
+        List<Task> changed = new ArrayList<>();
+        long stamp = lock.writeLock();
+        try {
+            BitSet positions = select(selection);
+            for (int i = positions.nextSetBit(0); i >= 0; i = positions.nextSetBit(i + 1)) {
+                if (list.get(i).isDone() != isDone) {
+                    changed.add(updateStatus(i + 1, isDone));
+                }
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+        saveAll(changed, isDone ? Journal.Operation.MARK : Journal.Operation.UNMARK);
+        return changed;
+    }
+
+    /**
+     * Returns the 0-based positions of the tasks in the selection. Must be called holding the lock, and after the
+     * indexes are built if the selection searches for keywords.
+     */
+    private BitSet select(TaskSelection selection) {
+        BitSet positions = new BitSet(list.size());
+        for (TaskRange range : selection.getRanges()) {
+            int[] span = resolve(range);
+            positions.set(span[0], span[1]);
+        }
+        if (selection.getKeywords() != null) {
+            for (int id : keywordIndex.find(selection.getKeywords(), true)) {
+                positions.set(countIdsBelow(id));
+            }
+        }
+        if (selection.getFilter() != null) {
+            for (int i = 0; i < list.size(); i++) {
+                if (selection.getFilter().test(list.get(i))) {
+                    positions.set(i);
+                }
+            }
+        }
+        return positions;
+    }
+
+    /**
+     * Returns the 0-based positions {@code [start, end)} of the tasks in the range. Must be called holding the lock.
+     */
+    private int[] resolve(TaskRange range) {
+        if (range.isById()) {
+            int start = countIdsBelow(range.getFrom());
+            int end = range.getTo() == Integer.MAX_VALUE ? list.size() : countIdsBelow(range.getTo() + 1);
+            return new int[] {start, Math.max(start, end)};
+        }
+        int start = Math.max(range.getFrom(), 1) - 1;
+        return new int[] {start, Math.max(start, Math.min(range.getTo(), list.size()))};
+    }
+
+    /**
+     * Counts the tasks with an id below the given one, which is also the position of the first task with an id
+     * at least as large. Must be called holding the lock.
+     */
+    private int countIdsBelow(int id) {
+        int low = 0;
+        int high = list.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (idAt(mid) < id) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Checks whether a task with the same canonical key as the given task is already stored.
+     *
+     * @param task the task to look up.
+     * @return true if an identical task is in the list, false otherwise.
+     */
+    public boolean containsTask(Task task) {
+        ensureIndexed();
+        long stamp = lock.readLock();
+        try {
+            return taskKeys.contains(task, this::taskWithId);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Finds the tasks with a word starting with each of the given keywords.
+     *
+     * @param keywords the keywords to search for.
+     * @param isMatchAll true if a task must match every keyword, false if matching any keyword is enough.
+     * @return the matching tasks in list order.
+     */
+    public List<Task> findTasks(String keywords, boolean isMatchAll) {
+        ensureIndexed();
+        long stamp = lock.readLock();
+        try {
+            return tasksWithIds(keywordIndex.find(keywords, isMatchAll));
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Finds the deadlines due at or before the given time.
+     *
+     * @param by the latest due time to include.
+     * @return the deadlines, earliest first.
+     */
+    public List<Task> findDue(LocalDateTime by) {
+        ensureIndexed();
+        long stamp = lock.readLock();
+        try {
+            return tasksWithIds(timeIndex.due(by));
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Finds the deadlines due and the events taking place within a span of time, including its ends.
+     *
+     * @param from the start of the span.
+     * @param to the end of the span.
+     * @return the deadlines and events, ordered by due or start time.
+     */
+    public List<Task> findBetween(LocalDateTime from, LocalDateTime to) {
+        ensureIndexed();
+        long stamp = lock.readLock();
+        try {
+            return tasksWithIds(timeIndex.between(from, to));
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Finds the deadlines due and the events starting after the given time that are not done. The time index is
+     * used once it is built; until then, the tasks of a columnar or mapped store are looked through one at a time,
+     * without building the indexes or keeping any task but those returned.
+     *
+     * @param after the time to look from, not included.
+     * @return the deadlines and events that are not done, in no particular order.
+     */
+    public List<Task> findUpcoming(LocalDateTime after) {
+        long stamp = lock.readLock();
+        try {
+            if (isIndexed) {
+                List<Task> upcoming = tasksWithIds(timeIndex.after(after));
+                upcoming.removeIf(Task::isDone);
+                return upcoming;
+            }
+            List<Task> upcoming = new ArrayList<>();
+            for (int i = 0; i < list.size(); i++) {
+                if (list instanceof ColumnarTaskList) {
+                    ColumnarTaskList columns = (ColumnarTaskList) list;
+                    LocalDateTime time = columns.getTime(i);
+                    if (time != null && time.isAfter(after) && !columns.isDone(i)) {
+                        upcoming.add(columns.get(i));
+                    }
+                    continue;
+                }
+                Task task;
+                try {
+                    task = list instanceof MappedTaskList ? ((MappedTaskList) list).peek(i) : list.get(i);
+                } catch (IllegalStateException e) {
+                    // A line that is not a valid task fails the command that reads it, not this search
+                    continue;
+                }
+                LocalDateTime time = task instanceof Deadline ? ((Deadline) task).getBy()
+                        : task instanceof Event ? ((Event) task).getFrom() : null;
+                if (time != null && time.isAfter(after) && !task.isDone()) {
+                    upcoming.add(task);
+                }
+            }
+            return upcoming;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Finds the other events taking place at any time during the given event.
+     *
+     * @param event the event to compare against.
+     * @return the overlapping events, earliest start first.
+     */
+    public List<Task> findOverlapping(Event event) {
+        ensureIndexed();
+        long stamp = lock.readLock();
+        try {
+            List<Task> overlapping = tasksWithIds(timeIndex.overlapping(event.getFrom(), event.getEnd()));
+            overlapping.removeIf(task -> task.getId() == event.getId());
+            return overlapping;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Returns the tasks with the given ids, which are all in the list. Must be called holding the lock.
+     */
+    private List<Task> tasksWithIds(int[] ids) {
+        List<Task> tasks = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            tasks.add(taskWithId(id));
+        }
+        return tasks;
+    }
+
+    /**
+     * Returns the task with the given id, which is in the list. Must be called holding the lock.
      */
-    public static void deleteItem(int index) {
+    private Task taskWithId(int id) {
+        return list.get(countIdsBelow(id));
+    }
+
+    private void insert(Task task) {
+        if (task.getId() < nextId) {
+            task.setId(nextId);
+        }
+        nextId = task.getId() + 1;
+        list.add(task);
+        if (isIndexed) {
+            taskKeys.add(task);
+            keywordIndex.add(task);
+            timeIndex.add(task);
+        }
+        for (TaskListener listener : listeners) {
+            listener.taskAdded(task);
+        }
+    }
+
+    private Task remove(int index) {
         assert index >= 0 : "index cannot be less than 0";
-        list.remove(index - 1);
+        Task task = list.remove(index - 1);
+        forget(List.of(task));
+        return task;
     }
 
     /**
-     * Reads tasks from the file and populates the task list.
+     * Removes the tasks at the given 0-based positions, moving each task left at most once.
+     */
+    private List<Task> removeAll(BitSet positions) {
+        List<Task> removed = new ArrayList<>(positions.cardinality());
+        for (int i = positions.nextSetBit(0); i >= 0; i = positions.nextSetBit(i + 1)) {
+            removed.add(list.get(i));
+        }
+        if (list instanceof MappedTaskList) {
+            ((MappedTaskList) list).removeAt(positions);
+        } else if (list instanceof ColumnarTaskList) {
+            ((ColumnarTaskList) list).removeAt(positions);
+        } else {
+            int kept = 0;
+            for (int i = 0; i < list.size(); i++) {
+                if (!positions.get(i)) {
+                    list.set(kept++, list.get(i));
+                }
+            }
+            list.subList(kept, list.size()).clear();
+        }
+        forget(removed);
+        return removed;
+    }
+
+    private void forget(List<Task> tasks) {
+        if (isIndexed) {
+            keywordIndex.removeAll(tasks);
+            for (Task task : tasks) {
+                taskKeys.remove(task);
+                timeIndex.remove(task);
+            }
+        }
+        for (Task task : tasks) {
+            for (TaskListener listener : listeners) {
+                listener.taskRemoved(task);
+            }
+        }
+    }
+
+    private Task updateStatus(int index, boolean isDone) {
+        Task task = list.get(index - 1);
+        if (isDone) {
+            task.markAsDone();
+        } else {
+            task.markAsUndone();
+        }
+        if (list instanceof ColumnarTaskList) {
+            // The task is a copy of the stored values, so write it back; the indexes leave out the done status
+            list.set(index - 1, task);
+        }
+        for (TaskListener listener : listeners) {
+            listener.taskUpdated(task);
+        }
+        return task;
+    }
+
+    /**
+     * Builds the duplicate, keyword and time indexes if the tasks were loaded lazily, decoding every task. The
+     * indexes hold task ids, so tasks built from columns for them are dropped again.
+     */
+    private void ensureIndexed() {
+        if (isIndexed) {
+            return;
+        }
+        long stamp = lock.writeLock();
+        try {
+            buildIndexes();
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    private void buildIndexes() {
+        if (isIndexed) {
+            return;
+        }
+        for (Task task : list) {
+            taskKeys.add(task);
+            keywordIndex.add(task);
+            timeIndex.add(task);
+        }
+        isIndexed = true;
+    }
+
+    /**
+     * Reads tasks from the file and populates the task list. Text files are decoded on several threads by
+     * {@link ParallelTaskReader}, and lines of a text file that are not valid tasks are set aside in its
+     * {@link Quarantine} rather than stopping the load, after which the file is saved without them. Mapped files
+     * are only checked, and their lines set aside, when {@value MappedTaskList#VALIDATE_PROPERTY} is set.
      *
-     * @param filePath the path to the file containing the tasks.
      * @throws FileNotFoundException if the file is not found.
-     * @throws IllegalValueException if the file contains invalid data.
+     * @throws IllegalValueException if a binary file contains invalid data.
      */
-    private static void readTasks(String filePath) throws IOException, IllegalValueException {
+    private void readTasks() throws IOException, IllegalValueException {
         File file = new File(filePath);
 
         if (!file.getParentFile().exists()) {
@@ -97,51 +905,533 @@ public class Storage {
             file.createNewFile();
         }
 
-        Scanner s = new Scanner(file);
-        Task currTask;
-        while (s.hasNext()) {
-            String taskString = s.nextLine();
-            String taskDescription = taskString.substring(8);
-            if (taskString.startsWith("T ")) {
-                currTask = new ToDo(taskDescription);
-                list.add(currTask);
-                isDone(taskString, currTask);
-            } else if (taskString.startsWith("D ")) {
-                taskDescription = taskDescription.substring(0, taskDescription.indexOf("|") - 1);
-                String deadline = taskString.substring(8).replace(taskDescription, "").replace(" | ", "");
-                currTask = new Deadline(taskDescription, deadline);
-                list.add(currTask);
-                isDone(taskString, currTask);
-            } else if (taskString.startsWith("E ")) {
-                taskDescription = taskDescription.substring(0, taskDescription.indexOf("|") - 1);
-                String tempFrom = taskString.substring(8).replace(taskDescription + " ", "").substring(2);
-                String to = tempFrom.substring(tempFrom.indexOf("-") + 1);
-                String from = tempFrom.replace("-" + to, "");
-                currTask = new Event(taskDescription, from, to);
-                list.add(currTask);
-                isDone(taskString, currTask);
-            } else {
-                throw new IllegalValueException("Invalid File");
+        skippedLines = 0;
+        if (isMapped) {
+            MappedTaskList mapped = MappedTaskList.open(file.toPath());
+            if (Boolean.getBoolean(MappedTaskList.VALIDATE_PROPERTY)) {
+                try (Quarantine quarantine = new Quarantine(file.toPath())) {
+                    skippedLines = mapped.validate(quarantine);
+                }
+            }
+            list = mapped;
+            nextId = list.isEmpty() ? 1 : idAt(list.size() - 1) + 1;
+            isIndexed = false;
+            removeSkippedLines();
+            return;
+        }
+
+        if (isColumnar) {
+            // Leave the indexes to be built on first use, so that the loaded tasks are not held as objects until then
+            isIndexed = false;
+        }
+        if (BinaryTaskFile.isBinary(filePath)) {
+            for (Task task : BinaryTaskFile.read(file.toPath())) {
+                insert(task);
+            }
+            return;
+        }
+        // Lines are decoded without knowing the id before them; insert gives them their ids in file order
+        try (Quarantine quarantine = new Quarantine(file.toPath())) {
+            new ParallelTaskReader().read(file.toPath(), this::insert, quarantine);
+            skippedLines = quarantine.getCount();
+        }
+        removeSkippedLines();
+    }
+
+    /**
+     * Saves the loaded tasks over the task file if any of its lines were set aside in the quarantine, so that the
+     * next load does not set them aside again. Called while holding the write lock.
+     */
+    private void removeSkippedLines() throws IOException {
+        if (skippedLines == 0) {
+            return;
+        }
+        if (list instanceof MappedTaskList) {
+            writeMappedCopy((MappedTaskList) list);
+            ((MappedTaskList) list).remap(Paths.get(filePath));
+        } else if (journal != null) {
+            // The journal replays on top of the file by id, and the ids of the loaded tasks are saved with them
+            journal.replaceSnapshot(encode(filePath, list));
+        } else {
+            writeTasks();
+        }
+    }
+
+    /**
+     * Returns the number of lines of the task file that were not valid tasks and were left out of the last load.
+     * They are kept in the file returned by {@link #getQuarantinePath()}.
+     *
+     * @return the number of lines skipped.
+     */
+    public int getSkippedLineCount() {
+        return skippedLines;
+    }
+
+    /**
+     * Returns the file that lines of the task file which are not valid tasks are copied to when loading. The file
+     * only exists once a line has been set aside.
+     *
+     * @return the path of the quarantine file, next to the task file.
+     */
+    public Path getQuarantinePath() {
+        return Quarantine.pathFor(Paths.get(filePath));
+    }
+
+    /**
+     * Takes readings of the list, its indexes and the heap for the {@code stats} command. The indexes of tasks
+     * loaded lazily read as empty until they are first used.
+     *
+     * @return the readings by name, in the order they are to be shown.
+     */
+    public Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        long stamp = lock.readLock();
+        try {
+            stats.put("tasks", (long) list.size());
+            stats.put("index.keys", (long) taskKeys.size());
+            stats.put("index.keywords", (long) keywordIndex.size());
+            stats.put("index.times", (long) timeIndex.size());
+        } finally {
+            lock.unlockRead(stamp);
+        }
+        Runtime runtime = Runtime.getRuntime();
+        stats.put("heap.usedBytes", runtime.totalMemory() - runtime.freeMemory());
+        stats.put("heap.committedBytes", runtime.totalMemory());
+        stats.put("heap.maxBytes", runtime.maxMemory());
+        return stats;
+    }
+
+    /**
+     * Reads every task from a task file in the text format.
+     *
+     * @param file the file containing the tasks.
+     * @return the tasks in file order.
+     * @throws FileNotFoundException if the file is not found.
+     * @throws IllegalValueException if the file contains invalid data.
+     */
+    static List<Task> readTextTasks(File file) throws FileNotFoundException, IllegalValueException {
+        List<Task> tasks = new ArrayList<>();
+        int lastId = 0;
+        try (Scanner s = new Scanner(file)) {
+            while (s.hasNext()) {
+                Task task = parseLine(s.nextLine(), lastId);
+                lastId = task.getId();
+                tasks.add(task);
             }
         }
+        return tasks;
     }
 
-    private static void isDone(String taskString, Task currTask) {
-        if (taskString.substring(4).startsWith("X")) {
-            currTask.markAsDone();
+    /**
+     * Returns the line of the text task file holding a task: its id followed by the task as shown to the user, with
+     * its description escaped.
+     *
+     * @param task the task to encode.
+     * @return the line for the task, without a line break.
+     */
+    static String toLine(Task task) {
+        return task.getId() + ID_SEPARATOR + toTaskLine(task);
+    }
+
+    /**
+     * Returns the task as shown to the user, with its description escaped so that it can be read back from the
+     * task file or the journal.
+     *
+     * @param task the task to encode.
+     * @return the task line, without an id or a line break.
+     * @see TaskLineTokenizer#escape
+     */
+    static String toTaskLine(Task task) {
+        String line = task.toString();
+        String description = task.getDescription();
+        String escaped = TaskLineTokenizer.escape(description);
+        if (escaped == description) {
+            return line;
+        }
+        return line.substring(0, DESCRIPTION_START) + escaped
+                + line.substring(DESCRIPTION_START + description.length());
+    }
+
+    /**
+     * Decodes a line of the text task file, which starts with the id of the task in files written since ids were
+     * saved. A line without an id, or with an id no greater than {@code lastId}, is given the id {@code lastId + 1},
+     * so that older files are numbered by line and ids always increase down the file.
+     *
+     * @param line the line to decode.
+     * @param lastId the id of the task on the line before, or 0 for the first line.
+     * @return the task described by the line, with its id set.
+     * @throws IllegalValueException if the line is not a valid task.
+     */
+    static Task parseLine(String line, int lastId) throws IllegalValueException {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        return parseLine(new TaskLineTokenizer(), bytes, 0, bytes.length, lastId);
+    }
+
+    /**
+     * Decodes the line in {@code [start, end)} of the given bytes, as {@link #parseLine(String, int)} does.
+     *
+     * @param tokenizer the tokenizer to split the line with.
+     * @param bytes the UTF-8 bytes holding the line.
+     * @param start the position of the first byte of the line.
+     * @param end the position just after the last byte of the line.
+     * @param lastId the id of the task on the line before, or 0 for the first line.
+     * @return the task described by the line, with its id set.
+     * @throws IllegalValueException if the line is not a valid task.
+     */
+    static Task parseLine(TaskLineTokenizer tokenizer, byte[] bytes, int start, int end, int lastId)
+            throws IllegalValueException {
+        tokenizer.tokenize(bytes, start, end);
+        Task task = tokenizer.toTask();
+        task.setId(tokenizer.getId() > lastId ? tokenizer.getId() : lastId + 1);
+        return task;
+    }
+
+    /**
+     * Decodes a single line of the task file into a task, ignoring any id at its start.
+     *
+     * @param taskString the line to decode.
+     * @return the task described by the line.
+     * @throws IllegalValueException if the line is not a valid task.
+     */
+    static Task parseTask(String taskString) throws IllegalValueException {
+        TaskLineTokenizer tokenizer = new TaskLineTokenizer();
+        byte[] bytes = taskString.getBytes(StandardCharsets.UTF_8);
+        tokenizer.tokenize(bytes, 0, bytes.length);
+        return tokenizer.toTask();
+    }
+
+    /**
+     * Reads the task file as a snapshot and replays the journal on top of it, first finishing any compaction
+     * that was interrupted.
+     */
+    private void readJournaledTasks() throws IOException, IllegalValueException {
+        boolean isCompacting = journal.recover();
+        readTasks();
+        if (isCompacting) {
+            replay(journal.readCompacting());
+            journal.writeSnapshot(encode(filePath, list));
+        }
+        replay(journal.open());
+    }
+
+    private void replay(List<Journal.Record> records) throws IllegalValueException {
+        for (Journal.Record record : records) {
+            switch (record.getOperation()) {
+            case ADD:
+                nextId = record.getId();
+                insert(parseTask(record.getTaskLine()));
+                break;
+            case DELETE:
+                remove(findIndex(record.getId()));
+                break;
+            case MARK:
+                updateStatus(findIndex(record.getId()), true);
+                break;
+            case UNMARK:
+                updateStatus(findIndex(record.getId()), false);
+                break;
+            default:
+                throw new IllegalValueException("Invalid Journal");
+            }
         }
     }
 
+    /**
+     * Finds the position of a task by id. Tasks are only ever appended, so ids increase along the list.
+     *
+     * @return the 1-based index of the task.
+     */
+    private int findIndex(int id) throws IllegalValueException {
+        int index = countIdsBelow(id);
+        if (index == list.size() || idAt(index) != id) {
+            throw new IllegalValueException("Invalid Journal");
+        }
+        return index + 1;
+    }
+
+    private int idAt(int index) {
+        if (list instanceof MappedTaskList) {
+            return ((MappedTaskList) list).getId(index);
+        }
+        return list instanceof ColumnarTaskList ? ((ColumnarTaskList) list).getId(index) : list.get(index).getId();
+    }
+
+    /**
+     * Encodes the tasks in the format selected by the extension of the task file.
+     *
+     * @param filePath the path to the task file.
+     * @param tasks the tasks to encode.
+     * @return the contents of the task file.
+     */
+    static byte[] encode(String filePath, List<Task> tasks) {
+        if (BinaryTaskFile.isBinary(filePath)) {
+            return BinaryTaskFile.encode(tasks);
+        }
+        if (tasks instanceof MappedTaskList) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try {
+                ((MappedTaskList) tasks).writeTo(bytes);
+            } catch (IOException e) {
+                throw new AssertionError("Writing to memory cannot fail", e);
+            }
+            return bytes.toByteArray();
+        }
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < tasks.size(); i++) {
+            if (i > 0) {
+                text.append('\n');
+            }
+            text.append(toLine(tasks.get(i)));
+        }
+        return text.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Saves a task that was just added to the list.
+     *
+     * @param task the added task.
+     * @throws IOException if an I/O error occurs.
+     */
+    public synchronized void saveAdd(Task task) throws IOException {
+        if (journal != null) {
+            journal.append(Journal.Operation.ADD, task.getId(), toTaskLine(task));
+            compactIfNeeded();
+            return;
+        }
+        if (isBatching) {
+            if (BinaryTaskFile.isBinary(filePath)) {
+                isDirty = true;
+            } else if (!isDirty) {
+                if (list.size() > 1) {
+                    pendingAdds.append('\n');
+                }
+                pendingAdds.append(toLine(task));
+            }
+            return;
+        }
+        if (BinaryTaskFile.isBinary(filePath)) {
+            long start = Metrics.start();
+            StorageEvent event = new StorageEvent();
+            event.begin();
+            long sizeBefore = Metrics.isEnabled() || event.isEnabled() ? Files.size(Paths.get(filePath)) : 0;
+            BinaryTaskFile.append(Paths.get(filePath), task);
+            Metrics.stop(APPEND_LATENCY, start);
+            event.end();
+            if (Metrics.isEnabled() || event.shouldCommit()) {
+                long bytes = Files.size(Paths.get(filePath)) - sizeBefore;
+                Metrics.add(BYTES_WRITTEN, bytes);
+                event.setDetails(StorageEvent.APPEND, filePath, bytes, 1);
+                event.commit();
+            }
+            return;
+        }
+        if (list.size() > 1) {
+            appendToFile("\n");
+        }
+        appendToFile(toLine(task));
+    }
+
+    /**
+     * Saves the removal of a task that was just deleted from the list.
+     *
+     * @param task the deleted task.
+     * @throws IOException if an I/O error occurs.
+     */
+    public synchronized void saveDelete(Task task) throws IOException {
+        if (journal != null) {
+            journal.append(Journal.Operation.DELETE, task.getId(), null);
+            compactIfNeeded();
+            return;
+        }
+        if (isBatching) {
+            isDirty = true;
+            return;
+        }
+        writeToFile();
+    }
+
+    /**
+     * Saves the done status of a task that was just marked or unmarked.
+     *
+     * @param task the changed task.
+     * @throws IOException if an I/O error occurs.
+     */
+    public synchronized void saveStatus(Task task) throws IOException {
+        if (journal != null) {
+            journal.append(task.isDone() ? Journal.Operation.MARK : Journal.Operation.UNMARK, task.getId(), null);
+            compactIfNeeded();
+            return;
+        }
+        if (isBatching) {
+            isDirty = true;
+            return;
+        }
+        writeToFile();
+    }
+
+    /**
+     * Saves a change made to many tasks at once: one rewrite of the file, or one append of all their records to
+     * the journal.
+     */
+    private void saveAll(List<Task> tasks, Journal.Operation operation) throws IOException {
+        if (tasks.isEmpty()) {
+            return;
+        }
+        if (journal != null) {
+            if (!isBatching) {
+                journal.setBuffered(true);
+            }
+            try {
+                for (Task task : tasks) {
+                    journal.append(operation, task.getId(), null);
+                }
+            } finally {
+                if (!isBatching) {
+                    journal.setBuffered(false);
+                }
+            }
+            compactIfNeeded();
+            return;
+        }
+        if (isBatching) {
+            isDirty = true;
+            return;
+        }
+        writeToFile();
+    }
+
+    /**
+     * Starts holding the writes made by {@link #saveAdd(Task)}, {@link #saveDelete(Task)} and
+     * {@link #saveStatus(Task)} in memory, so that a run of commands is saved with a single write by
+     * {@link #flush()} or {@link #endBatch()}.
+     *
+     * @throws IOException if an I/O error occurs.
+     */
+    public synchronized void beginBatch() throws IOException {
+        isBatching = true;
+        if (journal != null) {
+            journal.setBuffered(true);
+        }
+    }
+
+    /**
+     * Saves every change held since the batch began or was last flushed. Added tasks alone are appended to the
+     * file in one write, and any other change rewrites the file once.
+     *
+     * @throws IOException if an I/O error occurs.
+     */
+    public synchronized void flush() throws IOException {
+        long start = Metrics.start();
+        if (journal != null) {
+            journal.flush();
+        } else if (isDirty) {
+            writeToFile();
+        } else if (pendingAdds.length() > 0) {
+            appendToFile(pendingAdds.toString());
+        }
+        isDirty = false;
+        pendingAdds.setLength(0);
+        Metrics.add(FLUSHES, 1);
+        Metrics.stop(FLUSH_LATENCY, start);
+    }
+
+    /**
+     * Flushes any held changes and goes back to saving every change as it is made.
+     *
+     * @throws IOException if an I/O error occurs.
+     */
+    public synchronized void endBatch() throws IOException {
+        try {
+            flush();
+        } finally {
+            isBatching = false;
+            if (journal != null) {
+                journal.setBuffered(false);
+            }
+        }
+    }
+
+    /**
+     * Compacts the journal once it has grown past its limit. Only the references or columns of the tasks are
+     * copied here; they are encoded on the compactor's thread, so that a command does not wait for every task to be
+     * written out.
+     */
+    /**
+     * Saves any changes held by a batch and closes the journal, waiting for a compaction in progress to finish.
+     * The tasks must not be changed afterwards.
+     *
+     * @throws IOException if the held changes could not be saved or the journal could not be closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            if (isBatching) {
+                endBatch();
+            }
+        } finally {
+            if (journal != null) {
+                journal.close();
+            }
+        }
+    }
+
+    private void compactIfNeeded() throws IOException {
+        if (journal.needsCompaction()) {
+            List<Task> tasks = copyList();
+            journal.compact(() -> encode(filePath, tasks));
+        }
+    }
+
+    /**
+     * Copies the list so that it can be read on another thread while this one goes on changing the tasks. Tasks
+     * held as objects are shared with the copy, so a task marked after the copy is taken may be written as marked;
+     * the journal records the change as well, and replaying it gives the same status.
+     */
+    private List<Task> copyList() {
+        if (list instanceof MappedTaskList) {
+            return ((MappedTaskList) list).copy();
+        }
+        if (list instanceof ColumnarTaskList) {
+            return ((ColumnarTaskList) list).copy();
+        }
+        return new ArrayList<>(list);
+    }
+
     /**
      * Appends the specified text to the file.
      *
      * @param text the text to be appended to the file.
      * @throws IOException if an I/O error occurs.
      */
-    public static void appendToFile(String text) throws IOException {
+    public synchronized void appendToFile(String text) throws IOException {
+        long start = Metrics.start();
+        StorageEvent event = new StorageEvent();
+        event.begin();
         FileWriter fileWriter = new FileWriter(filePath, true);
         fileWriter.write(text);
         fileWriter.close();
+        Metrics.stop(APPEND_LATENCY, start);
+        event.end();
+        if (Metrics.isEnabled() || event.shouldCommit()) {
+            int bytes = text.getBytes(StandardCharsets.UTF_8).length;
+            Metrics.add(BYTES_WRITTEN, bytes);
+            event.setDetails(StorageEvent.APPEND, filePath, bytes, countLines(text));
+            event.commit();
+        }
+    }
+
+    /**
+     * Counts the lines in text appended to the task file, where every line holds a task.
+     */
+    private static int countLines(String text) {
+        int lines = 0;
+        boolean isInLine = false;
+        for (int i = 0; i < text.length(); i++) {
+            boolean isBreak = text.charAt(i) == '\n';
+            lines += !isBreak && !isInLine ? 1 : 0;
+            isInLine = !isBreak;
+        }
+        return lines;
     }
 
     /**
@@ -149,18 +1439,58 @@ public class Storage {
      *
      * @throws IOException if an I/O error occurs.
      */
-    public static void writeToFile() throws IOException {
-        FileWriter fileWriter = new FileWriter(filePath);
-        for (int i = 0; i < list.size(); i++) {
-            if (i == list.size() - 1) {
-                String temp = list.get(i).toString();
-                fileWriter.write(temp);
-            } else {
-                String temp = list.get(i).toString();
-                fileWriter.write(temp + "\n");
+    public synchronized void writeToFile() throws IOException {
+        long start = Metrics.start();
+        StorageEvent event = new StorageEvent();
+        event.begin();
+        try {
+            writeTasks();
+        } finally {
+            Metrics.stop(WRITE_LATENCY, start);
+        }
+        event.end();
+        if (Metrics.isEnabled() || event.shouldCommit()) {
+            long bytes = Files.size(Paths.get(filePath));
+            Metrics.add(BYTES_WRITTEN, bytes);
+            event.setDetails(StorageEvent.WRITE, filePath, bytes, list.size());
+            event.commit();
+        }
+    }
+
+    private void writeTasks() throws IOException {
+        if (BinaryTaskFile.isBinary(filePath)) {
+            Files.write(Paths.get(filePath), BinaryTaskFile.encode(list));
+            return;
+        }
+        if (list instanceof MappedTaskList) {
+            MappedTaskList mapped = (MappedTaskList) list;
+            writeMappedCopy(mapped);
+            // Read undecoded lines from the new file from now on, so the replaced one is not kept mapped
+            long stamp = lock.writeLock();
+            try {
+                mapped.remap(Paths.get(filePath));
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+            return;
+        }
+        try (Writer writer = new BufferedWriter(new FileWriter(filePath))) {
+            for (int i = 0; i < list.size(); i++) {
+                if (i > 0) {
+                    writer.write('\n');
+                }
+                writer.write(toLine(list.get(i)));
             }
         }
-        fileWriter.close();
+    }
+
+    private void writeMappedCopy(MappedTaskList mapped) throws IOException {
+        // The file is still mapped, so write a copy and swap it in rather than truncating it
+        Path tmpPath = Paths.get(filePath + MAPPED_TMP_SUFFIX);
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmpPath))) {
+            mapped.writeTo(out);
+        }
+        Files.move(tmpPath, Paths.get(filePath), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
     }
 
     /**
@@ -177,6 +1507,21 @@ public class Storage {
         }
     }
 
+    /**
+     * Signals that a task number does not name a task in the list, for example because another request deleted
+     * the task first.
+     */
+    public static class InvalidIndexException extends Exception {
+        /**
+         * Constructs a new {@code InvalidIndexException} for the given task number.
+         *
+         * @param index the 1-based index that is not in the list.
+         */
+        public InvalidIndexException(int index) {
+            super("There is no task " + index);
+        }
+    }
+
     /**
      * Handles illegal values in the task data.
      */
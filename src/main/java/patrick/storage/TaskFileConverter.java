@@ -0,0 +1,48 @@
+package patrick.storage;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+
+import patrick.storage.Storage.IllegalValueException;
+import patrick.tasklist.Task;
+
+/**
+ * Converts a task file between the text and binary formats, choosing each format by file extension.
+ */
+public class TaskFileConverter {
+    /**
+     * Converts the task file named by the first argument into the file named by the second.
+     *
+     * @param args the source and destination file paths.
+     */
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.out.println("Usage: TaskFileConverter <source> <destination>");
+            return;
+        }
+        try {
+            convert(args[0], args[1]);
+        } catch (IOException | IllegalValueException e) {
+            System.out.println("Could not convert " + args[0] + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads every task from the source file and writes them to the destination file.
+     *
+     * @param source the path to the file to read.
+     * @param destination the path to the file to write.
+     * @throws IOException if an I/O error occurs.
+     * @throws IllegalValueException if the source file contains invalid data.
+     */
+    public static void convert(String source, String destination) throws IOException, IllegalValueException {
+        File file = new File(source);
+        List<Task> tasks = BinaryTaskFile.isBinary(source)
+                ? BinaryTaskFile.read(file.toPath())
+                : Storage.readTextTasks(file);
+        Files.write(Paths.get(destination), Storage.encode(destination, tasks));
+    }
+}
@@ -0,0 +1,318 @@
+package patrick.storage;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.Month;
+import java.time.Year;
+
+import patrick.storage.Storage.IllegalValueException;
+import patrick.tasklist.Deadline;
+import patrick.tasklist.Event;
+import patrick.tasklist.Task;
+import patrick.tasklist.ToDo;
+
+/**
+ * Splits a line of the text task file into its fields in a single pass over its UTF-8 bytes.
+ * <p>
+ * A line is an optional id, the task type, its status, its description and, for deadlines and events, its date,
+ * separated by {@code " | "}. Fields are found as offsets into the bytes, and a field is only turned into a
+ * {@code String} or a date when the task is built. The date is always the last field, so a {@code |} left
+ * unescaped in the description of a file written before descriptions were escaped is still read as part of it.
+ * <p>
+ * In descriptions, {@code \} is written as {@code \\}, {@code |} as {@code \|} and line breaks as {@code \n} and
+ * {@code \r}, so that a description never ends its field or its line early. Any other character after a
+ * {@code \} is kept along with the {@code \}.
+ * <p>
+ * A tokenizer can be reused for any number of lines, but only by one thread at a time.
+ */
+public class TaskLineTokenizer {
+    private static final byte SEPARATOR = '|';
+    private static final byte ESCAPE = '\\';
+    private static final String[] MONTHS = {"Jan", "Feb", "Mar", "Apr", "May", "Jun", "Jul", "Aug", "Sep", "Oct",
+        "Nov", "Dec"};
+    /** Offset of the description from the task type: {@code "T | O | "}. */
+    private static final int DESCRIPTION_OFFSET = 8;
+
+    private byte[] bytes;
+    private int id;
+    private byte type;
+    private boolean isDone;
+    private int descriptionStart;
+    private int descriptionEnd;
+    private boolean isEscaped;
+    private int dateStart;
+    private int dateEnd;
+
+    /**
+     * Splits the line in {@code [start, end)} of the given bytes into fields, replacing the fields of the line
+     * before.
+     *
+     * @param bytes the bytes holding the line, without its line break.
+     * @param start the position of the first byte of the line.
+     * @param end the position just after the last byte of the line.
+     * @throws IllegalValueException if the line is not made up of the fields of a known task type.
+     */
+    public void tokenize(byte[] bytes, int start, int end) throws IllegalValueException {
+        this.bytes = bytes;
+        id = 0;
+        int digits = 0;
+        int savedId = 0;
+        while (start + digits < end && digits <= Storage.MAX_ID_DIGITS && isDigit(bytes[start + digits])) {
+            savedId = savedId * 10 + bytes[start + digits] - '0';
+            digits++;
+        }
+        if (digits > 0 && digits <= Storage.MAX_ID_DIGITS && isSeparator(start + digits, end)) {
+            id = savedId;
+            start += digits + Storage.ID_SEPARATOR.length();
+        }
+        if (end - start < DESCRIPTION_OFFSET || !isSeparator(start + 1, end) || !isSeparator(start + 5, end)) {
+            throw new IllegalValueException("Malformed task");
+        }
+        type = bytes[start];
+        if (type != 'T' && type != 'D' && type != 'E') {
+            throw new IllegalValueException("Unknown task type");
+        }
+        isDone = bytes[start + 4] == 'X';
+        descriptionStart = start + DESCRIPTION_OFFSET;
+        descriptionEnd = end;
+        dateStart = end;
+        dateEnd = end;
+        isEscaped = false;
+        int lastSeparator = -1;
+        for (int i = descriptionStart; i < end; i++) {
+            if (bytes[i] == ESCAPE) {
+                isEscaped = true;
+                i++;
+            } else if (bytes[i] == SEPARATOR) {
+                lastSeparator = i;
+            }
+        }
+        if (type == 'T') {
+            return;
+        }
+        if (lastSeparator < 0) {
+            throw new IllegalValueException("Missing date");
+        }
+        descriptionEnd = lastSeparator > descriptionStart && bytes[lastSeparator - 1] == ' '
+                ? lastSeparator - 1 : lastSeparator;
+        dateStart = lastSeparator + 1 < end && bytes[lastSeparator + 1] == ' ' ? lastSeparator + 2 : lastSeparator + 1;
+    }
+
+    /**
+     * Returns the id at the start of the line.
+     *
+     * @return the id, or 0 if the line does not start with one.
+     */
+    public int getId() {
+        return id;
+    }
+
+    public char getType() {
+        return (char) type;
+    }
+
+    public boolean isDone() {
+        return isDone;
+    }
+
+    /**
+     * Returns the description of the task, with its escapes undone.
+     *
+     * @return the description.
+     */
+    public String getDescription() {
+        if (!isEscaped) {
+            return new String(bytes, descriptionStart, descriptionEnd - descriptionStart, StandardCharsets.UTF_8);
+        }
+        byte[] unescaped = new byte[descriptionEnd - descriptionStart];
+        int length = 0;
+        for (int i = descriptionStart; i < descriptionEnd; i++) {
+            byte b = bytes[i];
+            if (b == ESCAPE && i + 1 < descriptionEnd) {
+                byte next = bytes[i + 1];
+                if (next == ESCAPE || next == SEPARATOR || next == 'n' || next == 'r') {
+                    b = next == 'n' ? (byte) '\n' : next == 'r' ? (byte) '\r' : next;
+                    i++;
+                }
+            }
+            unescaped[length++] = b;
+        }
+        return new String(unescaped, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Builds the task described by the line last split, without setting its id.
+     *
+     * @return the task.
+     * @throws java.time.DateTimeException if the date of a deadline or event is not in a known format.
+     */
+    public Task toTask() {
+        String description = getDescription();
+        Task task;
+        if (type == 'T') {
+            task = new ToDo(description);
+        } else if (type == 'D') {
+            LocalDateTime by = parseDateTime(dateStart, dateEnd);
+            task = by != null ? new Deadline(description, by) : new Deadline(description, text(dateStart, dateEnd));
+        } else {
+            int dash = findDash();
+            LocalDateTime from = dash < dateStart ? null : parseDateTime(dateStart, dash);
+            LocalTime to = dash < dateStart ? null : parseTime(dash + 1, dateEnd);
+            if (from != null && to != null) {
+                task = new Event(description, from, to);
+            } else if (dash < dateStart) {
+                task = new Event(description, text(dateStart, dateEnd), "");
+            } else {
+                task = new Event(description, text(dateStart, dash), text(dash + 1, dateEnd));
+            }
+        }
+        if (isDone) {
+            task.markAsDone();
+        }
+        return task;
+    }
+
+    /**
+     * Checks that the line last split can be built into a task, without building it when its dates are in the
+     * format tasks are saved in.
+     *
+     * @throws java.time.DateTimeException if the date of a deadline or event is not in a known format.
+     */
+    public void checkDates() {
+        boolean isSavedFormat;
+        if (type == 'T') {
+            isSavedFormat = true;
+        } else if (type == 'D') {
+            isSavedFormat = parseDateTime(dateStart, dateEnd) != null;
+        } else {
+            int dash = findDash();
+            isSavedFormat = dash >= dateStart && parseDateTime(dateStart, dash) != null
+                    && parseTime(dash + 1, dateEnd) != null;
+        }
+        if (!isSavedFormat) {
+            // Other formats are left to DateFormatChecker, as they are when the task is built
+            toTask();
+        }
+    }
+
+    /**
+     * Returns the position of the {@code -} between the start and end of an event, or a position before the
+     * date if there is none.
+     */
+    private int findDash() {
+        int dash = dateEnd - 1;
+        while (dash >= dateStart && bytes[dash] != '-') {
+            dash--;
+        }
+        return dash;
+    }
+
+    /**
+     * Escapes a description so that it can be written as a field of the text task file.
+     *
+     * @param description the description to escape.
+     * @return the escaped description, which is {@code description} itself if nothing needed escaping.
+     */
+    public static String escape(String description) {
+        int first = 0;
+        while (first < description.length() && !needsEscape(description.charAt(first))) {
+            first++;
+        }
+        if (first == description.length()) {
+            return description;
+        }
+        StringBuilder escaped = new StringBuilder(description.length() + 8).append(description, 0, first);
+        for (int i = first; i < description.length(); i++) {
+            char c = description.charAt(i);
+            if (c == '\n') {
+                escaped.append("\\n");
+            } else if (c == '\r') {
+                escaped.append("\\r");
+            } else {
+                escaped.append(needsEscape(c) ? "\\" : "").append(c);
+            }
+        }
+        return escaped.toString();
+    }
+
+    private static boolean needsEscape(char c) {
+        return c == ESCAPE || c == SEPARATOR || c == '\n' || c == '\r';
+    }
+
+    private boolean isSeparator(int position, int end) {
+        return position + 2 < end && bytes[position] == ' ' && bytes[position + 1] == SEPARATOR
+                && bytes[position + 2] == ' ';
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private String text(int start, int end) {
+        return new String(bytes, start, end - start, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads a date in the format tasks are saved in, {@code MMM d yyyy HHmm}, straight from the bytes.
+     *
+     * @return the date, or null if it is in any other form, to be parsed by {@code DateFormatChecker} instead.
+     */
+    private LocalDateTime parseDateTime(int start, int end) {
+        int length = end - start;
+        if (length < "Jan 1 2000 0000".length() || length > "Jan 01 2000 0000".length() || bytes[start + 3] != ' ') {
+            return null;
+        }
+        int month = 0;
+        while (month < MONTHS.length && !isMonth(start, MONTHS[month])) {
+            month++;
+        }
+        int dayDigits = length - "Jan  2000 0000".length();
+        int day = number(start + 4, dayDigits);
+        int yearStart = start + 5 + dayDigits;
+        int year = number(yearStart, 4);
+        LocalTime time = bytes[yearStart - 1] == ' ' && bytes[yearStart + 4] == ' '
+                ? parseTime(yearStart + 5, end) : null;
+        if (month == MONTHS.length || day < 1 || year < 0 || time == null
+                || day > Month.of(month + 1).length(Year.isLeap(year))) {
+            return null;
+        }
+        return LocalDateTime.of(LocalDate.of(year, month + 1, day), time);
+    }
+
+    private boolean isMonth(int start, String month) {
+        return bytes[start] == month.charAt(0) && bytes[start + 1] == month.charAt(1)
+                && bytes[start + 2] == month.charAt(2);
+    }
+
+    /**
+     * Reads a time in the form {@code HHmm} straight from the bytes.
+     *
+     * @return the time, or null if it is in any other form.
+     */
+    private LocalTime parseTime(int start, int end) {
+        if (end - start != 4) {
+            return null;
+        }
+        int hour = number(start, 2);
+        int minute = number(start + 2, 2);
+        return hour < 0 || hour > 23 || minute < 0 || minute > 59 ? null : LocalTime.of(hour, minute);
+    }
+
+    /**
+     * Reads a number of the given count of digits.
+     *
+     * @return the number, or -1 if any of the bytes is not a digit.
+     */
+    private int number(int start, int digits) {
+        int value = 0;
+        for (int i = start; i < start + digits; i++) {
+            if (!isDigit(bytes[i])) {
+                return -1;
+            }
+            value = value * 10 + bytes[i] - '0';
+        }
+        return digits == 0 ? -1 : value;
+    }
+}
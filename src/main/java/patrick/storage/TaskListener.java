@@ -0,0 +1,37 @@
+package patrick.storage;
+
+import patrick.tasklist.Task;
+
+/**
+ * Receives the changes made to the tasks held by a {@link Storage}.
+ * <p>
+ * Methods are called on the thread making the change while the store is locked, so they should return quickly
+ * and must not call back into the store.
+ */
+public interface TaskListener {
+    /**
+     * Called after a task is added.
+     *
+     * @param task the added task.
+     */
+    void taskAdded(Task task);
+
+    /**
+     * Called after a task is deleted.
+     *
+     * @param task the deleted task.
+     */
+    void taskRemoved(Task task);
+
+    /**
+     * Called after a task is marked as done or not done.
+     *
+     * @param task the changed task.
+     */
+    void taskUpdated(Task task);
+
+    /**
+     * Called after every task is removed from memory.
+     */
+    void tasksCleared();
+}
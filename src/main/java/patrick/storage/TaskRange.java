@@ -0,0 +1,60 @@
+package patrick.storage;
+
+/**
+ * Picks out a run of tasks, either by their 1-based positions in the list or by their ids, both ends included.
+ * Ids increase down the list, so the tasks with ids in a range are always next to each other.
+ */
+public class TaskRange {
+    private final int from;
+    private final int to;
+    private final boolean isById;
+
+    private TaskRange(int from, int to, boolean isById) {
+        this.from = from;
+        this.to = to;
+        this.isById = isById;
+    }
+
+    /**
+     * Creates a range of tasks by position.
+     *
+     * @param from the 1-based position of the first task.
+     * @param to the 1-based position of the last task.
+     * @return the range.
+     */
+    public static TaskRange ofIndexes(int from, int to) {
+        return new TaskRange(from, to, false);
+    }
+
+    /**
+     * Creates a range of tasks by id. Ids in the range with no task are skipped.
+     *
+     * @param from the lowest id.
+     * @param to the highest id.
+     * @return the range.
+     */
+    public static TaskRange ofIds(int from, int to) {
+        return new TaskRange(from, to, true);
+    }
+
+    public int getFrom() {
+        return from;
+    }
+
+    public int getTo() {
+        return to;
+    }
+
+    public boolean isById() {
+        return isById;
+    }
+
+    /**
+     * Returns whether the range names a single task.
+     *
+     * @return true if both ends of the range are the same.
+     */
+    public boolean isSingle() {
+        return from == to;
+    }
+}
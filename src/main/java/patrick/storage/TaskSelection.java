@@ -0,0 +1,65 @@
+package patrick.storage;
+
+import java.util.List;
+import java.util.function.Predicate;
+
+import patrick.tasklist.Task;
+
+/**
+ * Picks out the tasks a bulk {@code mark}, {@code unmark} or {@code delete} acts on: any number of ranges of
+ * positions or ids, the tasks matching a search, or the tasks passing a filter. The tasks picked out need not be
+ * next to each other, and a task picked out more than once is only changed once.
+ */
+public class TaskSelection {
+    private final List<TaskRange> ranges;
+    private final String keywords;
+    private final Predicate<Task> filter;
+
+    private TaskSelection(List<TaskRange> ranges, String keywords, Predicate<Task> filter) {
+        this.ranges = ranges;
+        this.keywords = keywords;
+        this.filter = filter;
+    }
+
+    /**
+     * Selects the tasks in any of the given ranges.
+     *
+     * @param ranges the ranges of tasks, which may overlap.
+     * @return the selection.
+     */
+    public static TaskSelection of(List<TaskRange> ranges) {
+        return new TaskSelection(List.copyOf(ranges), null, null);
+    }
+
+    /**
+     * Selects the tasks with a word starting with each of the given keywords, as {@code find} does.
+     *
+     * @param keywords the keywords, separated by spaces.
+     * @return the selection.
+     */
+    public static TaskSelection matching(String keywords) {
+        return new TaskSelection(List.of(), keywords, null);
+    }
+
+    /**
+     * Selects the tasks that pass the given filter.
+     *
+     * @param filter the test each selected task passes.
+     * @return the selection.
+     */
+    public static TaskSelection filter(Predicate<Task> filter) {
+        return new TaskSelection(List.of(), null, filter);
+    }
+
+    public List<TaskRange> getRanges() {
+        return ranges;
+    }
+
+    public String getKeywords() {
+        return keywords;
+    }
+
+    public Predicate<Task> getFilter() {
+        return filter;
+    }
+}
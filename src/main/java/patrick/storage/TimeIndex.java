@@ -0,0 +1,193 @@
+package patrick.storage;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import patrick.tasklist.Deadline;
+import patrick.tasklist.Event;
+import patrick.tasklist.Task;
+
+/**
+ * Orders deadlines by when they are due and events by when they start, so tasks in a span of time are found
+ * without scanning the list.
+ * <p>
+ * Times are keyed by their epoch second, reading the date and time as UTC. Tasks with the same time are held as an
+ * {@link IdList} ordered by task id, with the end of each event kept alongside its id, so the index keeps no task
+ * alive. An event ends less than a day after it starts, since its end is only a time of day, so the events
+ * overlapping a span are found among those starting from a day before the span to its end.
+ */
+public class TimeIndex {
+    private static final long MAX_EVENT_SECONDS = 24 * 60 * 60;
+    private final TreeMap<Long, IdList> deadlines = new TreeMap<>();
+    private final TreeMap<Long, IdList> events = new TreeMap<>();
+
+    /**
+     * Adds the task to the index if it is a deadline or an event.
+     *
+     * @param task the task to index.
+     */
+    public void add(Task task) {
+        if (task instanceof Deadline) {
+            deadlines.computeIfAbsent(toKey(((Deadline) task).getBy()), key -> new IdList(false))
+                    .add(task.getId(), 0);
+        } else if (task instanceof Event) {
+            events.computeIfAbsent(toKey(((Event) task).getFrom()), key -> new IdList(true))
+                    .add(task.getId(), toKey(((Event) task).getEnd()));
+        }
+    }
+
+    /**
+     * Removes the task from the index.
+     *
+     * @param task the task to remove.
+     */
+    public void remove(Task task) {
+        if (task instanceof Deadline) {
+            remove(deadlines, toKey(((Deadline) task).getBy()), task.getId());
+        } else if (task instanceof Event) {
+            remove(events, toKey(((Event) task).getFrom()), task.getId());
+        }
+    }
+
+    private static void remove(TreeMap<Long, IdList> idsByTime, long key, int id) {
+        IdList ids = idsByTime.get(key);
+        if (ids != null) {
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                idsByTime.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of deadlines and events in the index.
+     *
+     * @return the number of indexed tasks.
+     */
+    public int size() {
+        int size = 0;
+        for (IdList ids : deadlines.values()) {
+            size += ids.size();
+        }
+        for (IdList ids : events.values()) {
+            size += ids.size();
+        }
+        return size;
+    }
+
+    /**
+     * Removes every task from the index.
+     */
+    public void clear() {
+        deadlines.clear();
+        events.clear();
+    }
+
+    /**
+     * Finds the deadlines due at or before the given time.
+     *
+     * @param by the latest due time to include.
+     * @return the ids of the deadlines, earliest first.
+     */
+    public int[] due(LocalDateTime by) {
+        return toArray(flatten(deadlines.headMap(toKey(by), true)));
+    }
+
+    /**
+     * Finds the deadlines due and the events starting after the given time.
+     *
+     * @param after the time to look from, not included.
+     * @return the ids of the deadlines and events, ordered by due or start time.
+     */
+    public int[] after(LocalDateTime after) {
+        return merge(flatten(deadlines.tailMap(toKey(after), false)), flatten(events.tailMap(toKey(after), false)));
+    }
+
+    /**
+     * Finds the deadlines due and the events taking place within a span of time, including its ends.
+     *
+     * @param from the start of the span.
+     * @param to the end of the span.
+     * @return the ids of the deadlines and events, ordered by due or start time.
+     */
+    public int[] between(LocalDateTime from, LocalDateTime to) {
+        if (to.isBefore(from)) {
+            return new int[0];
+        }
+        return merge(flatten(deadlines.subMap(toKey(from), true, toKey(to), true)), findOverlapping(from, to));
+    }
+
+    /**
+     * Finds the events taking place at any time within a span of time, including its ends.
+     *
+     * @param from the start of the span.
+     * @param to the end of the span.
+     * @return the ids of the events, earliest start first.
+     */
+    public int[] overlapping(LocalDateTime from, LocalDateTime to) {
+        return toArray(findOverlapping(from, to));
+    }
+
+    /**
+     * Returns the events overlapping a span as pairs of start time and id.
+     */
+    private List<long[]> findOverlapping(LocalDateTime from, LocalDateTime to) {
+        List<long[]> overlapping = new ArrayList<>();
+        long start = toKey(from);
+        for (Map.Entry<Long, IdList> sameTime
+                : events.subMap(start - MAX_EVENT_SECONDS, true, toKey(to), true).entrySet()) {
+            IdList ids = sameTime.getValue();
+            for (int i = 0; i < ids.size(); i++) {
+                if (ids.getValue(i) >= start) {
+                    overlapping.add(new long[] {sameTime.getKey(), ids.getId(i)});
+                }
+            }
+        }
+        return overlapping;
+    }
+
+    /**
+     * Lists the ids of a span of the index as pairs of time and id, in time order.
+     */
+    private static List<long[]> flatten(Map<Long, IdList> idsByTime) {
+        List<long[]> entries = new ArrayList<>();
+        for (Map.Entry<Long, IdList> sameTime : idsByTime.entrySet()) {
+            IdList ids = sameTime.getValue();
+            for (int i = 0; i < ids.size(); i++) {
+                entries.add(new long[] {sameTime.getKey(), ids.getId(i)});
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Merges deadlines and events, each already in time order, into one array of ids in time order.
+     */
+    private static int[] merge(List<long[]> due, List<long[]> events) {
+        int[] merged = new int[due.size() + events.size()];
+        int deadlineIndex = 0;
+        int eventIndex = 0;
+        for (int i = 0; i < merged.length; i++) {
+            boolean isDeadline = eventIndex == events.size()
+                    || deadlineIndex < due.size() && due.get(deadlineIndex)[0] <= events.get(eventIndex)[0];
+            merged[i] = (int) (isDeadline ? due.get(deadlineIndex++) : events.get(eventIndex++))[1];
+        }
+        return merged;
+    }
+
+    private static int[] toArray(List<long[]> entries) {
+        int[] ids = new int[entries.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = (int) entries.get(i)[1];
+        }
+        return ids;
+    }
+
+    private static long toKey(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+}
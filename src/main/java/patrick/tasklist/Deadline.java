@@ -1,8 +1,8 @@
 package patrick.tasklist;
 
 import java.io.IOException;
+import java.time.DateTimeException;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 
 import patrick.DateFormatChecker;
 import patrick.parser.Parser;
@@ -26,30 +26,53 @@ public class Deadline extends Task {
      */
     public Deadline(String description, String by) {
         super(description);
-        String format = DateFormatChecker.getDateFormat(by);
-        this.by = LocalDateTime.parse(by, DateTimeFormatter.ofPattern(format));
+        this.by = DateFormatChecker.parseDate(by);
+        if (this.by == null) {
+            throw new DateTimeException("Unknown date format: " + by);
+        }
     }
 
     /**
-     * Returns a string representation of the {@code Deadline} task, including its type,
+     * Constructs a {@code Deadline} task with the specified description and an already parsed deadline.
+     *
+     * @param description the description of the deadline task.
+     * @param by the deadline date and time.
+     */
+    public Deadline(String description, LocalDateTime by) {
+        super(description);
+        this.by = by;
+    }
+
+    public LocalDateTime getBy() {
+        return this.by;
+    }
+
+    /**
+     * Builds the string representation of the {@code Deadline} task, including its type,
      *  status, description, and deadline.
      *
      * @return a formatted string representing the {@code Deadline} task.
      */
     @Override
-    public String toString() {
-        return PREFIX + super.toString() + COLUMN + this.by.format(DateTimeFormatter.ofPattern("MMM d yyyy HHmm"));
+    protected String render() {
+        return PREFIX + super.render() + COLUMN + this.by.format(DATE_FORMATTER);
+    }
+
+    @Override
+    public String getSearchText() {
+        return super.getSearchText() + " " + this.by.format(DATE_FORMATTER);
     }
 
     /**
      * Parses the user input to create a new {@code Deadline} task and adds it to the task list.
      * The method also validates the input for the task details and deadline format.
      *
+     * @param storage the store holding the task list.
      * @param input the user input containing the task description and deadline.
      * @return a response message indicating the result of the operation.
      * @throws Parser.PatrickException if the input is invalid or missing required components.
      */
-    public static String deadlineTask(String input) throws Parser.PatrickException {
+    public static String deadlineTask(Storage storage, String input) throws Parser.PatrickException {
         String response;
         String newInput = input.replace("deadline ", "");
         if (newInput.isEmpty()) {
@@ -69,25 +92,19 @@ public class Deadline extends Task {
             throw new Parser.PatrickException("Deadline Task deadline cannot be empty!!");
         }
 
-        if (DateFormatChecker.getDateFormat(deadline).equals("Unknown Format")) {
+        if (!DateFormatChecker.isValidDate(deadline)) {
             throw new Parser.PatrickException("Your deadline format is incorrect.\n"
                     + "Type 'formats' for the formats.");
         }
 
         Task task = new Deadline(taskDescription, deadline);
-        if (Parser.isDuplicate(task)) {
-            return Ui.NO_DUPLICATES;
-        }
-
-        Storage.addList(task);
-        response = Ui.showUserMsg(task.toString());
         try {
-            if (Storage.getList().size() > 1) {
-                Storage.appendToFile("\n");
+            if (!storage.add(task)) {
+                return Ui.NO_DUPLICATES;
             }
-            Storage.appendToFile(task.toString());
+            response = Ui.showUserMsg(task.toString(), storage.size());
         } catch (IOException e) {
-            response = Ui.THERE_IS_AN_ERROR + e.getMessage();
+            response = Ui.showErrorMsg(Ui.THERE_IS_AN_ERROR + e.getMessage());
         }
         return response;
     }
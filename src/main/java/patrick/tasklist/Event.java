@@ -1,9 +1,9 @@
 package patrick.tasklist;
 
 import java.io.IOException;
+import java.time.DateTimeException;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
-import java.time.format.DateTimeFormatter;
 
 import patrick.DateFormatChecker;
 import patrick.parser.Parser;
@@ -30,32 +30,72 @@ public class Event extends Task {
      */
     public Event(String description, String from, String to) {
         super(description);
-        String format = DateFormatChecker.getDateFormat(from);
-        this.from = LocalDateTime.parse(from, DateTimeFormatter.ofPattern(format));
-        this.to = LocalTime.parse(to, DateTimeFormatter.ofPattern("HHmm"));
+        this.from = DateFormatChecker.parseDate(from);
+        this.to = DateFormatChecker.parseTime(to);
+        if (this.from == null || this.to == null) {
+            throw new DateTimeException("Unknown date format: " + from + "-" + to);
+        }
+    }
+
+    /**
+     * Constructs an {@code Event} task with the specified description and already parsed start and end times.
+     *
+     * @param description the description of the event task.
+     * @param from the start date and time of the event.
+     * @param to the end time of the event.
+     */
+    public Event(String description, LocalDateTime from, LocalTime to) {
+        super(description);
+        this.from = from;
+        this.to = to;
+    }
+
+    public LocalDateTime getFrom() {
+        return this.from;
+    }
+
+    public LocalTime getTo() {
+        return this.to;
+    }
+
+    /**
+     * Returns the date and time the event ends. An end time earlier than the start time is taken to be on the
+     * following day.
+     *
+     * @return the end of the event.
+     */
+    public LocalDateTime getEnd() {
+        LocalDateTime end = this.from.toLocalDate().atTime(this.to);
+        return end.isBefore(this.from) ? end.plusDays(1) : end;
     }
 
     /**
-     * Returns a string representation of the {@code Event} task, including its type,
+     * Builds the string representation of the {@code Event} task, including its type,
      * status, description, start time, and end time.
      *
      * @return a formatted string representing the {@code Event} task.
      */
     @Override
-    public String toString() {
-        return PREFIX + super.toString() + COLUMN + this.from.format(DateTimeFormatter.ofPattern("MMM d yyyy HHmm"))
-                + "-" + this.to.format(DateTimeFormatter.ofPattern("HHmm"));
+    protected String render() {
+        return PREFIX + super.render() + COLUMN + this.from.format(DATE_FORMATTER)
+                + "-" + this.to.format(TIME_FORMATTER);
+    }
+
+    @Override
+    public String getSearchText() {
+        return super.getSearchText() + " " + this.from.format(DATE_FORMATTER);
     }
 
     /**
      * Parses the user input to create a new {@code Event} task and adds it to the task list.
      * The method also validates the input for the task details and the time format.
      *
+     * @param storage the store holding the task list.
      * @param input the user input containing the task description, start time, and end time.
      * @return a response message indicating the result of the operation.
      * @throws Parser.PatrickException if the input is invalid or missing required components.
      */
-    public static String eventTask(String input) throws Parser.PatrickException {
+    public static String eventTask(Storage storage, String input) throws Parser.PatrickException {
         String response;
         String newInput = input.replace("event", "").trim();
         Task task;
@@ -67,19 +107,13 @@ public class Event extends Task {
         String to = newInput.substring(newInput.indexOf("/to")).replace("/to ", "");
 
         task = new Event(taskDescription, from, to);
-        if (Parser.isDuplicate(task)) {
-            return Ui.NO_DUPLICATES;
-        }
-        Storage.addList(task);
-        response = Ui.showUserMsg(task.toString());
-
         try {
-            if (Storage.getList().size() > 1) {
-                Storage.appendToFile("\n");
+            if (!storage.add(task)) {
+                return Ui.NO_DUPLICATES;
             }
-            Storage.appendToFile(task.toString());
+            response = Ui.showUserMsg(task.toString(), storage.size());
         } catch (IOException e) {
-            response = Ui.THERE_IS_AN_ERROR + e.getMessage();
+            response = Ui.showErrorMsg(Ui.THERE_IS_AN_ERROR + e.getMessage());
         }
         return response;
     }
@@ -113,11 +147,11 @@ public class Event extends Task {
             throw new Parser.PatrickException("You are missing 'to' information from your details!!");
         }
 
-        if (DateFormatChecker.getDateFormat(from).equals("Unknown Format")) {
+        if (!DateFormatChecker.isValidDate(from)) {
             throw new Parser.PatrickException("Your 'from' format is incorrect.\n"
                     + "Type 'formats' for the formats.\n");
         }
-        if (DateFormatChecker.getTimeFormat(to).equals("Unknown Format")) {
+        if (DateFormatChecker.parseTime(to) == null) {
             throw new Parser.PatrickException("Your 'to' format is incorrect.\nFormat of 'to' is HHmm.");
         }
     }
@@ -1,13 +1,21 @@
 package patrick.tasklist;
 
+import java.time.format.DateTimeFormatter;
+
 /**
  * Represents a generic task with a description and a completion status.
  * It provides methods to mark the task as done or undone and to retrieve its status and description.
  */
-public class Task extends TaskList {
+public class Task {
     public static final String COLUMN = " | ";
+    /** Formatter for the dates shown in a task's line, shared by all tasks. */
+    protected static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("MMM d yyyy HHmm");
+    /** Formatter for the times shown in a task's line, shared by all tasks. */
+    protected static final DateTimeFormatter TIME_FORMATTER = DateTimeFormatter.ofPattern("HHmm");
     protected String description;
     protected boolean isDone;
+    private int id;
+    private String line;
 
     /**
      * Constructs a {@code Task} with the specified description.
@@ -29,18 +37,29 @@ public class Task extends TaskList {
         return (isDone ? "X" : "O");
     }
 
+    /**
+     * Returns whether the task is done.
+     *
+     * @return true if the task is done, false otherwise.
+     */
+    public boolean isDone() {
+        return this.isDone;
+    }
+
     /**
      * Marks the task as done by setting the {@code isDone} flag to {@code true}.
      */
-    public void markAsDone() {
+    public synchronized void markAsDone() {
         this.isDone = true;
+        this.line = null;
     }
 
     /**
      * Marks the task as undone by setting the {@code isDone} flag to {@code false}.
      */
-    public void markAsUndone() {
+    public synchronized void markAsUndone() {
         this.isDone = false;
+        this.line = null;
     }
 
     /**
@@ -53,12 +72,63 @@ public class Task extends TaskList {
     }
 
     /**
-     * Returns a string representation of the {@code Task}, including its status icon and description.
+     * Returns the id assigned to this task when it was added to storage.
      *
-     * @return a formatted string representing the {@code Task}.
+     * @return the id of the task.
+     */
+    public int getId() {
+        return this.id;
+    }
+
+    /**
+     * Sets the id of this task. Ids are assigned in increasing order as tasks are added to storage.
+     *
+     * @param id the id of the task.
+     */
+    public void setId(int id) {
+        this.id = id;
+    }
+
+    /**
+     * Returns the text that keyword searches are matched against.
+     *
+     * @return the searchable text of the task.
+     */
+    public String getSearchText() {
+        return this.description;
+    }
+
+    /**
+     * Returns the canonical key identifying this task for duplicate detection.
+     * Two tasks with the same type, status, description and dates share a key.
+     *
+     * @return the canonical key of the task.
+     */
+    public String getKey() {
+        return toString();
+    }
+
+    /**
+     * Returns the line representing this task, as shown to the user and written to the task file.
+     * The line is built once and reused until the task is marked or unmarked, which is synchronized with building
+     * it so that a line rendered while the task changes is never kept.
+     *
+     * @return a formatted string representing the task.
      */
     @Override
-    public String toString() {
+    public final synchronized String toString() {
+        if (line == null) {
+            line = render();
+        }
+        return line;
+    }
+
+    /**
+     * Builds the string representation of the {@code Task}, including its status icon and description.
+     *
+     * @return a formatted string representing the {@code Task}.
+     */
+    protected String render() {
         return getStatusIcon() + COLUMN + this.description;
     }
 }
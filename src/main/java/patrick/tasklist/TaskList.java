@@ -1,10 +1,15 @@
 package patrick.tasklist;
 
 import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.List;
 
+import patrick.DateFormatChecker;
 import patrick.parser.Parser;
 import patrick.storage.Storage;
+import patrick.storage.TaskRange;
+import patrick.storage.TaskSelection;
 import patrick.ui.Ui;
 
 /**
@@ -12,7 +17,13 @@ import patrick.ui.Ui;
  * marking as done or undone, and retrieving tasks from storage.
  */
 public class TaskList {
-    private final ArrayList<Task> taskList;
+    private static final String MATCH_ANY = "/any";
+    private static final String BETWEEN_SEPARATOR = "/and";
+    private static final String ID_PREFIX = "#";
+    private static final String RANGE_SEPARATOR = "-";
+    private static final String LIST_SEPARATOR = "[,\\s]+";
+    private static final String MATCHING = "all matching";
+    private final List<Task> taskList;
 
     /**
      * Constructs a {@code TaskList} with the specified list of tasks.
@@ -20,7 +31,7 @@ public class TaskList {
      * @param taskList the list of tasks to initialize the {@code TaskList} with.
      * @throws Parser.PatrickException if the task list is empty.
      */
-    public TaskList(ArrayList<Task> taskList) throws Parser.PatrickException {
+    public TaskList(List<Task> taskList) throws Parser.PatrickException {
         if (!taskList.isEmpty()) {
             this.taskList = taskList;
         } else {
@@ -36,32 +47,31 @@ public class TaskList {
     }
 
     /**
-     * Deletes a task from the task list based on the user input.
+     * Deletes a task, or many tasks, from the task list based on the user input.
+     * Tasks are given as a task number {@code N}, a range of task numbers {@code N-M}, an id {@code #N} or a range
+     * of ids {@code #N-M}, or a list of these separated by commas or spaces. {@code all matching <keywords>} picks
+     * the tasks {@code find} would show, and {@code done} or {@code undone} the tasks with that status. However
+     * many tasks are picked, they are deleted, and the file saved, in one step.
      *
-     * @param input the user input containing the index of the task to be deleted.
+     * @param storage the store holding the task list.
+     * @param input the user input containing the tasks to be deleted.
      * @return a response message indicating the result of the operation.
      * @throws Parser.PatrickException if the input is invalid or the index is out of bounds.
      */
-    public static String delete(String input) throws Parser.PatrickException {
+    public static String delete(Storage storage, String input) throws Parser.PatrickException {
         String response;
-        String taskNo = input.replace("delete", "").trim();
-        try {
-            Integer.parseInt(taskNo);
-        } catch (NumberFormatException e) {
-            throw new Parser.PatrickException("Delete Task Details must be an integer");
-        }
-        int num = Integer.parseInt(taskNo);
-        if (taskNo.isEmpty()) {
-            throw new Parser.PatrickException("Delete Task Details cannot be empty!!");
-        }
-        if (num > Storage.getList().size()) {
-            throw new Parser.PatrickException("Input task index is invalid. Please try again!!");
+        String taskNo = stripCommand(input, "delete");
+        TaskSelection selection = parseSelection(taskNo, "Delete");
+        if (!isSingle(selection)) {
+            return deleteAll(storage, selection);
         }
+        int num = toTaskNumber(storage, selection.getRanges().get(0));
 
-        response = Ui.showDeleteItemMsg(num);
-        Storage.deleteItem(num);
         try {
-            Storage.writeToFile();
+            Task task = storage.delete(num);
+            response = Ui.showDeleteItemMsg(task, storage.size());
+        } catch (Storage.InvalidIndexException e) {
+            throw new Parser.PatrickException("Input task index is invalid. Please try again!!");
         } catch (IOException e) {
             response = Ui.THERE_IS_AN_ERROR + e.getMessage();
         }
@@ -70,120 +80,315 @@ public class TaskList {
     }
 
     /**
-     * Marks a task as done based on the user input.
+     * Marks a task, or many tasks, as done based on the user input.
+     * Tasks are given as for {@link #delete}.
      *
-     * @param input the user input containing the index of the task to be marked as done.
+     * @param storage the store holding the task list.
+     * @param input the user input containing the tasks to be marked as done.
      * @return a response message indicating the result of the operation.
      * @throws Parser.PatrickException if the input is invalid, the index is out of bounds,
-     *     or the task is already marked as done.
+     *     or the tasks are already marked as done.
      */
-    public static String mark(String input) throws Parser.PatrickException {
+    public static String mark(Storage storage, String input) throws Parser.PatrickException {
         String response;
-        String taskNo = input.replace("mark", "").trim();
+        String taskNo = stripCommand(input, "mark");
         if (taskNo.isEmpty()) {
             throw new Parser.PatrickException("Task Number cannot be empty!!");
         }
 
-        try {
-            Integer.parseInt(taskNo);
-        } catch (NumberFormatException e) {
-            throw new Parser.PatrickException("Mark Task Details must be an integer");
+        TaskSelection selection = parseSelection(taskNo, "Mark");
+        if (!isSingle(selection)) {
+            return changeAll(storage, selection, true);
         }
+        int num = toTaskNumber(storage, selection.getRanges().get(0));
 
-        int num = Integer.parseInt(taskNo);
-        if (num > Storage.getList().size() || num < 1) {
+        Task curr;
+        try {
+            curr = storage.mark(num);
+        } catch (Storage.InvalidIndexException e) {
             throw new Parser.PatrickException("Invalid Task Number!!");
+        } catch (IOException e) {
+            return Ui.THERE_IS_AN_ERROR + e.getMessage();
         }
-
-        Task curr = Storage.getList().get(num - 1);
-        if (curr.isDone) {
+        if (curr == null) {
             throw new Parser.PatrickException("You cannot mark a completed task!!");
         }
-
-        curr.markAsDone();
         response = "Nice! I've marked this task as done:\n  " + curr + "\n";
-        try {
-            Storage.writeToFile();
-        } catch (IOException e) {
-            return Ui.THERE_IS_AN_ERROR + e.getMessage();
-        }
 
         return response;
     }
 
     /**
-     * Marks a task as not done based on the user input.
+     * Marks a task, or many tasks, as not done based on the user input.
+     * Tasks are given as for {@link #delete}.
      *
-     * @param input the user input containing the index of the task to be marked as not done.
+     * @param storage the store holding the task list.
+     * @param input the user input containing the tasks to be marked as not done.
      * @return a response message indicating the result of the operation.
      * @throws Parser.PatrickException if the input is invalid, the index is out of bounds,
-     *     or the task is already marked as not done.
+     *     or the tasks are already marked as not done.
      */
-    public static String unmark(String input) throws Parser.PatrickException {
+    public static String unmark(Storage storage, String input) throws Parser.PatrickException {
         String response;
-        String taskNo = input.replace("unmark", "").trim();
+        String taskNo = stripCommand(input, "unmark");
         if (taskNo.isEmpty()) {
             throw new Parser.PatrickException("Task Number cannot be empty!!");
         }
 
+        TaskSelection selection = parseSelection(taskNo, "Unmark");
+        if (!isSingle(selection)) {
+            return changeAll(storage, selection, false);
+        }
+        int num = toTaskNumber(storage, selection.getRanges().get(0));
+
+        Task curr;
         try {
-            Integer.parseInt(taskNo);
-        } catch (NumberFormatException e) {
-            throw new Parser.PatrickException("Unmark Task Details must be an integer");
+            curr = storage.unmark(num);
+        } catch (Storage.InvalidIndexException e) {
+            throw new Parser.PatrickException("Invalid Task Number!!");
+        } catch (IOException e) {
+            return Ui.THERE_IS_AN_ERROR + e.getMessage();
+        }
+        if (curr == null) {
+            throw new Parser.PatrickException("You cannot unmark an incomplete task!!");
         }
+        response = "Nice! I've marked this task as not done yet:\n  " + curr + "\n";
+
+        return response;
+    }
+
+    /**
+     * Returns the input without its leading command word, leaving the same word alone elsewhere in the input.
+     */
+    private static String stripCommand(String input, String command) {
+        String trimmed = input.trim();
+        return trimmed.startsWith(command) ? trimmed.substring(command.length()).trim() : trimmed;
+    }
+
+    /**
+     * Parses the tasks given to {@code delete}, {@code mark} or {@code unmark}.
+     */
+    private static TaskSelection parseSelection(String taskNo, String command) throws Parser.PatrickException {
+        if (taskNo.startsWith(MATCHING)) {
+            String keywords = taskNo.substring(MATCHING.length()).trim();
+            if (keywords.isEmpty()) {
+                throw new Parser.PatrickException("Matching keyword cannot be empty!!");
+            }
+            return TaskSelection.matching(keywords);
+        }
+        if (taskNo.equals("done")) {
+            return TaskSelection.filter(Task::isDone);
+        }
+        if (taskNo.equals("undone")) {
+            return TaskSelection.filter(task -> !task.isDone());
+        }
+        List<TaskRange> ranges = new ArrayList<>();
+        for (String item : taskNo.split(LIST_SEPARATOR)) {
+            ranges.add(parseRange(item, command));
+        }
+        return TaskSelection.of(ranges);
+    }
 
-        int num = Integer.parseInt(taskNo);
-        if (num > Storage.getList().size() || num < 1) {
+    /**
+     * Parses one item of a list of tasks: {@code N}, {@code N-M}, {@code #N} or {@code #N-M}.
+     */
+    private static TaskRange parseRange(String taskNo, String command) throws Parser.PatrickException {
+        boolean isById = taskNo.startsWith(ID_PREFIX);
+        String[] ends = (isById ? taskNo.substring(ID_PREFIX.length()) : taskNo).split(RANGE_SEPARATOR, 2);
+        int from;
+        int to;
+        try {
+            from = Integer.parseInt(ends[0].trim());
+            String last = ends.length == 1 ? ends[0] : ends[1].trim();
+            if (isById && last.startsWith(ID_PREFIX)) {
+                last = last.substring(ID_PREFIX.length());
+            }
+            to = Integer.parseInt(last.trim());
+        } catch (NumberFormatException e) {
+            throw new Parser.PatrickException(command + " Task Details must be an integer");
+        }
+        if (from < 1 || to < from) {
             throw new Parser.PatrickException("Invalid Task Number!!");
         }
+        return isById ? TaskRange.ofIds(from, to) : TaskRange.ofIndexes(from, to);
+    }
 
-        Task curr = (Task) Storage.getList().get(num - 1);
-        if (!curr.isDone) {
-            throw new Parser.PatrickException("You cannot unmark an incomplete task!!");
+    /**
+     * Returns the task number of the single task named by the range.
+     */
+    private static int toTaskNumber(Storage storage, TaskRange range) throws Parser.PatrickException {
+        if (!range.isById()) {
+            return range.getFrom();
+        }
+        int num = storage.indexOfId(range.getFrom());
+        if (num == 0) {
+            throw new Parser.PatrickException("There is no task " + ID_PREFIX + range.getFrom() + "!!");
         }
+        return num;
+    }
 
-        curr.markAsUndone();
-        response = "Nice! I've marked this task as not done yet:\n  " + curr + "\n";
+    private static boolean isSingle(TaskSelection selection) {
+        return selection.getRanges().size() == 1 && selection.getRanges().get(0).isSingle();
+    }
 
+    private static void checkInList(Storage storage, TaskSelection selection) throws Parser.PatrickException {
+        for (TaskRange range : selection.getRanges()) {
+            if (!range.isById() && range.getTo() > storage.size()) {
+                throw new Parser.PatrickException("Invalid Task Number!!");
+            }
+        }
+    }
+
+    private static String deleteAll(Storage storage, TaskSelection selection) throws Parser.PatrickException {
+        checkInList(storage, selection);
+        List<Task> deleted;
         try {
-            Storage.writeToFile();
+            deleted = storage.delete(selection);
         } catch (IOException e) {
             return Ui.THERE_IS_AN_ERROR + e.getMessage();
         }
+        if (deleted.isEmpty()) {
+            throw new Parser.PatrickException("There are no matching tasks in your list!!");
+        }
+        return Ui.showDeleteItemsMsg(deleted, storage.size());
+    }
 
-        return response;
+    private static String changeAll(Storage storage, TaskSelection selection, boolean isDone)
+            throws Parser.PatrickException {
+        checkInList(storage, selection);
+        List<Task> changed;
+        try {
+            changed = isDone ? storage.mark(selection) : storage.unmark(selection);
+        } catch (IOException e) {
+            return Ui.THERE_IS_AN_ERROR + e.getMessage();
+        }
+        if (changed.isEmpty()) {
+            throw new Parser.PatrickException(isDone ? "There are no matching incomplete tasks in your list!!"
+                    : "There are no matching completed tasks in your list!!");
+        }
+        StringBuilder response = new StringBuilder(isDone ? "Nice! I've marked these tasks as done:\n"
+                : "Nice! I've marked these tasks as not done yet:\n");
+        for (Task task : changed) {
+            response.append("  ").append(task).append('\n');
+        }
+        return response.toString();
     }
 
     /**
-     * Finds and displays tasks in the list that match the given keyword.
+     * Finds and displays tasks in the list with a word starting with each of the given keywords.
+     * If the keywords are preceded by {@code /any}, tasks matching any one of the keywords are shown instead.
      *
-     * @param input The user input containing the keyword to search for.
+     * @param storage the store holding the task list.
+     * @param input The user input containing the keywords to search for.
      * @return a response message indicating the result of the operation.
      * @throws Parser.PatrickException if the keyword is empty.
      */
-    public static String findTask(String input) throws Parser.PatrickException {
-        String response = null;
-        int count = 0;
-        String keyword = input.replace("find", "").trim();
-        if (keyword.isEmpty()) {
+    public static String findTask(Storage storage, String input) throws Parser.PatrickException {
+        String keywords = input.replace("find", "").trim();
+        boolean isMatchAll = !keywords.startsWith(MATCH_ANY);
+        if (!isMatchAll) {
+            keywords = keywords.substring(MATCH_ANY.length()).trim();
+        }
+        if (keywords.isEmpty()) {
             throw new Parser.PatrickException("Find keyword cannot be empty!");
         }
 
-        for (int i = 0; i < Storage.getList().size(); i++) {
-            if (Storage.getList().get(i).toString().contains(keyword)) {
-                if (count == 0) {
-                    response = "Here are the matching tasks in your list:\n";
-                }
-                count++;
-                response += count + " " + Storage.getList().get(i).toString() + "\n";
-            }
+        List<Task> matches = storage.findTasks(keywords, isMatchAll);
+        if (matches.isEmpty()) {
+            return "There are no matching tasks in your list!";
+        }
+
+        return showMatches("Here are the matching tasks in your list:\n", matches);
+    }
+
+    /**
+     * Finds and displays the deadlines due at or before the given date.
+     *
+     * @param storage the store holding the task list.
+     * @param arguments the date, in one of the formats listed by {@code formats}.
+     * @return a response message listing the deadlines, earliest first.
+     * @throws Parser.PatrickException if the date is missing or not in a known format.
+     */
+    public static String due(Storage storage, String arguments) throws Parser.PatrickException {
+        LocalDateTime by = parseQueryDate(arguments);
+        List<Task> matches = storage.findDue(by);
+        if (matches.isEmpty()) {
+            return "Nothing is due by " + arguments + "!";
         }
+        return showMatches("Here are the deadlines due by " + arguments + ":\n", matches);
+    }
 
-        if (count == 0) {
-            response = "There are no matching tasks in your list!";
+    /**
+     * Finds and displays the deadlines due and the events taking place between two dates, given as
+     * {@code <date> /and <date>}.
+     *
+     * @param storage the store holding the task list.
+     * @param arguments the two dates separated by {@code /and}.
+     * @return a response message listing the tasks in time order.
+     * @throws Parser.PatrickException if a date is missing or not in a known format.
+     */
+    public static String between(Storage storage, String arguments) throws Parser.PatrickException {
+        int separator = arguments.indexOf(BETWEEN_SEPARATOR);
+        if (separator < 0) {
+            throw new Parser.PatrickException("You are missing a '" + BETWEEN_SEPARATOR + "' in your details!!");
+        }
+        String start = arguments.substring(0, separator).trim();
+        String end = arguments.substring(separator + BETWEEN_SEPARATOR.length()).trim();
+        List<Task> matches = storage.findBetween(parseQueryDate(start), parseQueryDate(end));
+        if (matches.isEmpty()) {
+            return "There is nothing between " + start + " and " + end + "!";
         }
+        return showMatches("Here are the tasks between " + start + " and " + end + ":\n", matches);
+    }
 
-        return response;
+    /**
+     * Finds and displays the events taking place at the same time as the event with the given task number.
+     *
+     * @param storage the store holding the task list.
+     * @param arguments the task number of the event.
+     * @return a response message listing the overlapping events.
+     * @throws Parser.PatrickException if the task number is invalid or is not an event.
+     */
+    public static String overlapping(Storage storage, String arguments) throws Parser.PatrickException {
+        int num;
+        try {
+            num = Integer.parseInt(arguments.trim());
+        } catch (NumberFormatException e) {
+            throw new Parser.PatrickException("Overlapping Task Details must be an integer");
+        }
+        Task task;
+        try {
+            task = storage.getCheckedItem(num);
+        } catch (Storage.InvalidIndexException e) {
+            throw new Parser.PatrickException("Invalid Task Number!!");
+        }
+        if (!(task instanceof Event)) {
+            throw new Parser.PatrickException("Task " + num + " is not an event!!");
+        }
+        List<Task> matches = storage.findOverlapping((Event) task);
+        if (matches.isEmpty()) {
+            return "Nothing else is happening during " + task + "!";
+        }
+        return showMatches("Here are the events happening during " + task + ":\n", matches);
+    }
+
+    private static LocalDateTime parseQueryDate(String date) throws Parser.PatrickException {
+        if (date.isEmpty()) {
+            throw new Parser.PatrickException("Date cannot be empty!!");
+        }
+        LocalDateTime parsed = DateFormatChecker.parseDate(date);
+        if (parsed == null) {
+            throw new Parser.PatrickException("Your date format is incorrect.\nType 'formats' for the formats.");
+        }
+        return parsed;
+    }
+
+    private static String showMatches(String header, List<Task> matches) {
+        StringBuilder response = new StringBuilder(header);
+        for (int i = 0; i < matches.size(); i++) {
+            response.append(i + 1).append(' ').append(matches.get(i)).append('\n');
+        }
+        return response.toString();
     }
 
 }
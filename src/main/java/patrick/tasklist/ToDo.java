@@ -24,24 +24,25 @@ public class ToDo extends Task {
     }
 
     /**
-     * Returns a string representation of the todo task, including its status and description.
+     * Builds the string representation of the todo task, including its status and description.
      *
      * @return a string representation of the todo task in the format "T | {status icon} | {description}".
      */
     @Override
-    public String toString() {
-        return PREFIX + super.toString();
+    protected String render() {
+        return PREFIX + super.render();
     }
 
     /**
      * Processes the user input for adding a new todo task.
      * Validates the input and adds the task to the task list if it is valid.
      *
+     * @param storage the store holding the task list.
      * @param input the user input containing the task description.
      * @return a response message indicating the result of the operation.
      * @throws Parser.PatrickException if the description of the todo is empty.
      */
-    public static String toDoTask(String input) throws Parser.PatrickException {
+    public static String toDoTask(Storage storage, String input) throws Parser.PatrickException {
         String response;
         String taskDescription = input.replace("todo", "").trim();
 
@@ -49,22 +50,14 @@ public class ToDo extends Task {
             throw new Parser.PatrickException("Description of a todo cannot be empty!!");
         }
         Task task = new ToDo(taskDescription);
-        if (Parser.isDuplicate(task)) {
-            return Ui.NO_DUPLICATES;
-        }
-
-        Storage.addList(task);
-        response = Ui.showUserMsg(task.toString());
-
         try {
-            if (Storage.getList().size() > 1) {
-                Storage.appendToFile("\n");
+            if (!storage.add(task)) {
+                return Ui.NO_DUPLICATES;
             }
-            Storage.appendToFile(task.toString());
+            response = Ui.showUserMsg(task.toString(), storage.size());
         } catch (IOException e) {
             response = Ui.showErrorMsg(Ui.THERE_IS_AN_ERROR + e.getMessage());
         }
-
         return response;
     }
 }
@@ -0,0 +1,168 @@
+package patrick.ui;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Keeps the messages shown in the main window, holding at most a fixed number in memory.
+ * <p>
+ * When the list grows past its capacity, the oldest quarter of it is appended to a spill file and removed from the
+ * list in one change, so the window only ever lays out a bounded history. Spilled messages can be brought back, newest
+ * first, with {@link #restoreOlder(int)}.
+ */
+public class ChatHistory {
+    /** System property giving the number of messages kept in memory, 500 by default. */
+    public static final String CAPACITY_PROPERTY = "patrick.history.capacity";
+    private static final int DEFAULT_CAPACITY = 500;
+
+    private final List<ChatMessage> messages;
+    private final int capacity;
+    private final Path spillFile;
+    /** Offset in the spill file at which each spilled message starts, oldest first. */
+    private long[] offsets = new long[16];
+    private int spilled;
+
+    /**
+     * Constructs a {@code ChatHistory} with the capacity given by {@value #CAPACITY_PROPERTY}, spilling to a
+     * temporary file that is deleted when the JVM exits.
+     *
+     * @param messages the list that the window shows, usually observed by a list view.
+     * @throws IOException if the temporary file cannot be created.
+     */
+    public ChatHistory(List<ChatMessage> messages) throws IOException {
+        this(messages, Integer.getInteger(CAPACITY_PROPERTY, DEFAULT_CAPACITY), createSpillFile());
+    }
+
+    /**
+     * Constructs a {@code ChatHistory}.
+     *
+     * @param messages the list that the window shows, usually observed by a list view.
+     * @param capacity the number of messages kept in memory.
+     * @param spillFile the file older messages are written to, which is overwritten.
+     * @throws IllegalArgumentException if {@code capacity} is less than 4.
+     */
+    public ChatHistory(List<ChatMessage> messages, int capacity, Path spillFile) {
+        if (capacity < 4) {
+            throw new IllegalArgumentException("capacity must be at least 4: " + capacity);
+        }
+        this.messages = messages;
+        this.capacity = capacity;
+        this.spillFile = spillFile;
+    }
+
+    private static Path createSpillFile() throws IOException {
+        Path file = Files.createTempFile("patrick-history", ".txt");
+        file.toFile().deleteOnExit();
+        return file;
+    }
+
+    /**
+     * Adds a message to the end of the history, spilling the oldest messages if the history is full.
+     *
+     * @param message the message to add.
+     * @throws IOException if older messages cannot be written to the spill file.
+     */
+    public void add(ChatMessage message) throws IOException {
+        messages.add(message);
+        if (messages.size() > capacity) {
+            spill(messages.size() - capacity * 3 / 4);
+        }
+    }
+
+    /**
+     * Removes a message from the history, if it is still held in memory.
+     *
+     * @param message the message to remove.
+     * @return true if the message was removed.
+     */
+    public boolean remove(ChatMessage message) {
+        for (int i = messages.size() - 1; i >= 0; i--) {
+            if (messages.get(i) == message) {
+                messages.remove(i);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int getSpilledCount() {
+        return spilled;
+    }
+
+    /**
+     * Moves up to {@code count} of the most recently spilled messages back to the start of the history.
+     *
+     * @param count the number of messages to restore.
+     * @return the number of messages restored.
+     * @throws IOException if the spill file cannot be read.
+     */
+    public int restoreOlder(int count) throws IOException {
+        int restored = Math.min(count, spilled);
+        if (restored == 0) {
+            return 0;
+        }
+        long start = offsets[spilled - restored];
+        List<ChatMessage> older = new ArrayList<>(restored);
+        try (RandomAccessFile file = new RandomAccessFile(spillFile.toFile(), "rw")) {
+            byte[] bytes = new byte[(int) (file.length() - start)];
+            file.seek(start);
+            file.readFully(bytes);
+            for (String line : new String(bytes, StandardCharsets.UTF_8).split("\n")) {
+                older.add(decode(line));
+            }
+            file.setLength(start);
+        }
+        spilled -= restored;
+        messages.addAll(0, older);
+        return restored;
+    }
+
+    private void spill(int count) throws IOException {
+        List<ChatMessage> oldest = messages.subList(0, count);
+        try (RandomAccessFile file = new RandomAccessFile(spillFile.toFile(), "rw")) {
+            long offset = spilled == 0 ? 0 : file.length();
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            for (ChatMessage message : oldest) {
+                if (spilled == offsets.length) {
+                    offsets = Arrays.copyOf(offsets, spilled * 2);
+                }
+                offsets[spilled++] = offset + bytes.size();
+                bytes.write(encode(message).getBytes(StandardCharsets.UTF_8));
+                bytes.write('\n');
+            }
+            file.setLength(offset);
+            file.seek(offset);
+            file.write(bytes.toByteArray());
+        }
+        oldest.clear();
+    }
+
+    /**
+     * Encodes a message as a single line, escaping backslashes and line breaks in its text.
+     */
+    private static String encode(ChatMessage message) {
+        String text = message.getText().replace("\\", "\\\\").replace("\n", "\\n");
+        return message.getKind() + " " + text;
+    }
+
+    private static ChatMessage decode(String line) {
+        int space = line.indexOf(' ');
+        StringBuilder text = new StringBuilder();
+        for (int i = space + 1; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '\\' && i + 1 < line.length()) {
+                text.append(line.charAt(++i) == 'n' ? '\n' : '\\');
+            } else {
+                text.append(c);
+            }
+        }
+        return new ChatMessage(ChatMessage.Kind.valueOf(line.substring(0, space)), text.toString());
+    }
+}
@@ -0,0 +1,44 @@
+package patrick.ui;
+
+/**
+ * Represents one message in the conversation shown in the main window.
+ */
+public class ChatMessage {
+    /**
+     * Represents who a message is from and how it is shown.
+     */
+    public enum Kind {
+        USER, REPLY, ANGRY_REPLY, THINKING
+    }
+
+    private final Kind kind;
+    private final String text;
+
+    /**
+     * Constructs a {@code ChatMessage}.
+     *
+     * @param kind who the message is from and how it is shown.
+     * @param text the text of the message.
+     */
+    public ChatMessage(Kind kind, String text) {
+        this.kind = kind;
+        this.text = text;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Returns whether the message is from Patrick rather than the user.
+     *
+     * @return true if the message is a reply or a thinking message.
+     */
+    public boolean isReply() {
+        return kind != Kind.USER;
+    }
+}
@@ -1,9 +1,14 @@
 package patrick.ui;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.List;
 import java.util.Scanner;
 
+import patrick.parser.ListQuery;
+import patrick.parser.Parser;
 import patrick.storage.Storage;
 import patrick.tasklist.Task;
 
@@ -20,6 +25,8 @@ public class Ui {
     private static final String TASK_MSG = "Got it. I've added this task:\n";
     private static final String NUM_TASK_MSG_1 = "Now you have ";
     private static final String NUM_TASK_MSG_2 = " tasks in the list.\n";
+    private static final String NO_MATCHES = "There are no matching tasks in your list!";
+    private static final int LIST_CHUNK = 256;
 
 
     private final Scanner in; // Scanner for user input
@@ -43,43 +50,199 @@ public class Ui {
         this.out = out;
     }
 
+    /**
+     * Reads the next command entered by the user.
+     *
+     * @return the next line of input, or null if there is no more input.
+     */
+    public String readCommand() {
+        return in.hasNextLine() ? in.nextLine() : null;
+    }
+
+    /**
+     * Prints a response to the output stream.
+     *
+     * @param response the response to print.
+     */
+    public void show(String response) {
+        out.println(response);
+    }
+
+    public PrintStream getOut() {
+        return out;
+    }
+
+    /**
+     * Returns the message shown when the user leaves.
+     *
+     * @return the goodbye message.
+     */
+    public static String showExitMsg() {
+        return EXIT_MSG;
+    }
+
     /**
      * Displays a message to the user after a task is added.
      *
      * @param msg the task details to display.
+     * @param size the number of tasks in the list after adding the task.
      */
-    public static String showUserMsg(String msg) {
-        return Ui.TASK_MSG + msg + "\n" + Ui.NUM_TASK_MSG_1 + Storage.getList().size() + Ui.NUM_TASK_MSG_2;
+    public static String showUserMsg(String msg, int size) {
+        return Ui.TASK_MSG + msg + "\n" + Ui.NUM_TASK_MSG_1 + size + Ui.NUM_TASK_MSG_2;
     }
 
     /**
      * Displays a message to the user after a task is deleted.
      *
-     * @param num the index of the deleted task.
+     * @param task the deleted task.
+     * @param size the number of tasks left in the list.
      */
-    public static String showDeleteItemMsg(int num) {
+    public static String showDeleteItemMsg(Task task, int size) {
         return "Noted. I've removed this task:\n"
-                + Storage.getList().get(num - 1).toString() + "\n" + Ui.NUM_TASK_MSG_1 + (Storage.getList().size() - 1)
+                + task.toString() + "\n" + Ui.NUM_TASK_MSG_1 + size
                 + Ui.NUM_TASK_MSG_2;
     }
 
     /**
-     * Prints the contents of the task list to the user.
+     * Displays a message to the user after several tasks are deleted at once.
+     *
+     * @param tasks the deleted tasks.
+     * @param size the number of tasks left in the list.
      */
-    public static String printFileContents() {
-        String list;
-        if (Storage.getList().size() == 0) {
-            list = "Spongebob, your list is currently empty";
-        } else {
-            list = "Here are the tasks in your list:" + "\n";
-
-            for (int i = 1; i <= Storage.getList().size(); i++) {
-                Task curr = Storage.getList().get(i - 1);
-                list += i + ". " + curr.toString() + "\n";
+    public static String showDeleteItemsMsg(List<Task> tasks, int size) {
+        StringBuilder message = new StringBuilder("Noted. I've removed these ").append(tasks.size())
+                .append(" tasks:\n");
+        for (Task task : tasks) {
+            message.append(task).append('\n');
+        }
+        return message.append(Ui.NUM_TASK_MSG_1).append(size).append(Ui.NUM_TASK_MSG_2).toString();
+    }
+
+    /**
+     * Returns the message shown when a deadline or event is coming up.
+     *
+     * @param task the task coming up.
+     * @return the reminder message.
+     */
+    public static String showReminderMsg(Task task) {
+        return "Spongebob, don't forget! This is coming up soon:\n  " + task + "\n";
+    }
+
+    /**
+     * Returns the message shown when lines of the task file could not be read and were left out.
+     *
+     * @param count the number of lines left out.
+     * @param quarantine the file the lines were saved to.
+     * @return the message.
+     */
+    public static String showSkippedLinesMsg(int count, Path quarantine) {
+        return "Spongebob, I couldn't read " + (count == 1 ? "1 line" : count + " lines")
+                + " of your task file, so I left " + (count == 1 ? "it" : "them") + " out. I saved "
+                + (count == 1 ? "it" : "them") + " in " + quarantine + " along with what was wrong.\n";
+    }
+
+    /**
+     * Prints the first page of the task list to the user.
+     *
+     * @param storage the store holding the task list.
+     */
+    public static String printFileContents(Storage storage) {
+        try {
+            return printFileContents(storage, ListQuery.parse(""));
+        } catch (Parser.PatrickException e) {
+            throw new AssertionError("An empty list query is always valid", e);
+        }
+    }
+
+    /**
+     * Prints one page of the tasks picked out by a {@code list} command to the user.
+     *
+     * @param storage the store holding the task list.
+     * @param query the page and filters to list.
+     * @return the page of tasks.
+     * @throws Parser.PatrickException if the page asked for is past the last page.
+     */
+    public static String printFileContents(Storage storage, ListQuery query) throws Parser.PatrickException {
+        StringBuilder list = new StringBuilder();
+        try {
+            printFileContents(storage, query, list);
+        } catch (IOException e) {
+            throw new AssertionError("Appending to a StringBuilder cannot fail", e);
+        }
+        return list.toString();
+    }
+
+    /**
+     * Writes one page of the tasks picked out by a {@code list} command to {@code out} as it goes.
+     * <p>
+     * Tasks are read from the store {@value #LIST_CHUNK} at a time and written one line at a time, so the memory
+     * used does not grow with the size of the list or the page. Each task keeps the number it has in the whole
+     * list, so the numbers shown can be given to {@code mark} or {@code delete} even when a filter is used. With
+     * {@code --ids}, each task's id is shown after its number as {@code #id}.
+     *
+     * @param storage the store holding the task list.
+     * @param query the page and filters to list.
+     * @param out where the page is written.
+     * @throws Parser.PatrickException if the page asked for is past the last page.
+     * @throws IOException if writing to {@code out} fails.
+     */
+    public static void printFileContents(Storage storage, ListQuery query, Appendable out)
+            throws Parser.PatrickException, IOException {
+        int size = storage.size();
+        if (size == 0) {
+            out.append("Spongebob, your list is currently empty");
+            return;
+        }
+        int matches = query.isFiltered() ? countMatches(storage, query, size) : size;
+        if (matches == 0) {
+            out.append(NO_MATCHES);
+            return;
+        }
+        int pageSize = query.getPageSize();
+        int pages = (matches - 1) / pageSize + 1;
+        if (query.getPage() > pages) {
+            throw new Parser.PatrickException("There " + (pages == 1 ? "is only 1 page" : "are only " + pages
+                    + " pages") + " in your list!");
+        }
+        long skip = (long) (query.getPage() - 1) * pageSize;
+        int from = query.isFiltered() ? 0 : (int) skip;
+        int left = pageSize;
+        out.append("Here are the tasks in your list:\n");
+        for (int start = from; start < size && left > 0; start += LIST_CHUNK) {
+            List<Task> chunk = storage.getItems(start, start + LIST_CHUNK);
+            for (int i = 0; i < chunk.size() && left > 0; i++) {
+                Task task = chunk.get(i);
+                if (!query.matches(task)) {
+                    continue;
+                }
+                if (query.isFiltered() && skip > 0) {
+                    skip--;
+                    continue;
+                }
+                out.append(String.valueOf(start + i + 1)).append(". ");
+                if (query.isShowingIds()) {
+                    out.append('#').append(String.valueOf(task.getId())).append(' ');
+                }
+                out.append(task.toString()).append('\n');
+                left--;
             }
         }
+        if (pages > 1) {
+            out.append("Page ").append(String.valueOf(query.getPage())).append(" of ")
+                    .append(String.valueOf(pages)).append('\n');
+        }
+    }
 
-        return list;
+    private static int countMatches(Storage storage, ListQuery query, int size) {
+        int matches = 0;
+        for (int start = 0; start < size; start += LIST_CHUNK) {
+            for (Task task : storage.getItems(start, start + LIST_CHUNK)) {
+                if (query.matches(task)) {
+                    matches++;
+                }
+            }
+        }
+        return matches;
     }
 
     /**
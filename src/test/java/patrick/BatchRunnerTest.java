@@ -0,0 +1,78 @@
+package patrick;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import patrick.parser.Parser;
+import patrick.storage.Storage;
+import patrick.ui.Ui;
+
+public class BatchRunnerTest {
+    private Path file;
+    private Storage storage;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        file = Files.createTempDirectory("batch").resolve("tasks.txt");
+        Files.createFile(file);
+        storage = new Storage(file.toString());
+        storage.load();
+    }
+
+    private int run(String script, int flushEvery) throws IOException {
+        Ui ui = new Ui(new ByteArrayInputStream(script.getBytes(StandardCharsets.UTF_8)),
+                new PrintStream(new ByteArrayOutputStream()));
+        return new BatchRunner(new Parser(), storage, ui, flushEvery).run();
+    }
+
+    @Test
+    public void run_addsOnly_savedAtEnd() throws Exception {
+        assertEquals(2, run("todo read book\ntodo return book\n", 100));
+        assertEquals("1 | T | O | read book\n2 | T | O | return book", Files.readString(file));
+    }
+
+    @Test
+    public void run_deleteAndMark_fileRewrittenOnce() throws Exception {
+        run("todo read book\ntodo return book\nmark 2\ndelete 1\n", 100);
+        assertEquals("2 | T | X | return book", Files.readString(file));
+    }
+
+    @Test
+    public void run_byeCommand_stopsAndSaves() throws Exception {
+        assertEquals(2, run("todo read book\nbye\ntodo never run\n", 100));
+        assertEquals("1 | T | O | read book", Files.readString(file));
+    }
+
+    @Test
+    public void run_flushEvery_savedBeforeEnd() throws Exception {
+        Ui ui = new Ui(new ByteArrayInputStream("todo read book\nlist\n".getBytes(StandardCharsets.UTF_8)),
+                new PrintStream(new ByteArrayOutputStream())) {
+            @Override
+            public void show(String response) {
+                if (response.startsWith("Here are the tasks")) {
+                    assertTrue(readFile().contains("read book"));
+                }
+            }
+        };
+        new BatchRunner(new Parser(), storage, ui, 1).run();
+    }
+
+    private String readFile() {
+        try {
+            return Files.readString(file);
+        } catch (IOException e) {
+            throw new AssertionError(e);
+        }
+    }
+}
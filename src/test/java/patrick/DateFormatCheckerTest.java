@@ -1,8 +1,13 @@
 package patrick;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
 import org.junit.jupiter.api.Test;
 
 public class DateFormatCheckerTest {
@@ -24,4 +29,33 @@ public class DateFormatCheckerTest {
         boolean result = DateFormatChecker.isValidDate("");
         assertFalse(result);
     }
+
+    @Test
+    public void testParseDate_eachSeparator() {
+        LocalDateTime expected = LocalDateTime.of(2023, 9, 15, 12, 0);
+        assertEquals(expected, DateFormatChecker.parseDate("2023-09-15 1200"));
+        assertEquals(expected, DateFormatChecker.parseDate("15/09/2023 1200"));
+        assertEquals(expected, DateFormatChecker.parseDate("Sep 15 2023 1200"));
+    }
+
+    @Test
+    public void testParseDate_ambiguousDate_earlierFormatWins() {
+        assertEquals(LocalDateTime.of(2023, 2, 1, 9, 30), DateFormatChecker.parseDate("01-02-2023 0930"));
+        assertEquals("dd-MM-yyyy HHmm", DateFormatChecker.getDateFormat("01-02-2023 0930"));
+        assertEquals("MM-dd-yyyy HHmm", DateFormatChecker.getDateFormat("12-31-2023 0930"));
+    }
+
+    @Test
+    public void testParseDate_invalidDate() {
+        assertNull(DateFormatChecker.parseDate("2023-13-01 1200"));
+        assertNull(DateFormatChecker.parseDate("tomorrow"));
+        assertEquals("Unknown Format", DateFormatChecker.getDateFormat("2023-09-15"));
+    }
+
+    @Test
+    public void testParseTime() {
+        assertEquals(LocalTime.of(16, 0), DateFormatChecker.parseTime("1600"));
+        assertNull(DateFormatChecker.parseTime("2500"));
+        assertEquals("Unknown Format", DateFormatChecker.getTimeFormat("4pm"));
+    }
 }
@@ -0,0 +1,28 @@
+package patrick;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+
+public class PatrickTest {
+
+    @Test
+    public void getResponseAsync_severalCommands_runInOrderAfterLoading() throws Exception {
+        Path file = Files.createTempDirectory("patrick").resolve("tasks.txt");
+        Files.writeString(file, "T | O | read book");
+        Patrick patrick = new Patrick(file.toString());
+
+        CompletableFuture<String> added = patrick.getResponseAsync("todo return book");
+        CompletableFuture<String> marked = patrick.getResponseAsync("mark 2");
+        CompletableFuture<String> listed = patrick.getResponseAsync("list");
+
+        assertTrue(added.get().contains("Now you have 2 tasks"));
+        assertTrue(marked.get().contains("T | X | return book"));
+        assertEquals("Here are the tasks in your list:\n1. T | O | read book\n2. T | X | return book\n", listed.get());
+    }
+}
@@ -0,0 +1,112 @@
+package patrick;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import patrick.storage.Storage;
+import patrick.tasklist.Deadline;
+import patrick.tasklist.Event;
+import patrick.tasklist.Task;
+import patrick.tasklist.ToDo;
+
+public class ReminderSchedulerTest {
+    private static final Clock NOW = Clock.fixed(Instant.parse("2024-09-20T12:00:00Z"), ZoneOffset.UTC);
+    private final BlockingQueue<Task> reminded = new LinkedBlockingQueue<>();
+    private Storage storage;
+    private ReminderScheduler scheduler;
+
+    @BeforeEach
+    public void setUp() {
+        storage = new Storage("data/ReminderSchedulerTest.txt");
+        scheduler = new ReminderScheduler(storage, reminded::add, Duration.ofHours(1), NOW);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        scheduler.stop();
+    }
+
+    @Test
+    public void start_existingTaskWithinLead_remindedOnce() throws Exception {
+        Task task = new Deadline("submit iP", "2024-09-20 1230");
+        storage.addList(task);
+        scheduler.start();
+        assertEquals(task, reminded.poll(5, TimeUnit.SECONDS));
+        assertEquals(0, scheduler.getPendingCount());
+        assertNull(reminded.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void taskAdded_dueLater_queuedUntilDeleted() throws Exception {
+        scheduler.start();
+        storage.addList(new Event("briefing", "2024-09-21 1600", "1800"));
+        storage.addList(new ToDo("read book"));
+        assertEquals(1, scheduler.getPendingCount());
+        storage.deleteItem(1);
+        assertEquals(0, scheduler.getPendingCount());
+        assertNull(reminded.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void taskUpdated_markedDone_cancelledUntilUnmarked() throws Exception {
+        scheduler.start();
+        storage.addList(new Deadline("return book", "2024-09-22 1800"));
+        storage.markItem(1);
+        assertEquals(0, scheduler.getPendingCount());
+        storage.unmarkItem(1);
+        assertEquals(1, scheduler.getPendingCount());
+    }
+
+    @Test
+    public void taskAdded_alreadyPast_notQueued() {
+        scheduler.start();
+        storage.addList(new Deadline("return book", "2019-12-02 1800"));
+        assertEquals(0, scheduler.getPendingCount());
+    }
+
+    @Test
+    public void taskAdded_withinLead_remindedInTimeOrder() throws Exception {
+        scheduler.start();
+        Task later = new Deadline("submit iP", "2024-09-20 1240");
+        Task sooner = new Event("lecture", "2024-09-20 1210", "1400");
+        storage.addList(later);
+        assertEquals(later, reminded.poll(5, TimeUnit.SECONDS));
+        storage.addList(sooner);
+        assertEquals(sooner, reminded.poll(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void start_lazilyLoadedStores_upcomingQueuedWithoutIndexing() throws Exception {
+        Path file = Files.createTempDirectory("reminders").resolve("tasks.txt");
+        Files.writeString(file, "T | O | read book\nD | O | return book | Sep 22 2024 1800\n"
+                + "D | X | submit iP | Sep 23 2024 1800\nE | O | lecture | Sep 19 2024 1000-1200\n"
+                + "E | O | briefing | Sep 21 2024 1600-1800");
+        for (boolean isColumnar : new boolean[] {false, true}) {
+            Storage lazyStorage = new Storage(file.toString(), false, !isColumnar, isColumnar);
+            lazyStorage.load();
+            ReminderScheduler lazyScheduler = new ReminderScheduler(lazyStorage, reminded::add, Duration.ofHours(1),
+                    NOW);
+            lazyScheduler.start();
+            try {
+                assertEquals(2, lazyScheduler.getPendingCount());
+                assertEquals(0, (long) lazyStorage.getStats().get("index.times"));
+            } finally {
+                lazyScheduler.stop();
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package patrick.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import patrick.parser.Parser;
+import patrick.storage.Storage;
+
+public class FlightEventsTest {
+    private static List<RecordedEvent> eventsNamed(List<RecordedEvent> events, String name) {
+        return events.stream().filter(event -> event.getEventType().getName().equals(name))
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    public void parseTask_whileRecording_commandStorageAndDateEventsEmitted() throws Exception {
+        Path directory = Files.createTempDirectory("jfr");
+        Storage storage = new Storage(directory.resolve("tasks.txt").toString());
+        Parser parser = new Parser();
+        Path dump = directory.resolve("recording.jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("patrick.Command").withoutThreshold();
+            recording.enable("patrick.Storage").withoutThreshold();
+            recording.enable("patrick.DateParseFailed");
+            recording.start();
+            storage.load();
+            parser.parseTask("todo read book", storage);
+            parser.parseTask("deadline return book /by someday", storage);
+            recording.stop();
+            recording.dump(dump);
+        }
+        List<RecordedEvent> events = RecordingFile.readAllEvents(dump);
+
+        List<RecordedEvent> commands = eventsNamed(events, "patrick.Command");
+        assertEquals(2, commands.size());
+        assertEquals("todo", commands.get(0).getString("type"));
+        assertEquals("todo read book".length(), commands.get(0).getInt("inputLength"));
+        assertEquals(CommandEvent.OUTCOME_OK, commands.get(0).getString("outcome"));
+        assertEquals("deadline", commands.get(1).getString("type"));
+
+        List<RecordedEvent> storageEvents = eventsNamed(events, "patrick.Storage");
+        assertEquals(StorageEvent.LOAD, storageEvents.get(0).getString("operation"));
+        RecordedEvent append = storageEvents.get(storageEvents.size() - 1);
+        assertEquals(StorageEvent.APPEND, append.getString("operation"));
+        assertEquals(1, append.getInt("taskCount"));
+        assertEquals(Files.size(directory.resolve("tasks.txt")), append.getLong("bytes"));
+
+        List<RecordedEvent> failures = eventsNamed(events, "patrick.DateParseFailed");
+        assertTrue(failures.stream().anyMatch(event -> event.getString("text").equals("someday")));
+    }
+}
@@ -0,0 +1,52 @@
+package patrick.metrics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+public class LatencyHistogramTest {
+    @Test
+    public void bucketOf_anyValue_withinAnEighthOfItsUpperBound() {
+        long[] values = {0, 1, 7, 8, 15, 16, 17, 1000, 123_456_789, Long.MAX_VALUE};
+        for (long value : values) {
+            long upper = LatencyHistogram.upperBound(LatencyHistogram.bucketOf(value));
+            assertTrue(upper >= value, "upper bound below " + value);
+            assertTrue(upper - value <= value / 8, "upper bound too far above " + value);
+        }
+        for (int bucket = 1; bucket < 200; bucket++) {
+            assertEquals(bucket, LatencyHistogram.bucketOf(LatencyHistogram.upperBound(bucket)));
+            assertEquals(bucket, LatencyHistogram.bucketOf(LatencyHistogram.upperBound(bucket - 1) + 1));
+        }
+    }
+
+    @Test
+    public void getPercentileNanos_uniformDurations_closeToExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getPercentileNanos(0.5));
+        for (long nanos = 1; nanos <= 10_000; nanos++) {
+            histogram.record(nanos);
+        }
+
+        assertEquals(10_000, histogram.getCount());
+        assertEquals(10_000, histogram.getMaxNanos());
+        assertEquals(50_005_000, histogram.getTotalNanos());
+        long median = histogram.getPercentileNanos(0.5);
+        assertTrue(median >= 5_000 && median <= 5_000 * 9 / 8, "median " + median);
+        long p99 = histogram.getPercentileNanos(0.99);
+        assertTrue(p99 >= 9_900 && p99 <= 10_000, "p99 " + p99);
+        assertEquals(10_000, histogram.getPercentileNanos(1));
+    }
+
+    @Test
+    public void reset_afterRecording_nothingLeft() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(42);
+        histogram.record(-5);
+        histogram.reset();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMaxNanos());
+        assertEquals(0, histogram.getPercentileNanos(0.99));
+    }
+}
@@ -0,0 +1,79 @@
+package patrick.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import patrick.storage.Storage;
+import patrick.tasklist.Deadline;
+import patrick.tasklist.ToDo;
+import patrick.ui.Ui;
+
+public class ListQueryTest {
+
+    private static Storage storageWith(int todos) {
+        Storage storage = new Storage("data/ListQueryTest.txt");
+        for (int i = 1; i <= todos; i++) {
+            storage.addList(new ToDo("task " + i));
+        }
+        return storage;
+    }
+
+    @Test
+    public void parse_noOptions_firstPageUnfiltered() throws Exception {
+        ListQuery query = ListQuery.parse("");
+        assertEquals(1, query.getPage());
+        assertFalse(query.isFiltered());
+    }
+
+    @Test
+    public void parse_pageSizeAndFilters_anyOrder() throws Exception {
+        ListQuery query = ListQuery.parse("undone --page-size 5 3 deadline");
+        assertEquals(3, query.getPage());
+        assertEquals(5, query.getPageSize());
+        assertTrue(query.isFiltered());
+        assertTrue(query.matches(new Deadline("return book", "2019-12-02 1800")));
+        assertFalse(query.matches(new ToDo("read book")));
+    }
+
+    @Test
+    public void parse_invalidOptions_exceptionThrown() {
+        assertThrows(Parser.PatrickException.class, () -> ListQuery.parse("0"));
+        assertThrows(Parser.PatrickException.class, () -> ListQuery.parse("--page-size"));
+        assertThrows(Parser.PatrickException.class, () -> ListQuery.parse("--page-size -1"));
+        assertThrows(Parser.PatrickException.class, () -> ListQuery.parse("soon"));
+    }
+
+    @Test
+    public void printFileContents_secondPage_keepsListNumbers() throws Exception {
+        String page = Ui.printFileContents(storageWith(5), ListQuery.parse("2 --page-size 2"));
+        assertEquals("Here are the tasks in your list:\n3. T | O | task 3\n4. T | O | task 4\nPage 2 of 3\n", page);
+    }
+
+    @Test
+    public void printFileContents_filtered_showsMatchingTasksWithListNumbers() throws Exception {
+        Storage storage = storageWith(4);
+        storage.markItem(2);
+        storage.markItem(4);
+        String page = Ui.printFileContents(storage, ListQuery.parse("done"));
+        assertEquals("Here are the tasks in your list:\n2. T | X | task 2\n4. T | X | task 4\n", page);
+    }
+
+    @Test
+    public void printFileContents_pagePastEnd_exceptionThrown() {
+        assertThrows(Parser.PatrickException.class,
+                () -> Ui.printFileContents(storageWith(3), ListQuery.parse("2 --page-size 3")));
+    }
+
+    @Test
+    public void parseTask_streamed_sameAsReturnedResponse() throws Exception {
+        Storage storage = storageWith(300);
+        StringBuilder out = new StringBuilder();
+        new Parser().parseTask("list --all", storage, out);
+        assertEquals(new Parser().parseTask("list --all", storage), out.toString());
+        assertTrue(out.toString().endsWith("300. T | O | task 300\n"));
+    }
+}
@@ -3,28 +3,78 @@ package patrick.parser;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+
 import org.junit.jupiter.api.Test;
 
+import patrick.metrics.Metrics;
+import patrick.storage.Storage;
+
 public class ParserTest {
 
     @Test
     public void testParseTask_listCommand() {
         Parser parser = new Parser();
-        String response = parser.parseTask("list");
+        String response = parser.parseTask("list", new Storage("data/ParserTest.txt"));
         assertTrue(response.contains("Here are the tasks in your list:"));
     }
 
     @Test
     public void testParseTask_byeCommand() {
         Parser parser = new Parser();
-        String response = parser.parseTask("bye");
+        String response = parser.parseTask("bye", new Storage("data/ParserTest.txt"));
         assertEquals("BYE", response);
     }
 
     @Test
     public void testParseTask_invalidCommand() {
         Parser parser = new Parser();
-        String response = parser.parseTask("invalidCommand");
+        String response = parser.parseTask("invalidCommand", new Storage("data/ParserTest.txt"));
         assertTrue(response.contains("Watch your words"));
     }
+
+    @Test
+    public void testParseTask_statsCommand() throws Exception {
+        Parser parser = new Parser();
+        Storage storage = new Storage("data/ParserTest.txt");
+        Path dump = Files.createTempDirectory("metrics").resolve("metrics.json");
+        System.setProperty(Metrics.DUMP_PROPERTY, dump.toString());
+        Metrics.setEnabled(true);
+        try {
+            Metrics.reset();
+            parser.parseTask("bye", storage);
+            String response = parser.parseTask("stats", storage);
+            assertTrue(response.contains("command.bye"));
+            assertTrue(response.contains("index.keys"));
+
+            assertEquals("Metrics written to " + dump, parser.parseTask("stats dump", storage));
+            String json = Files.readString(dump);
+            assertTrue(json.contains("\"command.bye\": {\"count\": 1,"));
+            assertTrue(json.contains("\"tasks\": "));
+        } finally {
+            Metrics.setEnabled(false);
+            System.clearProperty(Metrics.DUMP_PROPERTY);
+        }
+        assertTrue(parser.parseTask("stats", storage).startsWith("Metrics are off."));
+    }
+
+    @Test
+    public void testParse_commandWordAndArguments() {
+        Command command = Parser.parse("  deadline return book /by 2019-12-02 1800");
+        assertEquals(Parser.Type.DEADLINE, command.getType());
+        assertEquals("return book /by 2019-12-02 1800", command.getArguments());
+    }
+
+    @Test
+    public void testParse_unmarkNotMistakenForMark() {
+        assertEquals(Parser.Type.UNMARK, Parser.parse("unmark 1").getType());
+        assertEquals(Parser.Type.MARK, Parser.parse("mark 1").getType());
+    }
+
+    @Test
+    public void testParse_commandWordPrefix_error() {
+        assertEquals(Parser.Type.ERROR, Parser.parse("listing").getType());
+        assertEquals(Parser.Type.ERROR, Parser.parse("").getType());
+    }
 }
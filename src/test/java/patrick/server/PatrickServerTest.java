@@ -0,0 +1,106 @@
+package patrick.server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class PatrickServerTest {
+    private final HttpClient client = HttpClient.newHttpClient();
+    private Path dataDir;
+    private PatrickServer server;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        dataDir = Files.createTempDirectory("server");
+        server = new PatrickServer(0, dataDir);
+        server.start();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        server.stop();
+    }
+
+    private HttpResponse<String> post(String query, String command) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(
+                URI.create("http://localhost:" + server.getPort() + PatrickServer.COMMAND_PATH + query))
+                .POST(HttpRequest.BodyPublishers.ofString(command))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    @Test
+    public void post_twoUsers_tasksKeptInSeparateFiles() throws Exception {
+        HttpResponse<String> response = post("?user=alice", "todo read book");
+        assertEquals(200, response.statusCode());
+        assertTrue(response.body().contains("read book"));
+        post("?user=bob", "todo return book");
+
+        assertTrue(post("?user=alice", "list").body().contains("1. T | O | read book"));
+        assertTrue(post("?user=bob", "find read").body().contains("no matching tasks"));
+        assertEquals("1 | T | O | read book", Files.readString(dataDir.resolve("alice.txt")));
+        assertEquals("1 | T | O | return book", Files.readString(dataDir.resolve("bob.txt")));
+    }
+
+    @Test
+    public void post_moreUsersThanAllowed_leastRecentlyUsedDropped() throws Exception {
+        server.stop();
+        server = new PatrickServer(0, dataDir, 1, Duration.ofMinutes(30));
+        server.start();
+
+        assertEquals(200, post("?user=alice", "todo read book").statusCode());
+        assertEquals(200, post("?user=bob", "todo return book").statusCode());
+        assertEquals(1, server.getLoadedUserCount());
+        assertTrue(post("?user=alice", "list").body().contains("1. T | O | read book"));
+        assertTrue(post("?user=bob", "list").body().contains("1. T | O | return book"));
+    }
+
+    @Test
+    public void post_userIdle_tasksDroppedAndReloaded() throws Exception {
+        server.stop();
+        server = new PatrickServer(0, dataDir, 10, Duration.ofMillis(50));
+        server.start();
+
+        assertEquals(200, post("?user=alice", "todo read book").statusCode());
+        for (int i = 0; i < 100 && server.getLoadedUserCount() > 0; i++) {
+            Thread.sleep(20);
+        }
+        assertEquals(0, server.getLoadedUserCount());
+        assertTrue(post("?user=alice", "list").body().contains("1. T | O | read book"));
+    }
+
+    @Test
+    public void post_unreadableTaskFile_loadRetried() throws Exception {
+        Files.createDirectory(dataDir.resolve("alice.txt"));
+        assertEquals(500, post("?user=alice", "list").statusCode());
+
+        Files.delete(dataDir.resolve("alice.txt"));
+        assertEquals(200, post("?user=alice", "todo read book").statusCode());
+    }
+
+    @Test
+    public void post_invalidUser_rejected() throws Exception {
+        assertEquals(400, post("", "list").statusCode());
+        assertEquals(400, post("?user=../alice", "list").statusCode());
+    }
+
+    @Test
+    public void get_rejected() throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(
+                URI.create("http://localhost:" + server.getPort() + PatrickServer.COMMAND_PATH + "?user=alice"))
+                .GET()
+                .build();
+        assertEquals(405, client.send(request, HttpResponse.BodyHandlers.ofString()).statusCode());
+    }
+}
@@ -0,0 +1,106 @@
+package patrick.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import patrick.storage.Storage.IllegalValueException;
+import patrick.tasklist.Deadline;
+import patrick.tasklist.Event;
+import patrick.tasklist.Task;
+import patrick.tasklist.ToDo;
+
+public class BinaryTaskFileTest {
+    private static final String TEXT = "T | X | read book\n"
+            + "D | O | return book | Dec 2 2019 1800\n"
+            + "E | X | project meeting | Aug 6 2020 1400-1600";
+    private Path folder;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        folder = Files.createTempDirectory("binary");
+    }
+
+    @Test
+    public void read_encodedTasks_sameTasksReturned() throws Exception {
+        Task toDo = new ToDo("read book");
+        toDo.markAsDone();
+        List<Task> tasks = List.of(toDo, new Deadline("return book", "2019-12-02 1800"),
+                new Event("project meeting", "2020-08-06 1400", "1600"));
+        Path file = folder.resolve("tasks.bin");
+        Files.write(file, BinaryTaskFile.encode(tasks));
+
+        assertEquals(tasks.toString(), BinaryTaskFile.read(file).toString());
+    }
+
+    @Test
+    public void append_emptyFile_headerWritten() throws Exception {
+        Path file = folder.resolve("tasks.bin");
+        BinaryTaskFile.append(file, new ToDo("read book"));
+        BinaryTaskFile.append(file, new ToDo("return book"));
+
+        assertEquals("[T | O | read book, T | O | return book]", BinaryTaskFile.read(file).toString());
+    }
+
+    @Test
+    public void read_encodedIds_idsKept() throws Exception {
+        Task first = new ToDo("read book");
+        first.setId(4);
+        Task second = new ToDo("return book");
+        second.setId(9);
+        Path file = folder.resolve("tasks.bin");
+        Files.write(file, BinaryTaskFile.encode(List.of(first, second)));
+        Task third = new ToDo("write report");
+        third.setId(10);
+        BinaryTaskFile.append(file, third);
+
+        List<Task> read = BinaryTaskFile.read(file);
+        assertEquals(List.of(4, 9, 10), List.of(read.get(0).getId(), read.get(1).getId(), read.get(2).getId()));
+    }
+
+    @Test
+    public void read_notBinaryFile_exceptionThrown() throws Exception {
+        Path file = folder.resolve("tasks.bin");
+        Files.write(file, TEXT.getBytes(StandardCharsets.UTF_8));
+        assertThrows(IllegalValueException.class, () -> BinaryTaskFile.read(file));
+    }
+
+    @Test
+    public void read_corruptLengthOrTime_exceptionThrown() throws Exception {
+        Path file = folder.resolve("tasks.bin");
+        byte[] event = BinaryTaskFile.encode(List.of(new Event("project meeting", "2020-08-06 1400", "1600")));
+        // The length of the description follows the header, the id, the type and the status
+        int lengthOffset = 5 + 4 + 2;
+        for (int length : new int[] {-1, Integer.MAX_VALUE}) {
+            byte[] bytes = event.clone();
+            ByteBuffer.wrap(bytes).putInt(lengthOffset, length);
+            Files.write(file, bytes);
+            assertThrows(IllegalValueException.class, () -> BinaryTaskFile.read(file));
+        }
+
+        byte[] bytes = event.clone();
+        ByteBuffer.wrap(bytes).putInt(bytes.length - 4, 24 * 60 * 60);
+        Files.write(file, bytes);
+        assertThrows(IllegalValueException.class, () -> BinaryTaskFile.read(file));
+    }
+
+    @Test
+    public void convert_textToBinaryAndBack_lossless() throws Exception {
+        Path text = folder.resolve("tasks.txt");
+        Files.write(text, TEXT.getBytes(StandardCharsets.UTF_8));
+
+        TaskFileConverter.convert(text.toString(), folder.resolve("tasks.bin").toString());
+        TaskFileConverter.convert(folder.resolve("tasks.bin").toString(), folder.resolve("copy.txt").toString());
+        assertEquals("1 | T | X | read book\n"
+                + "2 | D | O | return book | Dec 2 2019 1800\n"
+                + "3 | E | X | project meeting | Aug 6 2020 1400-1600", Files.readString(folder.resolve("copy.txt")));
+    }
+}
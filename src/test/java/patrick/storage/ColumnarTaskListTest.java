@@ -0,0 +1,113 @@
+package patrick.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import patrick.tasklist.Deadline;
+import patrick.tasklist.Event;
+import patrick.tasklist.Task;
+import patrick.tasklist.ToDo;
+
+public class ColumnarTaskListTest {
+    private ColumnarTaskList tasks;
+
+    @BeforeEach
+    public void setUp() {
+        tasks = new ColumnarTaskList();
+        addTask(new ToDo("read book"), 1, true);
+        addTask(new Deadline("return book", "2019-12-02 1800"), 2, false);
+        addTask(new Event("late show", "2020-08-06 2300", "0100"), 3, true);
+    }
+
+    @Test
+    public void get_eachType_sameLineAndIdAsStored() {
+        assertEquals("T | X | read book", tasks.get(0).toString());
+        assertEquals("D | O | return book | Dec 2 2019 1800", tasks.get(1).toString());
+        assertEquals("E | X | late show | Aug 6 2020 2300-0100", tasks.get(2).toString());
+        assertEquals(3, tasks.get(2).getId());
+        assertNotSame(tasks.get(0), tasks.get(0));
+    }
+
+    @Test
+    public void set_changedCopy_writtenBack() {
+        Task task = tasks.get(1);
+        task.markAsDone();
+        assertFalse(tasks.isDone(1));
+        tasks.set(1, task);
+        assertTrue(tasks.isDone(1));
+        assertEquals("D | X | return book | Dec 2 2019 1800", tasks.get(1).toString());
+    }
+
+    @Test
+    public void removeAt_scatteredPositions_restKeptInOrder() {
+        addTask(new ToDo("write report"), 4, false);
+        BitSet positions = new BitSet();
+        positions.set(0);
+        positions.set(2);
+        tasks.removeAt(positions);
+
+        assertEquals(2, tasks.size());
+        assertEquals(List.of(2, 4), List.of(tasks.getId(0), tasks.getId(1)));
+        assertEquals(0, tasks.countDone());
+        assertEquals("T | O | write report", tasks.get(1).toString());
+    }
+
+    @Test
+    public void remove_middleTask_laterTasksAndDoneBitsShifted() {
+        tasks.remove(1);
+        assertEquals(2, tasks.size());
+        assertTrue(tasks.isDone(1));
+        assertEquals(3, tasks.getId(1));
+        assertEquals("E | X | late show | Aug 6 2020 2300-0100", tasks.get(1).toString());
+        assertEquals(2, tasks.countDone());
+    }
+
+    @Test
+    public void remove_manyTasks_poolSweptAndDescriptionsKept() {
+        for (int i = 0; i < 20_000; i++) {
+            addTask(new ToDo("filler task " + i), 4 + i, false);
+        }
+        while (tasks.size() > 3) {
+            tasks.remove(3);
+        }
+        tasks.add(new ToDo("after sweep"));
+        assertEquals("T | O | after sweep", tasks.get(3).toString());
+        assertEquals("D | O | return book | Dec 2 2019 1800", tasks.get(1).toString());
+    }
+
+    @Test
+    public void storage_columnarMode_tasksSavedAndFound() throws Exception {
+        Path file = Files.createTempDirectory("columnar").resolve("tasks.txt");
+        Files.write(file, ("T | O | read book\n"
+                + "D | O | return book | Dec 02 2019 1800\n").getBytes(StandardCharsets.UTF_8));
+        Storage storage = new Storage(file.toString(), false, false, true);
+        storage.load();
+        assertTrue(storage.add(new ToDo("write report")));
+        storage.mark(2);
+        assertEquals(List.of("D | X | return book | Dec 2 2019 1800"),
+                storage.findTasks("return", true).stream().map(Task::toString).toList());
+
+        Storage reloaded = new Storage(file.toString(), false, false, true);
+        assertEquals(List.of("T | O | read book", "D | X | return book | Dec 2 2019 1800", "T | O | write report"),
+                reloaded.load().stream().map(Task::toString).toList());
+    }
+
+    private void addTask(Task task, int id, boolean isDone) {
+        task.setId(id);
+        if (isDone) {
+            task.markAsDone();
+        }
+        tasks.add(task);
+    }
+}
@@ -0,0 +1,140 @@
+package patrick.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import patrick.storage.Journal.Operation;
+import patrick.storage.Journal.Record;
+import patrick.storage.Storage.IllegalValueException;
+
+public class JournalTest {
+    private Path snapshot;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        snapshot = Files.createTempDirectory("journal").resolve("tasks.txt");
+    }
+
+    @Test
+    public void open_afterAppend_recordsReplayedInOrder() throws Exception {
+        Journal journal = new Journal(snapshot.toString(), 1024);
+        journal.open();
+        journal.append(Operation.ADD, 1, "T | O | read book");
+        journal.append(Operation.MARK, 1, null);
+
+        List<Record> records = new Journal(snapshot.toString(), 1024).open();
+        assertEquals(2, records.size());
+        assertEquals(Operation.ADD, records.get(0).getOperation());
+        assertEquals("T | O | read book", records.get(0).getTaskLine());
+        assertEquals(Operation.MARK, records.get(1).getOperation());
+        assertEquals(1, records.get(1).getId());
+    }
+
+    @Test
+    public void open_incompleteLastRecord_discarded() throws Exception {
+        Path log = Path.of(snapshot + ".journal");
+        Files.write(log, "ADD 1 T | O | read book\nDELE".getBytes(StandardCharsets.UTF_8));
+
+        Journal journal = new Journal(snapshot.toString(), 1024);
+        assertEquals(1, journal.open().size());
+        journal.append(Operation.DELETE, 1, null);
+        assertEquals("ADD 1 T | O | read book\nDELETE 1\n", Files.readString(log));
+    }
+
+    @Test
+    public void open_malformedRecord_exceptionThrown() throws Exception {
+        Files.write(Path.of(snapshot + ".journal"), "FLIP 1\n".getBytes(StandardCharsets.UTF_8));
+        assertThrows(IllegalValueException.class, () -> new Journal(snapshot.toString(), 1024).open());
+    }
+
+    @Test
+    public void compact_pastLimit_snapshotWrittenAndLogCleared() throws Exception {
+        Journal journal = new Journal(snapshot.toString(), 10);
+        journal.open();
+        assertFalse(journal.needsCompaction());
+        journal.append(Operation.ADD, 1, "T | O | read book");
+        assertTrue(journal.needsCompaction());
+
+        journal.compact(() -> "T | O | read book".getBytes(StandardCharsets.UTF_8));
+        assertFalse(journal.needsCompaction());
+        for (int i = 0; i < 100 && Files.exists(Path.of(snapshot + ".journal.compacting")); i++) {
+            Thread.sleep(20);
+        }
+        assertEquals("T | O | read book", Files.readString(snapshot));
+        assertTrue(new Journal(snapshot.toString(), 10).open().isEmpty());
+    }
+
+    @Test
+    public void append_afterFailedCompaction_failureReportedOnce() throws Exception {
+        Journal journal = new Journal(snapshot.toString(), 10);
+        journal.open();
+        journal.append(Operation.ADD, 1, "T | O | read book");
+        // A directory in place of the snapshot's temporary file makes writing the snapshot fail
+        Files.createDirectory(Path.of(snapshot + ".tmp"));
+        journal.compact(() -> "T | O | read book".getBytes(StandardCharsets.UTF_8));
+
+        IOException failure = null;
+        for (int i = 0; i < 100 && failure == null; i++) {
+            Thread.sleep(20);
+            try {
+                journal.append(Operation.MARK, 1, null);
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+        assertTrue(failure != null && failure.getMessage().startsWith("Could not compact the journal"));
+        journal.append(Operation.UNMARK, 1, null);
+        assertTrue(Files.exists(Path.of(snapshot + ".journal.compacting")));
+    }
+
+    @Test
+    public void close_compactionsStarted_snapshotsWrittenOnOneThread() throws Exception {
+        Path other = snapshot.resolveSibling("other.txt");
+        Journal journal = new Journal(snapshot.toString(), 10);
+        Journal otherJournal = new Journal(other.toString(), 10);
+        journal.open();
+        otherJournal.open();
+        journal.compact(() -> "T | O | read book".getBytes(StandardCharsets.UTF_8));
+        otherJournal.compact(() -> "T | O | return book".getBytes(StandardCharsets.UTF_8));
+        journal.close();
+        otherJournal.close();
+
+        assertEquals("T | O | read book", Files.readString(snapshot));
+        assertEquals("T | O | return book", Files.readString(other));
+        assertEquals(1, Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.getName().equals("journal-compactor")).count());
+        assertThrows(IOException.class, () -> journal.append(Operation.MARK, 1, null));
+    }
+
+    @Test
+    public void recover_snapshotWrittenBeforeCrash_snapshotReplaced() throws Exception {
+        Files.write(snapshot, "T | O | old".getBytes(StandardCharsets.UTF_8));
+        Files.write(Path.of(snapshot + ".tmp"), "T | O | new".getBytes(StandardCharsets.UTF_8));
+
+        assertFalse(new Journal(snapshot.toString(), 1024).recover());
+        assertEquals("T | O | new", Files.readString(snapshot));
+    }
+
+    @Test
+    public void recover_crashBeforeLogDeleted_partialSnapshotDiscarded() throws Exception {
+        Files.write(Path.of(snapshot + ".journal.compacting"), "ADD 1 T | O | read book\n".getBytes());
+        Files.write(Path.of(snapshot + ".tmp"), "T | O | re".getBytes(), StandardOpenOption.CREATE);
+
+        Journal journal = new Journal(snapshot.toString(), 1024);
+        assertTrue(journal.recover());
+        assertFalse(Files.exists(Path.of(snapshot + ".tmp")));
+        assertEquals(1, journal.readCompacting().size());
+    }
+}
@@ -0,0 +1,70 @@
+package patrick.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import patrick.tasklist.Deadline;
+import patrick.tasklist.Task;
+import patrick.tasklist.ToDo;
+
+public class KeyIndexTest {
+    private KeyIndex index;
+    private List<Task> tasks;
+
+    @BeforeEach
+    public void setUp() {
+        index = new KeyIndex();
+        tasks = new ArrayList<>();
+    }
+
+    @Test
+    public void contains_sameTypeDescriptionAndStatus_found() {
+        createTask(new ToDo("read book"));
+        createTask(new Deadline("return book", "2019-12-02 1800"));
+
+        assertTrue(index.contains(new ToDo("read book"), this::taskWithId));
+        assertTrue(index.contains(new Deadline("return book", "2019-12-02 1800"), this::taskWithId));
+        assertFalse(index.contains(new Deadline("return book", "2019-12-03 1800"), this::taskWithId));
+    }
+
+    @Test
+    public void contains_onlyStatusDiffers_notFound() {
+        Task readBook = createTask(new ToDo("read book"));
+        readBook.markAsDone();
+
+        assertFalse(index.contains(new ToDo("read book"), this::taskWithId));
+    }
+
+    @Test
+    public void remove_manyTasks_restStillFound() {
+        for (int i = 0; i < 1000; i++) {
+            createTask(new ToDo("task " + i));
+        }
+        for (int i = 0; i < 1000; i += 2) {
+            index.remove(tasks.get(i));
+        }
+
+        assertEquals(500, index.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i % 2 == 1, index.contains(new ToDo("task " + i), this::taskWithId));
+        }
+    }
+
+    private Task createTask(Task task) {
+        task.setId(tasks.size() + 1);
+        tasks.add(task);
+        index.add(task);
+        return task;
+    }
+
+    private Task taskWithId(int id) {
+        return tasks.get(id - 1);
+    }
+}
@@ -0,0 +1,74 @@
+package patrick.storage;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import patrick.tasklist.Deadline;
+import patrick.tasklist.Task;
+import patrick.tasklist.ToDo;
+
+public class KeywordIndexTest {
+    private KeywordIndex index;
+    private Task readBook;
+    private Task readNotes;
+
+    @BeforeEach
+    public void setUp() {
+        index = new KeywordIndex();
+        readBook = createTask(new ToDo("read book"), 1);
+        createTask(new Deadline("return Book", "2019-12-02 1800"), 2);
+        readNotes = createTask(new ToDo("read notes"), 3);
+    }
+
+    @Test
+    public void find_singleKeyword_matchesInListOrder() {
+        assertArrayEquals(new int[] {1, 2}, index.find("book", true));
+    }
+
+    @Test
+    public void find_prefix_matchesLongerWords() {
+        assertArrayEquals(new int[] {1, 2, 3}, index.find("re", true));
+    }
+
+    @Test
+    public void find_allKeywords_intersectsMatches() {
+        assertArrayEquals(new int[] {1}, index.find("read book", true));
+    }
+
+    @Test
+    public void find_anyKeyword_unitesMatches() {
+        assertArrayEquals(new int[] {1, 2, 3}, index.find("book notes", false));
+    }
+
+    @Test
+    public void find_dateText_matchesDeadline() {
+        assertArrayEquals(new int[] {2}, index.find("dec 2019", true));
+    }
+
+    @Test
+    public void remove_task_noLongerFound() {
+        index.remove(readBook);
+        assertArrayEquals(new int[] {2}, index.find("book", true));
+        assertArrayEquals(new int[0], index.find("read book", true));
+    }
+
+    @Test
+    public void removeAll_tasks_noLongerFoundAndWordsDropped() {
+        int words = index.size();
+        index.removeAll(List.of(readBook, readNotes));
+        assertArrayEquals(new int[] {2}, index.find("re", true));
+        assertArrayEquals(new int[0], index.find("notes", false));
+        assertEquals(words - 2, index.size());
+    }
+
+    private Task createTask(Task task, int id) {
+        task.setId(id);
+        index.add(task);
+        return task;
+    }
+}
@@ -0,0 +1,183 @@
+package patrick.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import patrick.storage.Storage.IllegalValueException;
+import patrick.tasklist.ToDo;
+
+public class MappedTaskListTest {
+    private Path file;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        file = Files.createTempDirectory("mapped").resolve("tasks.txt");
+        Files.write(file, ("T | X | read book\r\n"
+                + "D | O | return book | Dec 02 2019 1800\n"
+                + "E | O | project meeting | Aug 6 2020 1400-1600\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void open_validFile_linesIndexedButNotDecoded() throws Exception {
+        MappedTaskList tasks = MappedTaskList.open(file);
+        assertEquals(3, tasks.size());
+        assertFalse(tasks.isDecoded(1));
+
+        assertEquals("D | O | return book | Dec 2 2019 1800", tasks.get(1).toString());
+        assertEquals(2, tasks.get(1).getId());
+        assertTrue(tasks.isDecoded(1));
+        assertFalse(tasks.isDecoded(2));
+    }
+
+    @Test
+    public void peek_undecodedLine_taskNotKept() throws Exception {
+        MappedTaskList tasks = MappedTaskList.open(file);
+
+        assertEquals("D | O | return book | Dec 2 2019 1800", tasks.peek(1).toString());
+        assertFalse(tasks.isDecoded(1));
+        assertSame(tasks.get(1), tasks.peek(1));
+    }
+
+    @Test
+    public void open_idPrefixedLines_savedIdsKept() throws Exception {
+        Files.write(file, "3 | T | O | read book\n7 | T | X | return book\n".getBytes(StandardCharsets.UTF_8));
+        MappedTaskList tasks = MappedTaskList.open(file);
+
+        assertEquals(7, tasks.getId(1));
+        assertEquals("T | X | return book", tasks.get(1).toString());
+        assertEquals(3, tasks.get(0).getId());
+    }
+
+    @Test
+    public void open_unknownTaskType_lineIndexedAndFailsWhenRead() throws Exception {
+        Files.write(file, "T | O | read book\nX | O | nothing\nT | O | write report".getBytes(StandardCharsets.UTF_8));
+        MappedTaskList tasks = MappedTaskList.open(file);
+
+        assertEquals(3, tasks.size());
+        assertEquals("T | O | write report", tasks.get(2).toString());
+        assertThrows(IllegalStateException.class, () -> tasks.get(1));
+    }
+
+    @Test
+    public void validate_unknownTaskType_lineRemovedAndQuarantined() throws Exception {
+        Files.write(file, "T | O | read book\n2 | X | O | nothing\nT | O | write report"
+                .getBytes(StandardCharsets.UTF_8));
+        MappedTaskList tasks = MappedTaskList.open(file);
+        try (Quarantine quarantine = new Quarantine(file)) {
+            assertEquals(1, tasks.validate(quarantine));
+        }
+
+        assertEquals(2, tasks.size());
+        assertEquals("T | O | write report", tasks.get(1).toString());
+        assertEquals("2 | Unknown task type | 2 | X | O | nothing",
+                Files.readAllLines(Quarantine.pathFor(file)).get(1));
+    }
+
+    @Test
+    public void validate_badDates_skippedBeforeAnyTaskIsRead() throws Exception {
+        Files.write(file, ("T | O | read book\nD | O | return book | someday\n\n"
+                + "E | O | meeting | Aug 6 2020 1400-2500\nD | O | report | 2019-12-02 1800")
+                .getBytes(StandardCharsets.UTF_8));
+        MappedTaskList tasks = MappedTaskList.open(file);
+        try (Quarantine quarantine = new Quarantine(file)) {
+            assertEquals(2, tasks.validate(quarantine));
+        }
+
+        assertEquals(2, tasks.size());
+        assertFalse(tasks.isDecoded(1));
+        assertEquals("D | O | report | Dec 2 2019 1800", tasks.get(1).toString());
+        assertEquals("2 | Unknown date format: someday | D | O | return book | someday",
+                Files.readAllLines(Quarantine.pathFor(file)).get(1));
+        assertTrue(Files.readAllLines(Quarantine.pathFor(file)).get(2).startsWith("4 | "));
+    }
+
+    @Test
+    public void validate_unknownTaskTypeWithoutQuarantine_exceptionThrown() throws Exception {
+        Files.write(file, "T | O | read book\nX | O | nothing".getBytes(StandardCharsets.UTF_8));
+        MappedTaskList tasks = MappedTaskList.open(file);
+        assertThrows(IllegalValueException.class, () -> tasks.validate(null));
+    }
+
+    @Test
+    public void writeTo_afterChanges_undecodedLinesCopied() throws Exception {
+        MappedTaskList tasks = MappedTaskList.open(file);
+        tasks.get(0).markAsUndone();
+        tasks.remove(1);
+        ToDo toDo = new ToDo("write report");
+        toDo.setId(4);
+        tasks.add(toDo);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        tasks.writeTo(out);
+        assertEquals("1 | T | O | read book\n"
+                + "3 | E | O | project meeting | Aug 6 2020 1400-1600\n"
+                + "4 | T | O | write report", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void copy_originalChanged_copyKeptAndNothingDecoded() throws Exception {
+        MappedTaskList tasks = MappedTaskList.open(file);
+        MappedTaskList copy = tasks.copy();
+        tasks.remove(0);
+
+        assertEquals(3, copy.size());
+        assertFalse(copy.isDecoded(1));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        copy.writeTo(out);
+        assertTrue(out.toString(StandardCharsets.UTF_8).startsWith("1 | T | X | read book\n2 | D | O | return book"));
+    }
+
+    @Test
+    public void remap_writtenFile_undecodedLinesReadFromNewFile() throws Exception {
+        MappedTaskList tasks = MappedTaskList.open(file);
+        tasks.get(0).markAsUndone();
+        Path written = file.resolveSibling("written.txt");
+        Files.write(written, ("1 | T | O | read book\n2 | D | X | return book | Dec 02 2019 1800\n"
+                + "3 | T | O | water plants").getBytes(StandardCharsets.UTF_8));
+        tasks.remap(written);
+
+        assertTrue(tasks.isDecoded(0));
+        assertEquals("T | O | read book", tasks.get(0).toString());
+        assertFalse(tasks.isDecoded(2));
+        assertEquals("T | O | water plants", tasks.get(2).toString());
+        assertEquals(3, tasks.get(2).getId());
+    }
+
+    @Test
+    public void remap_fileWithOtherTasks_exceptionThrown() throws Exception {
+        MappedTaskList tasks = MappedTaskList.open(file);
+        Path written = file.resolveSibling("written.txt");
+        Files.write(written, "1 | T | O | read book\n3 | T | O | water plants".getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(IOException.class, () -> tasks.remap(written));
+        assertEquals("D | O | return book | Dec 2 2019 1800", tasks.get(1).toString());
+    }
+
+    @Test
+    public void writeToFile_leftoverCopy_notTakenForJournalSnapshot() throws Exception {
+        Storage storage = new Storage(file.toString(), false, true);
+        storage.load();
+        storage.markItem(2);
+        storage.writeToFile();
+        assertFalse(Files.exists(file.resolveSibling("tasks.txt.tmp")));
+
+        // A save cut short leaves a partial copy, which a journaled start must not move over the task file
+        Files.write(file.resolveSibling("tasks.txt" + Storage.MAPPED_TMP_SUFFIX), "T | O | parti".getBytes());
+        Storage journaled = new Storage(file.toString(), true);
+        journaled.load();
+        assertEquals(3, journaled.size());
+        assertTrue(journaled.getItem(2).isDone());
+    }
+}
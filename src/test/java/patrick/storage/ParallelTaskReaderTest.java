@@ -0,0 +1,87 @@
+package patrick.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import patrick.storage.Storage.IllegalValueException;
+import patrick.tasklist.Task;
+
+public class ParallelTaskReaderTest {
+    private static final int LINES = 20000;
+    private Path file;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        file = Files.createTempDirectory("parallel").resolve("tasks.txt");
+    }
+
+    private void writeLines(String lastLine) throws Exception {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < LINES; i++) {
+            if (i % 3 == 0) {
+                text.append(i + 1).append(" | T | O | read book ").append(i).append("\r\n");
+            } else if (i % 3 == 1) {
+                text.append("D | X | return book ").append(i).append(" | Dec 2 2019 1800\n");
+            } else {
+                text.append("E | O | project meeting ").append(i).append(" | Aug 6 2020 1400-1600\n");
+            }
+        }
+        Files.write(file, text.append(lastLine).toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void read_manyChunks_sameTasksInFileOrder() throws Exception {
+        writeLines("\n");
+        List<Task> expected = Storage.readTextTasks(file.toFile());
+
+        List<Task> tasks = new ParallelTaskReader(4).read(file);
+        assertEquals(LINES, tasks.size());
+        assertEquals(expected.toString(), tasks.toString());
+        assertEquals(1, tasks.get(0).getId());
+        assertEquals(1, tasks.get(1).getId());
+        assertEquals(4, tasks.get(3).getId());
+    }
+
+    @Test
+    public void load_manyChunks_idsGivenInFileOrder() throws Exception {
+        writeLines("");
+        Storage storage = new Storage(file.toString());
+        storage.load();
+
+        assertEquals(LINES, storage.size());
+        for (int i = 1; i <= LINES; i++) {
+            assertEquals(i, storage.getItem(i).getId());
+        }
+    }
+
+    @Test
+    public void read_invalidLinesWithQuarantine_skippedWithFileLineNumbers() throws Exception {
+        writeLines("X | O | nothing");
+        Quarantine quarantine = new Quarantine(file);
+        List<Task> tasks = new ArrayList<>();
+        try (quarantine) {
+            new ParallelTaskReader(4).read(file, tasks::add, quarantine);
+        }
+
+        assertEquals(LINES, tasks.size());
+        assertEquals(1, quarantine.getCount());
+        assertEquals((LINES + 1) + " | Unknown task type | X | O | nothing",
+                Files.readAllLines(quarantine.getPath()).get(1));
+    }
+
+    @Test
+    public void read_invalidLastLine_exceptionThrown() throws Exception {
+        writeLines("X | O | nothing");
+        assertThrows(IllegalValueException.class, () -> new ParallelTaskReader(4).read(file));
+        assertThrows(IllegalValueException.class, () -> new ParallelTaskReader(1).read(file));
+    }
+}
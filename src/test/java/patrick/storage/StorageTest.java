@@ -1,33 +1,250 @@
 package patrick.storage;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
 
 import org.junit.jupiter.api.Test;
 
 import patrick.storage.Storage.StorageOperationException;
+import patrick.tasklist.Event;
 import patrick.tasklist.Task;
+import patrick.tasklist.ToDo;
 
 public class StorageTest {
     private static final String TEST_DATA_FOLDER = "test/data/StorageTest";
 
+    @Test
+    public void add_journalPastLimit_snapshotWrittenInBackground() throws Exception {
+        Path file = Files.createTempDirectory("storage").resolve("tasks.txt");
+        System.setProperty(Journal.COMPACT_BYTES_PROPERTY, "1");
+        Storage storage;
+        try {
+            storage = new Storage(file.toString(), true);
+        } finally {
+            System.clearProperty(Journal.COMPACT_BYTES_PROPERTY);
+        }
+        storage.load();
+        storage.add(new ToDo("read book"));
+        for (int i = 0; i < 100 && Files.exists(Path.of(file + ".journal.compacting")); i++) {
+            Thread.sleep(20);
+        }
+
+        assertEquals("1 | T | O | read book", Files.readString(file));
+        assertEquals(0, Files.size(Path.of(file + ".journal")));
+    }
+
     @Test
     public void constructor_nullFilePath_exceptionThrown() throws Exception {
         assertThrows(NullPointerException.class, () -> new Storage(null));
     }
 
     @Test
-    public void load_invalidFormat_exceptionThrown() throws Exception {
-        Storage storage = getStorage("InvalidData.txt");
+    public void load_invalidLines_quarantinedAndRestLoaded() throws Exception {
+        Path file = Files.createTempDirectory("storage").resolve("InvalidData.txt");
+        Files.writeString(file, "T | O | read book\nX | O | nothing\n\nD | O | return book | someday\n"
+                + "T | X | write report");
+        Storage storage = new Storage(file.toString());
+        storage.load();
+
+        assertEquals(2, storage.size());
+        assertEquals(2, storage.getSkippedLineCount());
+        List<String> quarantined = Files.readAllLines(storage.getQuarantinePath());
+        assertTrue(quarantined.get(0).startsWith("# "));
+        assertEquals("2 | Unknown task type | X | O | nothing", quarantined.get(1));
+        assertTrue(quarantined.get(2).startsWith("4 | "));
+        assertTrue(quarantined.get(2).endsWith(" | D | O | return book | someday"));
+    }
+
+    @Test
+    public void load_invalidLinesLoadedTwice_quarantinedOnce() throws Exception {
+        Path file = Files.createTempDirectory("storage").resolve("InvalidData.txt");
+        Files.writeString(file, "T | O | read book\nX | O | nothing\nT | X | write report");
+        try (Storage storage = new Storage(file.toString(), true)) {
+            storage.load();
+        }
+
+        assertEquals("1 | T | O | read book\n2 | T | X | write report", Files.readString(file));
+        try (Storage reloaded = new Storage(file.toString(), true)) {
+            reloaded.load();
+            assertEquals(2, reloaded.size());
+            assertEquals(0, reloaded.getSkippedLineCount());
+            assertEquals(2, Files.readAllLines(reloaded.getQuarantinePath()).size());
+        }
+    }
+
+    @Test
+    public void load_invalidBinaryFile_exceptionThrown() throws Exception {
+        Path file = Files.createTempDirectory("storage").resolve("tasks.bin");
+        Files.writeString(file, "T | O | read book");
+        Storage storage = new Storage(file.toString());
         assertThrows(StorageOperationException.class, () -> storage.load());
     }
 
     @Test
-    public void testAddList_validTask() {
+    public void testAddList_validTask() throws Exception {
+        Storage storage = getStorage("Tasks.txt");
         Task task = new Task("Sample Task");
-        Storage.addList(task);
-        assertEquals(1, Storage.getList().size());
-        assertEquals(task, Storage.getList().get(0));
+        storage.addList(task);
+        assertEquals(1, storage.getList().size());
+        assertEquals(task, storage.getList().get(0));
+    }
+
+    @Test
+    public void containsTask_afterAddMarkAndDelete_indexKeptInSync() throws Exception {
+        Storage storage = getStorage("Tasks.txt");
+        Task task = new ToDo("Index Task");
+        assertFalse(storage.containsTask(new ToDo("Index Task")));
+
+        storage.addList(task);
+        int index = storage.size();
+        assertTrue(storage.containsTask(new ToDo("Index Task")));
+
+        storage.markItem(index);
+        assertFalse(storage.containsTask(new ToDo("Index Task")));
+        assertTrue(storage.containsTask(task));
+
+        storage.deleteItem(index);
+        assertFalse(storage.containsTask(task));
+    }
+
+    @Test
+    public void findOverlapping_afterAddAndDelete_timeIndexKeptInSync() throws Exception {
+        Storage storage = getStorage("Tasks.txt");
+        Event meeting = new Event("meeting", "2019-12-02 1400", "1600");
+        Event lunch = new Event("lunch", "2019-12-02 1500", "1530");
+        storage.addList(meeting);
+        storage.addList(lunch);
+        assertEquals(List.of(lunch), storage.findOverlapping(meeting));
+
+        storage.deleteItem(2);
+        assertTrue(storage.findOverlapping(meeting).isEmpty());
+        assertEquals(List.of(meeting), storage.findBetween(LocalDateTime.of(2019, 12, 2, 15, 0),
+                LocalDateTime.of(2019, 12, 2, 15, 0)));
+    }
+
+    @Test
+    public void addList_twoStores_tasksKeptApart() throws Exception {
+        Storage first = getStorage("First.txt");
+        Storage second = getStorage("Second.txt");
+        first.addList(new ToDo("read book"));
+        assertEquals(1, first.size());
+        assertEquals(0, second.size());
+        assertFalse(second.containsTask(new ToDo("read book")));
+    }
+
+    @Test
+    public void add_concurrentThreads_everyTaskSavedOnce() throws Exception {
+        Path file = Files.createTempDirectory("storage").resolve("tasks.txt");
+        Storage storage = new Storage(file.toString());
+        storage.load();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            int offset = t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 250; i++) {
+                    try {
+                        storage.add(new ToDo("task " + (i % 100) + " of " + offset % 2));
+                        storage.findTasks("task", true);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(200, storage.size());
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(200, lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            assertEquals(Storage.toLine(storage.getItem(i + 1)), lines.get(i));
+        }
+    }
+
+    @Test
+    public void load_afterDelete_idsKept() throws Exception {
+        Path file = Files.createTempDirectory("storage").resolve("tasks.txt");
+        Storage storage = new Storage(file.toString());
+        storage.load();
+        for (String description : List.of("read book", "return book", "write report")) {
+            storage.add(new ToDo(description));
+        }
+        storage.delete(2);
+        assertEquals("1 | T | O | read book\n3 | T | O | write report", Files.readString(file));
+
+        Storage reloaded = new Storage(file.toString());
+        reloaded.load();
+        assertEquals(2, reloaded.indexOfId(3));
+        assertEquals(0, reloaded.indexOfId(2));
+        reloaded.add(new ToDo("buy milk"));
+        assertEquals(4, reloaded.getItem(3).getId());
+    }
+
+    @Test
+    public void deleteAndMark_indexNotInList_exceptionThrown() throws Exception {
+        Path file = Files.createTempDirectory("storage").resolve("tasks.txt");
+        Storage storage = new Storage(file.toString());
+        storage.load();
+        storage.add(new ToDo("read book"));
+
+        assertThrows(Storage.InvalidIndexException.class, () -> storage.delete(2));
+        assertThrows(Storage.InvalidIndexException.class, () -> storage.mark(0));
+        assertThrows(Storage.InvalidIndexException.class, () -> storage.getCheckedItem(2));
+        storage.delete(1);
+        assertThrows(Storage.InvalidIndexException.class, () -> storage.unmark(1));
+        assertEquals("", Files.readString(file));
+    }
+
+    @Test
+    public void deleteAndMark_ranges_savedOnce() throws Exception {
+        Path file = Files.createTempDirectory("storage").resolve("tasks.txt");
+        Storage storage = new Storage(file.toString());
+        storage.load();
+        for (int i = 1; i <= 6; i++) {
+            storage.add(new ToDo("task " + i));
+        }
+        assertEquals(3, storage.delete(TaskRange.ofIndexes(2, 4)).size());
+        assertEquals(List.of(1, 5, 6), List.of(storage.getItem(1).getId(), storage.getItem(2).getId(),
+                storage.getItem(3).getId()));
+
+        List<Task> marked = storage.mark(TaskRange.ofIds(3, 5));
+        assertEquals(1, marked.size());
+        assertEquals(5, marked.get(0).getId());
+        assertTrue(storage.mark(TaskRange.ofIds(3, 5)).isEmpty());
+        assertEquals("1 | T | O | task 1\n5 | T | X | task 5\n6 | T | O | task 6", Files.readString(file));
+    }
+
+    @Test
+    public void deleteAndMark_selections_scatteredTasksChangedOnce() throws Exception {
+        Path file = Files.createTempDirectory("storage").resolve("tasks.txt");
+        Storage storage = new Storage(file.toString());
+        storage.load();
+        for (String description : List.of("read book", "return book", "write report", "read news", "buy milk")) {
+            storage.add(new ToDo(description));
+        }
+        List<Task> marked = storage.mark(TaskSelection.of(List.of(TaskRange.ofIndexes(1, 2),
+                TaskRange.ofIds(2, 2), TaskRange.ofIndexes(4, 5))));
+        assertEquals(4, marked.size());
+
+        assertEquals(List.of("read book", "read news"), storage.unmark(TaskSelection.matching("read")).stream()
+                .map(Task::getDescription).collect(Collectors.toList()));
+        assertEquals(2, storage.delete(TaskSelection.filter(Task::isDone)).size());
+        assertEquals("1 | T | O | read book\n3 | T | O | write report\n4 | T | O | read news",
+                Files.readString(file));
+        assertFalse(storage.containsTask(new ToDo("buy milk")));
     }
 
     private Storage getStorage(String fileName) throws Exception {
@@ -0,0 +1,104 @@
+package patrick.storage;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.Test;
+
+import patrick.storage.Storage.IllegalValueException;
+import patrick.tasklist.Deadline;
+import patrick.tasklist.Event;
+import patrick.tasklist.Task;
+import patrick.tasklist.ToDo;
+
+public class TaskLineTokenizerTest {
+    private static Task parse(String line) throws IllegalValueException {
+        TaskLineTokenizer tokenizer = new TaskLineTokenizer();
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        tokenizer.tokenize(bytes, 0, bytes.length);
+        return tokenizer.toTask();
+    }
+
+    @Test
+    public void tokenize_idAndFields_offsetsFound() throws Exception {
+        TaskLineTokenizer tokenizer = new TaskLineTokenizer();
+        byte[] bytes = "xx12 | D | X | return book | Dec 2 2019 1800yy".getBytes(StandardCharsets.UTF_8);
+        tokenizer.tokenize(bytes, 2, bytes.length - 2);
+
+        assertEquals(12, tokenizer.getId());
+        assertEquals('D', tokenizer.getType());
+        assertTrue(tokenizer.isDone());
+        assertEquals("return book", tokenizer.getDescription());
+        assertEquals(LocalDateTime.of(2019, 12, 2, 18, 0), ((Deadline) tokenizer.toTask()).getBy());
+    }
+
+    @Test
+    public void toTask_descriptionAlsoInDate_dateReadFromLastField() throws Exception {
+        Deadline deadline = (Deadline) parse("D | O | 2019 | Dec 2 2019 1800");
+        assertEquals("2019", deadline.getDescription());
+        assertEquals(LocalDateTime.of(2019, 12, 2, 18, 0), deadline.getBy());
+
+        Event event = (Event) parse("E | O | Aug 6 | Aug 6 2020 1400-1600");
+        assertEquals("Aug 6", event.getDescription());
+        assertEquals(LocalDateTime.of(2020, 8, 6, 14, 0), event.getFrom());
+        assertEquals("E | O | Aug 6 | Aug 6 2020 1400-1600", event.toString());
+    }
+
+    @Test
+    public void toTask_unescapedPipeFromOlderFile_keptInDescription() throws Exception {
+        assertEquals("a | b", parse("T | O | a | b").getDescription());
+        assertEquals("a | b", parse("D | O | a | b | Dec 02 2019 1800").getDescription());
+    }
+
+    @Test
+    public void toTask_otherDateFormat_parsedByDateFormatChecker() throws Exception {
+        assertEquals(LocalDateTime.of(2019, 12, 2, 18, 0), ((Deadline) parse("D | O | x | 2019-12-02 1800")).getBy());
+        assertThrows(DateTimeException.class, () -> parse("D | O | x | someday"));
+        assertThrows(DateTimeException.class, () -> parse("E | O | x | Aug 6 2020 1400"));
+    }
+
+    @Test
+    public void tokenize_invalidLines_exceptionThrown() {
+        assertEquals("Malformed task", assertThrows(IllegalValueException.class, () -> parse("T | O")).getMessage());
+        assertEquals("Unknown task type",
+                assertThrows(IllegalValueException.class, () -> parse("X | O | nothing")).getMessage());
+        assertEquals("Missing date",
+                assertThrows(IllegalValueException.class, () -> parse("D | O | no date")).getMessage());
+    }
+
+    @Test
+    public void escape_specialCharacters_readBackUnchanged() throws Exception {
+        String description = "pipes | and \\ slashes \\| and\nlines\r";
+        Deadline deadline = new Deadline(description, LocalDateTime.of(2019, 12, 2, 18, 0));
+        deadline.setId(7);
+        String line = Storage.toLine(deadline);
+
+        assertEquals("7 | D | O | pipes \\| and \\\\ slashes \\\\\\| and\\nlines\\r | Dec 2 2019 1800", line);
+        Task task = Storage.parseLine(line, 0);
+        assertEquals(description, task.getDescription());
+        assertEquals(deadline.toString(), task.toString());
+        assertEquals(7, task.getId());
+        assertEquals("plain", TaskLineTokenizer.escape("plain"));
+    }
+
+    @Test
+    public void load_savedPipeInDescription_taskReadBack() throws Exception {
+        Path file = Files.createTempDirectory("tokenizer").resolve("tasks.txt");
+        Storage storage = new Storage(file.toString());
+        Task task = new ToDo("a | b\nc");
+        storage.addList(task);
+        storage.saveAdd(task);
+
+        Storage reloaded = new Storage(file.toString());
+        reloaded.load();
+        assertEquals(1, Files.readAllLines(file).size());
+        assertEquals("a | b\nc", reloaded.getItem(1).getDescription());
+    }
+}
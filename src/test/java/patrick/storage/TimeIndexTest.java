@@ -0,0 +1,68 @@
+package patrick.storage;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import patrick.tasklist.Deadline;
+import patrick.tasklist.Event;
+import patrick.tasklist.Task;
+import patrick.tasklist.ToDo;
+
+public class TimeIndexTest {
+    private TimeIndex index;
+    private Task returnBook;
+    private Task lateShow;
+
+    @BeforeEach
+    public void setUp() {
+        index = new TimeIndex();
+        returnBook = createTask(new Deadline("return book", "2019-12-02 1800"), 1);
+        createTask(new Deadline("submit report", "2019-12-05 0900"), 2);
+        lateShow = createTask(new Event("late show", "2019-12-02 2300", "0100"), 3);
+        createTask(new Event("briefing", "2019-12-03 0000", "0030"), 4);
+        createTask(new ToDo("read book"), 5);
+    }
+
+    @Test
+    public void due_returnsDeadlinesUpToTimeInOrder() {
+        assertArrayEquals(new int[] {1}, index.due(LocalDateTime.of(2019, 12, 4, 0, 0)));
+        assertArrayEquals(new int[] {1, 2}, index.due(LocalDateTime.of(2019, 12, 5, 9, 0)));
+    }
+
+    @Test
+    public void after_returnsLaterDeadlinesAndEventsInOrder() {
+        assertArrayEquals(new int[] {3, 4, 2}, index.after(LocalDateTime.of(2019, 12, 2, 18, 0)));
+    }
+
+    @Test
+    public void between_mergesDeadlinesAndEventsInTimeOrder() {
+        assertArrayEquals(new int[] {1, 3, 4, 2},
+                index.between(LocalDateTime.of(2019, 12, 1, 0, 0), LocalDateTime.of(2019, 12, 6, 0, 0)));
+    }
+
+    @Test
+    public void overlapping_eventStartedTheDayBefore_found() {
+        LocalDateTime from = LocalDateTime.of(2019, 12, 3, 0, 30);
+        assertArrayEquals(new int[] {3, 4}, index.overlapping(from, from.plusMinutes(10)));
+        assertArrayEquals(new int[0], index.overlapping(from.plusHours(1), from.plusHours(2)));
+    }
+
+    @Test
+    public void remove_taskNoLongerFound() {
+        index.remove(returnBook);
+        index.remove(lateShow);
+        assertArrayEquals(new int[0], index.due(LocalDateTime.of(2019, 12, 4, 0, 0)));
+        assertArrayEquals(new int[] {4},
+                index.between(LocalDateTime.of(2019, 12, 2, 0, 0), LocalDateTime.of(2019, 12, 4, 0, 0)));
+    }
+
+    private Task createTask(Task task, int id) {
+        task.setId(id);
+        index.add(task);
+        return task;
+    }
+}
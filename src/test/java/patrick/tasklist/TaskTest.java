@@ -24,4 +24,14 @@ public class TaskTest {
         assertFalse(task.isDone);
         assertEquals("O | Do work", task.toString());
     }
+
+    @Test
+    public void testToString_afterMarking_lineRebuilt() {
+        Task task = new Deadline("Submit report", "2023-12-31 2359");
+        assertEquals("D | O | Submit report | Dec 31 2023 2359", task.toString());
+        task.markAsDone();
+        assertEquals("D | X | Submit report | Dec 31 2023 2359", task.toString());
+        task.markAsUndone();
+        assertEquals("D | O | Submit report | Dec 31 2023 2359", task.toString());
+    }
 }
@@ -0,0 +1,65 @@
+package patrick.ui;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import patrick.ui.ChatMessage.Kind;
+
+public class ChatHistoryTest {
+    private final List<ChatMessage> messages = new ArrayList<>();
+    private ChatHistory history;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        Path spillFile = Files.createTempDirectory("history").resolve("history.txt");
+        history = new ChatHistory(messages, 8, spillFile);
+    }
+
+    @Test
+    public void add_pastCapacity_oldestSpilled() throws Exception {
+        for (int i = 0; i < 9; i++) {
+            history.add(new ChatMessage(Kind.USER, "message " + i));
+        }
+        assertEquals(6, messages.size());
+        assertEquals(3, history.getSpilledCount());
+        assertEquals("message 3", messages.get(0).getText());
+    }
+
+    @Test
+    public void restoreOlder_afterSpilling_messagesBackInOrder() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            history.add(new ChatMessage(i % 2 == 0 ? Kind.USER : Kind.REPLY, "line " + i + "\nback\\slash"));
+        }
+        int spilled = history.getSpilledCount();
+        assertTrue(spilled > 0);
+
+        assertEquals(2, history.restoreOlder(2));
+        assertEquals("line " + (spilled - 2) + "\nback\\slash", messages.get(0).getText());
+        assertEquals("line " + (spilled - 1) + "\nback\\slash", messages.get(1).getText());
+        assertEquals(spilled - 2, history.getSpilledCount());
+
+        history.restoreOlder(spilled);
+        assertEquals(20, messages.size());
+        for (int i = 0; i < 20; i++) {
+            assertEquals("line " + i + "\nback\\slash", messages.get(i).getText());
+            assertEquals(i % 2 == 0 ? Kind.USER : Kind.REPLY, messages.get(i).getKind());
+        }
+    }
+
+    @Test
+    public void remove_thinkingMessage_removed() throws Exception {
+        ChatMessage thinking = new ChatMessage(Kind.THINKING, "Hang on Spongebob! Let me check");
+        history.add(new ChatMessage(Kind.USER, "list"));
+        history.add(thinking);
+        assertTrue(history.remove(thinking));
+        assertEquals(1, messages.size());
+    }
+}